@@ -1,7 +1,24 @@
 /**
  * Clase BinaryTree que implementa un árbol binario genérico.
  * Permite almacenar elementos clave-valor y realizar operaciones como inserción,
- * búsqueda, recorrido in-order y exportación a un archivo CSV.
+ * eliminación, búsqueda, recorrido in-order y exportación a un archivo CSV.
+ * El árbol se mantiene balanceado (AVL), por lo que la inserción y la búsqueda
+ * son O(log n) sin importar el orden en que lleguen las claves.
+ * Cada nodo guarda el tamaño de su subárbol, lo que permite saltar a la posición k
+ * del recorrido ordenado (por ejemplo, a una página de resultados) en O(log n).
+ * Los iteradores recorren el árbol de forma perezosa; el árbol no debe modificarse mientras se usan.
+ * El árbol es persistente: instantanea() devuelve en O(1) una copia inmutable del estado actual que
+ * comparte todos los nodos. Cada nodo recuerda la edición del árbol que lo creó; una instantánea abre
+ * una edición nueva, y las modificaciones posteriores copian (una sola vez) los nodos de su camino que
+ * pertenecen a ediciones anteriores en lugar de modificarlos, de modo que la instantánea nunca cambia.
+ * Sin instantáneas vigentes, todos los nodos son de la edición actual y se modifican en su lugar.
+ * Con claves de texto, cada nodo guarda cuántos caracteres comparte con las claves que acotan su
+ * subárbol (sus ancestros inmediatos a la izquierda y a la derecha; en los bordes del árbol, el prefijo
+ * común a todas las claves) y los cuatro caracteres siguientes empaquetados en un long. Toda clave que
+ * llega a un nodo comparte con él ese prefijo, así que casi todas las comparaciones se deciden con los
+ * caracteres empaquetados, sin leer la cadena del nodo; solo si coinciden se compara la clave completa.
+ * Esto evita recorrer una y otra vez prefijos comunes largos (como "DEP-2025-") y, sobre todo, cargar
+ * de memoria la cadena de cada nodo visitado.
  * 
  * @Project : Hoja de Trabajo 7
  * @Author : Luis Girón
@@ -10,16 +27,35 @@
  * @FileName : BinaryTree.java
  */
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Map;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
-public class BinaryTree<K extends Comparable<K>, V> {
+public class BinaryTree<K extends Comparable<K>, V> implements Iterable<V> {
     // Clase interna para los nodos del árbol
     private class Nodo {
         K clave; // Clave del nodo.
         V valor; // Valor asociado al nodo.
         Nodo izquierdo, derecho; // Hijos izquierdo y derecho del nodo.
+        byte altura; // Altura del subárbol cuya raíz es este nodo (a lo sumo ALTURA_MAXIMA).
+        int tamano; // Cantidad de nodos del subárbol cuya raíz es este nodo.
+        final int edicion; // Edición del árbol que creó el nodo; solo esa edición puede modificarlo.
+        // Caracteres que la clave comparte con las cotas inferior y superior de su subárbol. Junto con la
+        // altura caben en el relleno del objeto, así que el nodo sigue ocupando 48 bytes.
+        byte prefijoInferior;
+        byte prefijoSuperior;
+        long fragmento; // Caracteres de la clave desde el menor de los dos prefijos, empaquetados.
+        // Los prefijos y el fragmento los fija quien ubica el nodo en el árbol (ver fijarPrefijos).
 
         /**
          * Constructor de la clase Nodo.
@@ -32,10 +68,39 @@ public class BinaryTree<K extends Comparable<K>, V> {
             this.valor = valor;
             this.izquierdo = null;
             this.derecho = null;
+            this.altura = 1;
+            this.tamano = 1;
+            this.edicion = BinaryTree.this.edicion;
+        }
+
+        // Copia de un nodo de una edición anterior, que pertenece a la edición actual del árbol.
+        Nodo(Nodo original) {
+            this.clave = original.clave;
+            this.valor = original.valor;
+            this.izquierdo = original.izquierdo;
+            this.derecho = original.derecho;
+            this.altura = original.altura;
+            this.tamano = original.tamano;
+            this.edicion = BinaryTree.this.edicion;
+            this.prefijoInferior = original.prefijoInferior;
+            this.prefijoSuperior = original.prefijoSuperior;
+            this.fragmento = original.fragmento;
         }
     }
 
+    private static final int CARACTERES_FRAGMENTO = 4; // Caracteres de 16 bits empaquetados en el fragmento de cada nodo.
+    private static final int ALTURA_MAXIMA = 64; // Cota de la altura de un árbol AVL con hasta 2^31 nodos.
+    private static final int TAMANO_BLOQUE_CSV = 64 * 1024; // Caracteres acumulados antes de escribir al exportar.
+    // Con menos de una clave por cada tantos nodos, eliminar una por una (O(m log n)) es más barato
+    // que reconstruir el árbol completo (O(n)).
+    private static final int LOTE_ELIMINACION_POR_NODO = 4;
+    private static final AtomicInteger EDICIONES = new AtomicInteger(); // Generador de ediciones únicas entre todos los árboles.
+
     private Nodo raiz; // Raíz del árbol binario.
+    private int cantidad; // Número de nodos almacenados en el árbol.
+    private int edicion; // Edición actual: los nodos de otras ediciones son compartidos y no se modifican.
+    private int prefijoGlobal; // Caracteres iniciales que comparten todas las claves de texto (o menos).
+    private final Nodo[] camino = nuevoArregloNodos(ALTURA_MAXIMA); // Camino reutilizado al insertar.
 
     /**
      * Constructor de la clase BinaryTree.
@@ -43,6 +108,176 @@ public class BinaryTree<K extends Comparable<K>, V> {
      */
     public BinaryTree() {
         this.raiz = null;
+        this.cantidad = 0;
+        this.edicion = EDICIONES.incrementAndGet();
+    }
+
+    // Crea un árbol que comparte los nodos de otro, con una edición propia.
+    private BinaryTree(Nodo raiz, int cantidad, int prefijoGlobal) {
+        this.raiz = raiz;
+        this.cantidad = cantidad;
+        this.prefijoGlobal = prefijoGlobal;
+        this.edicion = EDICIONES.incrementAndGet();
+    }
+
+    /**
+     * Obtiene una instantánea del estado actual del árbol en O(1), sin copiar nodos.
+     * La instantánea no ve los cambios posteriores del árbol, y el árbol no ve los de la instantánea,
+     * por lo que puede recorrerse (por ejemplo, para exportarla) mientras el árbol sigue modificándose.
+     * Los valores se comparten: si son mutables, sus cambios sí se ven en ambos.
+     * 
+     * @return Un árbol independiente con el contenido actual.
+     */
+    public BinaryTree<K, V> instantanea() {
+        // A partir de aquí los nodos existentes pertenecen a ambos árboles, así que ninguno puede modificarlos.
+        edicion = EDICIONES.incrementAndGet();
+        return new BinaryTree<>(raiz, cantidad, prefijoGlobal);
+    }
+
+    // Devuelve el nodo si pertenece a la edición actual, o una copia propia si es compartido.
+    private Nodo editable(Nodo nodo) {
+        return nodo.edicion == edicion ? nodo : new Nodo(nodo);
+    }
+
+    // Reemplaza los nodos compartidos del camino (de la raíz hacia abajo) por copias editables,
+    // enlazando cada copia desde su padre ya editable.
+    private void copiarCamino(Nodo[] camino, int profundidad) {
+        for (int i = 0; i < profundidad; i++) {
+            Nodo original = camino[i];
+            if (original.edicion == edicion) {
+                continue;
+            }
+            Nodo copia = new Nodo(original);
+            if (i == 0) {
+                raiz = copia;
+            } else if (camino[i - 1].izquierdo == original) {
+                camino[i - 1].izquierdo = copia;
+            } else {
+                camino[i - 1].derecho = copia;
+            }
+            camino[i] = copia;
+        }
+    }
+
+    // Indica si un descenso con esta clave puede comparar por fragmentos: la clave debe ser texto y
+    // empezar con el prefijo común a todas las claves del árbol, que es lo que los nodos de los bordes
+    // suponen compartido con sus cotas ausentes.
+    private boolean conFragmentos(K clave) {
+        return clave instanceof String && raiz != null
+            && ((String) clave).regionMatches(0, (String) raiz.clave, 0, prefijoGlobal);
+    }
+
+    // Compara una clave con la de un nodo al que llegó un descenso desde la raíz (y que por lo tanto
+    // está dentro del intervalo del nodo): primero los caracteres empaquetados tras el prefijo que ambas
+    // comparten y, solo si coinciden, las claves completas.
+    private int comparar(K clave, Nodo nodo, boolean fragmentos) {
+        if (fragmentos) {
+            long fragmento = fragmento((String) clave, Math.min(nodo.prefijoInferior, nodo.prefijoSuperior));
+            if (fragmento != nodo.fragmento) {
+                return Long.compareUnsigned(fragmento, nodo.fragmento);
+            }
+        }
+        return clave.compareTo(nodo.clave);
+    }
+
+    // Empaqueta los caracteres de una clave de texto desde una posición; los que faltan cuentan como 0.
+    // Como cada carácter ocupa 16 bits, el orden sin signo de los fragmentos es el de las cadenas.
+    private static long fragmento(String texto, int desde) {
+        int longitud = texto.length();
+        if (desde + CARACTERES_FRAGMENTO <= longitud) {
+            return (long) texto.charAt(desde) << 48 | (long) texto.charAt(desde + 1) << 32
+                | (long) texto.charAt(desde + 2) << 16 | texto.charAt(desde + 3);
+        }
+        // Cerca del final de la clave: se empaquetan los caracteres que quedan y se completa con ceros.
+        // (La posición nunca supera el largo, porque es un prefijo que la clave comparte.)
+        long fragmento = 0;
+        for (int i = desde; i < longitud; i++) {
+            fragmento = (fragmento << 16) | texto.charAt(i);
+        }
+        int faltantes = desde + CARACTERES_FRAGMENTO - longitud;
+        return faltantes == CARACTERES_FRAGMENTO ? 0 : fragmento << (16 * faltantes);
+    }
+
+    // Cantidad de caracteres iniciales comunes a dos claves de texto (0 si alguna falta o no es texto),
+    // sabiendo que comparten al menos los primeros "desde". Se limita a lo que cabe en un byte: un valor
+    // menor al real solo hace que más comparaciones recurran a la clave completa.
+    private static int prefijoComun(Object a, Object b, int desde) {
+        if (!(a instanceof String) || !(b instanceof String)) {
+            return 0;
+        }
+        String x = (String) a;
+        String y = (String) b;
+        int limite = Math.min(Math.min(x.length(), y.length()), Byte.MAX_VALUE);
+        int i = Math.min(desde, limite);
+        while (i < limite && x.charAt(i) == y.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // Cantidad de caracteres que una clave comparte con una cota, o el prefijo común a todas las claves
+    // si la cota no existe (la clave está en un borde del árbol).
+    private int prefijoConCota(K clave, K cota, int desde) {
+        return cota == null ? prefijoGlobal : prefijoComun(clave, cota, desde);
+    }
+
+    // Prefijo que un nodo recién construido comparte con la cota de uno de sus lados. Si tiene un hijo de
+    // ese lado, las cotas del hijo son esa misma cota y el nodo, así que es el menor de los prefijos del
+    // hijo; si no, la cota es la clave vecina en el orden y se compara directamente.
+    private int prefijoHaciaCota(Nodo hijo, K clave, K cota) {
+        if (hijo != null) {
+            return Math.min(hijo.prefijoInferior, hijo.prefijoSuperior);
+        }
+        return prefijoConCota(clave, cota, prefijoGlobal);
+    }
+
+    // Reduce el prefijo común a todas las claves para que incluya una clave nueva. Los nodos de los
+    // bordes (las ramas extremas izquierda y derecha) suponían el prefijo anterior para su cota ausente,
+    // así que se ajustan; ocurre solo cuando llega una clave con un prefijo distinto a todas las demás.
+    private void incluirEnPrefijoGlobal(K clave) {
+        int comun = prefijoComun(clave, raiz.clave, 0);
+        if (comun >= prefijoGlobal) {
+            return;
+        }
+        prefijoGlobal = comun;
+        raiz = editable(raiz);
+        for (Nodo nodo = raiz; nodo != null; nodo = nodo.izquierdo) {
+            fijarPrefijos(nodo, Math.min(nodo.prefijoInferior, comun), nodo.prefijoSuperior);
+            if (nodo.izquierdo != null) {
+                nodo.izquierdo = editable(nodo.izquierdo);
+            }
+        }
+        for (Nodo nodo = raiz; nodo != null; nodo = nodo.derecho) {
+            fijarPrefijos(nodo, nodo.prefijoInferior, Math.min(nodo.prefijoSuperior, comun));
+            if (nodo.derecho != null) {
+                nodo.derecho = editable(nodo.derecho);
+            }
+        }
+    }
+
+    // Registra los prefijos que un nodo comparte con las cotas de su subárbol y recalcula su fragmento.
+    private void fijarPrefijos(Nodo nodo, int inferior, int superior) {
+        nodo.prefijoInferior = (byte) inferior;
+        nodo.prefijoSuperior = (byte) superior;
+        nodo.fragmento = nodo.clave instanceof String ? fragmento((String) nodo.clave, Math.min(inferior, superior)) : 0;
+    }
+
+    /**
+     * Obtiene la cantidad de elementos almacenados en el árbol.
+     * 
+     * @return El número de nodos del árbol.
+     */
+    public int tamano() {
+        return cantidad;
+    }
+
+    /**
+     * Obtiene la altura del árbol.
+     * 
+     * @return La altura del árbol, 0 si está vacío.
+     */
+    public int altura() {
+        return altura(raiz);
     }
 
     /**
@@ -53,23 +288,356 @@ public class BinaryTree<K extends Comparable<K>, V> {
      * @param valor El valor asociado al nodo.
      */
     public void insertar(K clave, V valor) {
-        raiz = insertarRec(raiz, clave, valor);
+        if (raiz == null) {
+            raiz = new Nodo(clave, valor);
+            prefijoGlobal = prefijoComun(clave, clave, 0);
+            fijarPrefijos(raiz, prefijoGlobal, prefijoGlobal);
+            cantidad++;
+            return;
+        }
+        incluirEnPrefijoGlobal(clave);
+        boolean fragmentos = clave instanceof String;
+        Nodo[] camino = this.camino;
+        int profundidad = 0;
+        Nodo actual = raiz;
+        K inferior = null; // Cotas del subárbol en el que se desciende.
+        K superior = null;
+        while (true) {
+            int comparacion = comparar(clave, actual, fragmentos);
+            camino[profundidad++] = actual;
+            if (comparacion < 0) {
+                superior = actual.clave;
+                if (actual.izquierdo == null) {
+                    copiarCamino(camino, profundidad);
+                    camino[profundidad - 1].izquierdo = nuevaHoja(clave, valor, inferior, superior, actual);
+                    break;
+                }
+                actual = actual.izquierdo;
+            } else if (comparacion > 0) {
+                inferior = actual.clave;
+                if (actual.derecho == null) {
+                    copiarCamino(camino, profundidad);
+                    camino[profundidad - 1].derecho = nuevaHoja(clave, valor, inferior, superior, actual);
+                    break;
+                }
+                actual = actual.derecho;
+            } else {
+                copiarCamino(camino, profundidad);
+                camino[profundidad - 1].valor = valor;
+                Arrays.fill(camino, 0, profundidad, null);
+                return;
+            }
+        }
+        cantidad++;
+        for (int i = 0; i < profundidad; i++) {
+            camino[i].tamano++; // El nuevo nodo pertenece al subárbol de cada ancestro.
+        }
+        rebalancearCamino(camino, profundidad);
     }
 
-    // Método recursivo para insertar un nodo en el árbol.
-    private Nodo insertarRec(Nodo raiz, K clave, V valor) {
-        if (raiz == null) {
-            return new Nodo(clave, valor);
+    // Crea una hoja entre las cotas indicadas (null si está en un borde), bajo el padre dado; la hoja comparte con
+    // sus cotas al menos lo que comparten entre sí las cotas del padre.
+    private Nodo nuevaHoja(K clave, V valor, K inferior, K superior, Nodo padre) {
+        Nodo hoja = new Nodo(clave, valor);
+        int comun = Math.min(padre.prefijoInferior, padre.prefijoSuperior);
+        fijarPrefijos(hoja, prefijoConCota(clave, inferior, comun), prefijoConCota(clave, superior, comun));
+        return hoja;
+    }
+
+    /**
+     * Inserta un lote de pares clave-valor construyendo un árbol perfectamente balanceado.
+     * El lote se ordena una sola vez (en tiempo lineal si ya viene ordenado) y se combina con
+     * el contenido actual, por lo que el costo es O(n) en lugar de una inserción por elemento.
+     * Si una clave se repite, prevalece el último valor del lote.
+     * 
+     * @param claves Las claves a insertar.
+     * @param valores Los valores asociados a cada clave, en la misma posición.
+     */
+    public void insertarLote(List<K> claves, List<V> valores) {
+        if (claves.size() != valores.size()) {
+            throw new IllegalArgumentException("Las listas de claves y valores deben tener el mismo tamaño");
+        }
+        Nodo[] lote = nuevoArregloNodos(claves.size());
+        for (int i = 0; i < lote.length; i++) {
+            lote[i] = new Nodo(claves.get(i), valores.get(i));
+        }
+        // El ordenamiento es estable, usa todos los núcleos y detecta secuencias ya ordenadas en una sola pasada.
+        Arrays.parallelSort(lote, (a, b) -> a.clave.compareTo(b.clave));
+
+        Nodo[] existentes = nuevoArregloNodos(cantidad);
+        RecorridoInOrden recorrido = new RecorridoInOrden();
+        for (int i = 0; i < existentes.length; i++) {
+            existentes[i] = recorrido.siguiente();
+        }
+
+        Nodo[] combinados = nuevoArregloNodos(existentes.length + lote.length);
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < existentes.length || j < lote.length) {
+            Nodo siguiente;
+            if (j == lote.length) {
+                siguiente = existentes[i++];
+            } else if (i == existentes.length) {
+                siguiente = lote[j++];
+            } else {
+                int comparacion = existentes[i].clave.compareTo(lote[j].clave);
+                if (comparacion < 0) {
+                    siguiente = existentes[i++];
+                } else {
+                    if (comparacion == 0) {
+                        i++; // El valor del lote reemplaza al existente.
+                    }
+                    siguiente = lote[j++];
+                }
+            }
+            if (total > 0 && combinados[total - 1].clave.compareTo(siguiente.clave) == 0) {
+                combinados[total - 1] = siguiente; // Clave repetida dentro del lote.
+            } else {
+                combinados[total++] = siguiente;
+            }
+        }
+        prefijoGlobal = total > 0 ? prefijoComun(combinados[0].clave, combinados[total - 1].clave, 0) : 0;
+        raiz = construirBalanceado(combinados, 0, total, total);
+        cantidad = total;
+    }
+
+    /**
+     * Elimina el nodo con la clave indicada y rebalancea el camino afectado.
+     * Un nodo con dos hijos se reemplaza por su sucesor en orden.
+     * 
+     * @param clave La clave del nodo a eliminar.
+     * @return true si la clave existía y se eliminó.
+     */
+    public boolean eliminar(K clave) {
+        Nodo[] camino = this.camino;
+        int profundidad = 0;
+        Nodo actual = raiz;
+        K inferior = null; // Cotas del subárbol del nodo a eliminar.
+        K superior = null;
+        boolean fragmentos = conFragmentos(clave);
+        while (actual != null) {
+            int comparacion = comparar(clave, actual, fragmentos);
+            if (comparacion < 0) {
+                camino[profundidad++] = actual;
+                superior = actual.clave;
+                actual = actual.izquierdo;
+            } else if (comparacion > 0) {
+                camino[profundidad++] = actual;
+                inferior = actual.clave;
+                actual = actual.derecho;
+            } else {
+                break;
+            }
         }
-        int comparacion = clave.compareTo(raiz.clave);
-        if (comparacion < 0) {
-            raiz.izquierdo = insertarRec(raiz.izquierdo, clave, valor);
-        } else if (comparacion > 0) {
-            raiz.derecho = insertarRec(raiz.derecho, clave, valor);
+        if (actual == null) {
+            Arrays.fill(camino, 0, profundidad, null);
+            return false;
+        }
+        Nodo hijo; // Nodo que ocupa el lugar del eliminado.
+        if (actual.izquierdo != null && actual.derecho != null) {
+            // El sucesor (el menor del subárbol derecho) ocupa el lugar del nodo y se elimina en su posición.
+            int posicionNodo = profundidad;
+            camino[profundidad++] = actual;
+            Nodo sucesor = actual.derecho;
+            while (sucesor.izquierdo != null) {
+                camino[profundidad++] = sucesor;
+                sucesor = sucesor.izquierdo;
+            }
+            copiarCamino(camino, profundidad);
+            Nodo reemplazado = camino[posicionNodo];
+            reemplazado.clave = sucesor.clave;
+            reemplazado.valor = sucesor.valor;
+            int comun = Math.min(reemplazado.prefijoInferior, reemplazado.prefijoSuperior);
+            fijarPrefijos(reemplazado, prefijoConCota(sucesor.clave, inferior, comun), prefijoConCota(sucesor.clave, superior, comun));
+            // La rama derecha del subárbol izquierdo tenía al nodo como cota superior y ahora tiene al
+            // sucesor, que es mayor: lo que comparten con la cota puede reducirse a lo que comparten ambos.
+            // (La rama izquierda del subárbol derecho pasa a una cota inferior más cercana, lo que es seguro.)
+            int entreAmbos = sucesor.prefijoInferior;
+            Nodo rama = editable(reemplazado.izquierdo);
+            reemplazado.izquierdo = rama;
+            while (true) {
+                fijarPrefijos(rama, rama.prefijoInferior, Math.min(rama.prefijoSuperior, entreAmbos));
+                if (rama.derecho == null) {
+                    break;
+                }
+                rama.derecho = editable(rama.derecho);
+                rama = rama.derecho;
+            }
+            actual = sucesor;
+            // Las cotas del hijo derecho del sucesor no cambian: siguen siendo el sucesor y su padre.
+            hijo = sucesor.derecho;
         } else {
-            raiz.valor = valor;
+            copiarCamino(camino, profundidad);
+            hijo = actual.izquierdo != null ? actual.izquierdo : actual.derecho;
+            if (hijo != null) {
+                // El hijo sube al lugar del nodo y su subárbol se extiende hasta la cota de este. Como las
+                // claves están ordenadas, lo que comparte con la nueva cota es el menor de los dos tramos.
+                hijo = editable(hijo);
+                if (actual.izquierdo != null) {
+                    fijarPrefijos(hijo, hijo.prefijoInferior, Math.min(hijo.prefijoSuperior, actual.prefijoSuperior));
+                } else {
+                    fijarPrefijos(hijo, Math.min(actual.prefijoInferior, hijo.prefijoInferior), hijo.prefijoSuperior);
+                }
+            }
+        }
+        if (profundidad == 0) {
+            raiz = hijo;
+        } else if (camino[profundidad - 1].izquierdo == actual) {
+            camino[profundidad - 1].izquierdo = hijo;
+        } else {
+            camino[profundidad - 1].derecho = hijo;
+        }
+        cantidad--;
+        for (int i = 0; i < profundidad; i++) {
+            camino[i].tamano--;
+        }
+        rebalancearCamino(camino, profundidad);
+        return true;
+    }
+
+    /**
+     * Elimina un lote de claves.
+     * Si el lote es pequeño respecto al árbol, se elimina cada clave por separado; si no, las claves
+     * se ordenan, se descartan en un solo recorrido in-order y el árbol se reconstruye balanceado
+     * en O(n), en lugar de rebalancear una vez por cada clave.
+     * 
+     * @param claves Las claves a eliminar (las que no existen se ignoran).
+     * @return La cantidad de claves eliminadas.
+     */
+    public int eliminarLote(Collection<K> claves) {
+        int antes = cantidad;
+        if ((long) claves.size() * LOTE_ELIMINACION_POR_NODO < cantidad) {
+            for (K clave : claves) {
+                eliminar(clave);
+            }
+            return antes - cantidad;
+        }
+        List<K> ordenadas = new ArrayList<>(claves);
+        ordenadas.sort(null);
+        Nodo[] conservados = nuevoArregloNodos(cantidad);
+        int total = 0;
+        int j = 0;
+        RecorridoInOrden recorrido = new RecorridoInOrden();
+        for (Nodo nodo = recorrido.siguiente(); nodo != null; nodo = recorrido.siguiente()) {
+            while (j < ordenadas.size() && ordenadas.get(j).compareTo(nodo.clave) < 0) {
+                j++;
+            }
+            if (j == ordenadas.size() || ordenadas.get(j).compareTo(nodo.clave) != 0) {
+                conservados[total++] = nodo;
+            }
+        }
+        prefijoGlobal = total > 0 ? prefijoComun(conservados[0].clave, conservados[total - 1].clave, 0) : 0;
+        raiz = construirBalanceado(conservados, 0, total, total);
+        cantidad = total;
+        return antes - cantidad;
+    }
+
+    // Construye un subárbol balanceado con los nodos ordenados del rango [desde, hasta) de los primeros
+    // "total"; las cotas del subárbol son los nodos vecinos al rango (ninguna en los extremos).
+    private Nodo construirBalanceado(Nodo[] nodos, int desde, int hasta, int total) {
+        if (desde >= hasta) {
+            return null;
+        }
+        int medio = (desde + hasta) >>> 1;
+        Nodo nodo = editable(nodos[medio]);
+        nodo.izquierdo = construirBalanceado(nodos, desde, medio, total);
+        nodo.derecho = construirBalanceado(nodos, medio + 1, hasta, total);
+        fijarPrefijos(nodo, prefijoHaciaCota(nodo.izquierdo, nodo.clave, desde > 0 ? nodos[desde - 1].clave : null),
+            prefijoHaciaCota(nodo.derecho, nodo.clave, hasta < total ? nodos[hasta].clave : null));
+        actualizarAltura(nodo);
+        return nodo;
+    }
+
+    // Rebalancea de abajo hacia arriba los nodos del camino recorrido por una modificación.
+    private void rebalancearCamino(Nodo[] camino, int profundidad) {
+        for (int i = profundidad - 1; i >= 0; i--) {
+            Nodo nodo = camino[i];
+            int alturaPrevia = nodo.altura;
+            Nodo nuevaRaiz = balancear(nodo);
+            if (i == 0) {
+                raiz = nuevaRaiz;
+            } else if (camino[i - 1].izquierdo == nodo) {
+                camino[i - 1].izquierdo = nuevaRaiz;
+            } else {
+                camino[i - 1].derecho = nuevaRaiz;
+            }
+            if (nuevaRaiz.altura == alturaPrevia) {
+                break; // Los ancestros no cambian de altura.
+            }
+        }
+        Arrays.fill(camino, 0, profundidad, null);
+    }
+
+    // Crea un arreglo de nodos (Java no permite crear arreglos del tipo interno genérico directamente).
+    @SuppressWarnings("unchecked")
+    private Nodo[] nuevoArregloNodos(int longitud) {
+        return (Nodo[]) Array.newInstance(Nodo.class, longitud);
+    }
+
+    // Devuelve la altura de un subárbol, 0 si es nulo.
+    private int altura(Nodo nodo) {
+        return nodo != null ? nodo.altura : 0;
+    }
+
+    // Devuelve la cantidad de nodos de un subárbol, 0 si es nulo.
+    private int tamano(Nodo nodo) {
+        return nodo != null ? nodo.tamano : 0;
+    }
+
+    // Recalcula la altura y el tamaño de un nodo a partir de los de sus hijos.
+    private void actualizarAltura(Nodo nodo) {
+        nodo.altura = (byte) (1 + Math.max(altura(nodo.izquierdo), altura(nodo.derecho)));
+        nodo.tamano = 1 + tamano(nodo.izquierdo) + tamano(nodo.derecho);
+    }
+
+    // Rotación simple a la derecha; devuelve la nueva raíz del subárbol.
+    // El hijo hereda las cotas del nodo y el nodo pasa a tener al hijo como cota inferior; con claves
+    // ordenadas, el prefijo común de dos claves es el menor de los tramos intermedios.
+    private Nodo rotarDerecha(Nodo nodo) {
+        nodo = editable(nodo);
+        Nodo hijo = editable(nodo.izquierdo);
+        nodo.izquierdo = hijo.derecho;
+        hijo.derecho = nodo;
+        int entreAmbos = hijo.prefijoSuperior;
+        fijarPrefijos(hijo, hijo.prefijoInferior, Math.min(entreAmbos, nodo.prefijoSuperior));
+        fijarPrefijos(nodo, entreAmbos, nodo.prefijoSuperior);
+        actualizarAltura(nodo);
+        actualizarAltura(hijo);
+        return hijo;
+    }
+
+    // Rotación simple a la izquierda; devuelve la nueva raíz del subárbol (simétrica a rotarDerecha).
+    private Nodo rotarIzquierda(Nodo nodo) {
+        nodo = editable(nodo);
+        Nodo hijo = editable(nodo.derecho);
+        nodo.derecho = hijo.izquierdo;
+        hijo.izquierdo = nodo;
+        int entreAmbos = hijo.prefijoInferior;
+        fijarPrefijos(hijo, Math.min(nodo.prefijoInferior, entreAmbos), hijo.prefijoSuperior);
+        fijarPrefijos(nodo, nodo.prefijoInferior, entreAmbos);
+        actualizarAltura(nodo);
+        actualizarAltura(hijo);
+        return hijo;
+    }
+
+    // Restaura la propiedad AVL de un nodo cuyos hijos ya están balanceados.
+    private Nodo balancear(Nodo nodo) {
+        actualizarAltura(nodo);
+        int factor = altura(nodo.izquierdo) - altura(nodo.derecho);
+        if (factor > 1) {
+            if (altura(nodo.izquierdo.izquierdo) < altura(nodo.izquierdo.derecho)) {
+                nodo.izquierdo = rotarIzquierda(nodo.izquierdo);
+            }
+            return rotarDerecha(nodo);
         }
-        return raiz;
+        if (factor < -1) {
+            if (altura(nodo.derecho.derecho) < altura(nodo.derecho.izquierdo)) {
+                nodo.derecho = rotarDerecha(nodo.derecho);
+            }
+            return rotarIzquierda(nodo);
+        }
+        return nodo;
     }
 
     /**
@@ -79,18 +647,49 @@ public class BinaryTree<K extends Comparable<K>, V> {
      * @return El valor asociado al nodo, o null si no se encuentra.
      */
     public V buscar(K clave) {
-        Nodo nodo = buscarRec(raiz, clave);
-        return nodo != null ? nodo.valor : null;
+        // Las tres ramas explícitas evitan que el JIT convierta la elección del hijo en un
+        // movimiento condicional, que impediría al procesador adelantar la carga del siguiente nodo.
+        Nodo actual = raiz;
+        boolean fragmentos = conFragmentos(clave);
+        while (actual != null) {
+            int comparacion = comparar(clave, actual, fragmentos);
+            if (comparacion < 0) {
+                actual = actual.izquierdo;
+            } else if (comparacion > 0) {
+                actual = actual.derecho;
+            } else {
+                return actual.valor;
+            }
+        }
+        return null;
     }
 
-    // Método recursivo para buscar un nodo en el árbol.
-    private Nodo buscarRec(Nodo raiz, K clave) {
-        if (raiz == null || clave.compareTo(raiz.clave) == 0) {
-            return raiz;
+    /**
+     * Busca un nodo en el árbol binario por su clave e informa cuántas comparaciones de claves necesitó.
+     * Es un método aparte para que buscar(K) conserve su ciclo sin el contador.
+     * 
+     * @param clave La clave del nodo a buscar.
+     * @param comparaciones Recibe la cantidad de comparaciones realizadas, una vez al terminar.
+     * @return El valor asociado al nodo, o null si no se encuentra.
+     */
+    public V buscar(K clave, IntConsumer comparaciones) {
+        Nodo actual = raiz;
+        int realizadas = 0;
+        boolean fragmentos = conFragmentos(clave);
+        while (actual != null) {
+            int comparacion = comparar(clave, actual, fragmentos);
+            realizadas++;
+            if (comparacion < 0) {
+                actual = actual.izquierdo;
+            } else if (comparacion > 0) {
+                actual = actual.derecho;
+            } else {
+                comparaciones.accept(realizadas);
+                return actual.valor;
+            }
         }
-        return clave.compareTo(raiz.clave) < 0 
-            ? buscarRec(raiz.izquierdo, clave) 
-            : buscarRec(raiz.derecho, clave);
+        comparaciones.accept(realizadas);
+        return null;
     }
 
     /**
@@ -98,55 +697,290 @@ public class BinaryTree<K extends Comparable<K>, V> {
      * Imprime las claves y valores de los nodos en orden ascendente.
      */
     public void inOrder() {
-        inOrderRec(raiz);
+        RecorridoInOrden recorrido = new RecorridoInOrden();
+        for (Nodo nodo = recorrido.siguiente(); nodo != null; nodo = recorrido.siguiente()) {
+            System.out.println(nodo.clave + ": " + nodo.valor);
+        }
+    }
+
+    /**
+     * Obtiene los valores del árbol en orden ascendente de clave.
+     * 
+     * @return Una lista nueva con los valores en orden.
+     */
+    public List<V> valoresEnOrden() {
+        List<V> valores = new ArrayList<>(cantidad);
+        RecorridoInOrden recorrido = new RecorridoInOrden();
+        for (Nodo nodo = recorrido.siguiente(); nodo != null; nodo = recorrido.siguiente()) {
+            valores.add(nodo.valor);
+        }
+        return valores;
+    }
+
+    /**
+     * Obtiene un iterador perezoso sobre los valores del árbol en orden ascendente de clave.
+     * 
+     * @return Un iterador sobre todos los valores.
+     */
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterador(new RecorridoInOrden(), null, false);
+    }
+
+    /**
+     * Obtiene un Spliterator ordenado y de tamaño conocido sobre los valores del árbol,
+     * para recorrerlo con la API de streams.
+     * 
+     * @return Un Spliterator sobre todos los valores.
+     */
+    @Override
+    public Spliterator<V> spliterator() {
+        return Spliterators.spliterator(iterator(), cantidad, Spliterator.ORDERED);
+    }
+
+    /**
+     * Obtiene un iterador perezoso sobre los valores cuyas claves están en el rango indicado.
+     * Ubicar el inicio del rango cuesta O(log n); cada elemento siguiente, O(1) amortizado.
+     * 
+     * @param desde Clave inicial del rango, o null para empezar desde la menor.
+     * @param incluirDesde Si la clave inicial forma parte del rango.
+     * @param hasta Clave final del rango, o null para llegar hasta la mayor.
+     * @param incluirHasta Si la clave final forma parte del rango.
+     * @return Un iterador sobre los valores del rango, en orden ascendente de clave.
+     */
+    public Iterator<V> rango(K desde, boolean incluirDesde, K hasta, boolean incluirHasta) {
+        RecorridoInOrden recorrido = desde == null ? new RecorridoInOrden() : new RecorridoInOrden(desde, incluirDesde);
+        return new Iterador(recorrido, hasta, incluirHasta);
+    }
+
+    /**
+     * Obtiene un iterador perezoso que empieza en la posición indicada del orden ascendente.
+     * Gracias al tamaño de cada subárbol, el salto cuesta O(log n) sin recorrer los elementos omitidos.
+     * 
+     * @param posicion Cantidad de elementos a omitir (empezando en 0).
+     * @return Un iterador sobre los valores a partir de esa posición.
+     */
+    public Iterator<V> desdePosicion(int posicion) {
+        if (posicion < 0) {
+            throw new IllegalArgumentException("La posición no puede ser negativa");
+        }
+        return new Iterador(new RecorridoInOrden(posicion), null, false);
+    }
+
+    /**
+     * Obtiene la posición que ocupa (u ocuparía) una clave en el orden ascendente.
+     * 
+     * @param clave La clave a ubicar.
+     * @return La cantidad de claves menores que la indicada.
+     */
+    public int posicion(K clave) {
+        int menores = 0;
+        Nodo actual = raiz;
+        boolean fragmentos = conFragmentos(clave);
+        while (actual != null) {
+            int comparacion = comparar(clave, actual, fragmentos);
+            if (comparacion < 0) {
+                actual = actual.izquierdo;
+            } else if (comparacion > 0) {
+                menores += tamano(actual.izquierdo) + 1;
+                actual = actual.derecho;
+            } else {
+                return menores + tamano(actual.izquierdo);
+            }
+        }
+        return menores;
+    }
+
+    /**
+     * Busca el valor de la mayor clave que es menor o igual a la indicada.
+     * 
+     * @param clave La clave de referencia.
+     * @return El valor encontrado, o null si todas las claves son mayores.
+     */
+    public V piso(K clave) {
+        Nodo candidato = null;
+        Nodo actual = raiz;
+        boolean fragmentos = conFragmentos(clave);
+        while (actual != null) {
+            int comparacion = comparar(clave, actual, fragmentos);
+            if (comparacion < 0) {
+                actual = actual.izquierdo;
+            } else if (comparacion > 0) {
+                candidato = actual;
+                actual = actual.derecho;
+            } else {
+                return actual.valor;
+            }
+        }
+        return candidato != null ? candidato.valor : null;
+    }
+
+    /**
+     * Busca el valor de la menor clave que es mayor o igual a la indicada.
+     * 
+     * @param clave La clave de referencia.
+     * @return El valor encontrado, o null si todas las claves son menores.
+     */
+    public V techo(K clave) {
+        Nodo candidato = null;
+        Nodo actual = raiz;
+        boolean fragmentos = conFragmentos(clave);
+        while (actual != null) {
+            int comparacion = comparar(clave, actual, fragmentos);
+            if (comparacion < 0) {
+                candidato = actual;
+                actual = actual.izquierdo;
+            } else if (comparacion > 0) {
+                actual = actual.derecho;
+            } else {
+                return actual.valor;
+            }
+        }
+        return candidato != null ? candidato.valor : null;
+    }
+
+    // Iterador público sobre un recorrido in-order, que se detiene al pasar la clave final (si hay una).
+    private class Iterador implements Iterator<V> {
+        private final RecorridoInOrden recorrido;
+        private final K hasta; // Clave final, o null si no hay límite.
+        private final boolean incluirHasta;
+        private Nodo siguiente; // Próximo nodo a devolver, o null al terminar.
+
+        Iterador(RecorridoInOrden recorrido, K hasta, boolean incluirHasta) {
+            this.recorrido = recorrido;
+            this.hasta = hasta;
+            this.incluirHasta = incluirHasta;
+            avanzar();
+        }
+
+        // Obtiene el siguiente nodo del recorrido, descartándolo si ya está fuera del rango.
+        private void avanzar() {
+            siguiente = recorrido.siguiente();
+            if (siguiente != null && hasta != null) {
+                int comparacion = siguiente.clave.compareTo(hasta);
+                if (comparacion > 0 || (comparacion == 0 && !incluirHasta)) {
+                    siguiente = null;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return siguiente != null;
+        }
+
+        @Override
+        public V next() {
+            if (siguiente == null) {
+                throw new NoSuchElementException();
+            }
+            V valor = siguiente.valor;
+            avanzar();
+            return valor;
+        }
     }
 
-    // Método recursivo para realizar el recorrido in-order.
-    private void inOrderRec(Nodo raiz) {
-        if (raiz != null) {
-            inOrderRec(raiz.izquierdo);
-            System.out.println(raiz.clave + ": " + raiz.valor);
-            inOrderRec(raiz.derecho);
+    // Recorrido in-order iterativo con pila explícita; su profundidad está acotada por la altura del árbol.
+    private class RecorridoInOrden {
+        private final Nodo[] pila = nuevoArregloNodos(Math.max(1, altura(raiz)));
+        private int tope = 0;
+
+        RecorridoInOrden() {
+            apilarIzquierdos(raiz);
+        }
+
+        // Posiciona el recorrido en la primera clave mayor (o igual, si se incluye) que la indicada.
+        RecorridoInOrden(K desde, boolean incluirDesde) {
+            Nodo nodo = raiz;
+            boolean fragmentos = conFragmentos(desde);
+            while (nodo != null) {
+                int comparacion = comparar(desde, nodo, fragmentos);
+                if (comparacion < 0 || (comparacion == 0 && incluirDesde)) {
+                    pila[tope++] = nodo;
+                    nodo = comparacion == 0 ? null : nodo.izquierdo;
+                } else {
+                    nodo = nodo.derecho;
+                }
+            }
+        }
+
+        // Posiciona el recorrido en el nodo que ocupa la posición indicada (empezando en 0).
+        RecorridoInOrden(int posicion) {
+            Nodo nodo = raiz;
+            while (nodo != null) {
+                int izquierdos = tamano(nodo.izquierdo);
+                if (posicion < izquierdos) {
+                    pila[tope++] = nodo;
+                    nodo = nodo.izquierdo;
+                } else if (posicion == izquierdos) {
+                    pila[tope++] = nodo;
+                    nodo = null;
+                } else {
+                    posicion -= izquierdos + 1;
+                    nodo = nodo.derecho;
+                }
+            }
+        }
+
+        // Apila el nodo y toda su rama izquierda.
+        private void apilarIzquierdos(Nodo nodo) {
+            while (nodo != null) {
+                pila[tope++] = nodo;
+                nodo = nodo.izquierdo;
+            }
+        }
+
+        // Devuelve el siguiente nodo en orden ascendente, o null al terminar.
+        Nodo siguiente() {
+            if (tope == 0) {
+                return null;
+            }
+            Nodo nodo = pila[--tope];
+            apilarIzquierdos(nodo.derecho);
+            return nodo;
         }
     }
 
     /**
      * Guarda el contenido del árbol binario en un archivo CSV.
+     * Las filas se acumulan en un búfer de caracteres reutilizable y se entregan al writer en bloques,
+     * sin crear cadenas intermedias por producto.
      * 
-     * @param writer El objeto FileWriter para escribir en el archivo.
+     * @param writer El objeto Writer para escribir en el archivo.
      * @param header El encabezado del archivo CSV.
      * @throws IOException Si ocurre un error al escribir en el archivo.
      */
-    public void guardarEnCSV(FileWriter writer, String header) throws IOException {
-        writer.write(header + "\n"); // Escribir el encabezado
-        guardarInOrder(raiz, writer);
+    public void guardarEnCSV(Writer writer, String header) throws IOException {
+        guardarEnCSV(writer, header, 0);
     }
 
-    // Método privado para recorrer el árbol in-order y escribir en el archivo CSV.
-    private void guardarInOrder(Nodo nodo, FileWriter writer) throws IOException {
-        if (nodo != null) {
-            guardarInOrder(nodo.izquierdo, writer);
+    // Igual que guardarEnCSV(writer, header), pero escribe las existencias que tenía cada producto en la
+    // instantánea de exportación indicada (ver Producto.conservarPara).
+    void guardarEnCSV(Writer writer, String header, long instantanea) throws IOException {
+        StringBuilder sb = new StringBuilder(TAMANO_BLOQUE_CSV + 1024);
+        char[] bloque = new char[TAMANO_BLOQUE_CSV + 1024];
+        sb.append(header).append('\n'); // Escribir el encabezado
+        RecorridoInOrden recorrido = new RecorridoInOrden();
+        for (Nodo nodo = recorrido.siguiente(); nodo != null; nodo = recorrido.siguiente()) {
             if (nodo.valor instanceof Producto) {
-                Producto p = (Producto) nodo.valor;
-                String tallasStr = mapToString(p.getTallas());
-                writer.write(String.format("%s,%s,%s,%s\n", p.getSku(), p.getNombre(), p.getDescripcion(), tallasStr));
+                ((Producto) nodo.valor).escribirFilaCSV(sb, instantanea);
+                if (sb.length() >= TAMANO_BLOQUE_CSV) {
+                    bloque = volcar(sb, bloque, writer);
+                }
             }
-            guardarInOrder(nodo.derecho, writer);
         }
+        volcar(sb, bloque, writer);
     }
 
-    /**
-     * Convierte un mapa de tallas y cantidades a una cadena de texto.
-     * 
-     * @param tallas El mapa de tallas y cantidades.
-     * @return Una cadena con el formato "talla1:cantidad1|talla2:cantidad2".
-     */
-    private String mapToString(Map<String, Integer> tallas) {
-        StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String, Integer> entry : tallas.entrySet()) {
-            if (sb.length() > 0) sb.append("|");
-            sb.append(entry.getKey()).append(":").append(entry.getValue());
+    // Copia el contenido del StringBuilder al writer y lo vacía; devuelve el bloque (ampliado si hizo falta).
+    private static char[] volcar(StringBuilder sb, char[] bloque, Writer writer) throws IOException {
+        int longitud = sb.length();
+        if (longitud > bloque.length) {
+            bloque = new char[longitud];
         }
-        return sb.toString();
+        sb.getChars(0, longitud, bloque, 0);
+        writer.write(bloque, 0, longitud);
+        sb.setLength(0);
+        return bloque;
     }
 }
\ No newline at end of file
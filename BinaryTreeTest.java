@@ -10,6 +10,15 @@
  * @FileName : BinaryTreeTest.java
  */
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.StreamSupport;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -104,4 +113,308 @@ public class BinaryTreeTest {
         assertEquals(p3, arbol.buscar("002"), "El producto 002 debería estar en el árbol");
         assertEquals(p1, arbol.buscar("003"), "El producto 003 debería estar en el árbol");
     }
-}
\ No newline at end of file
+
+    /**
+     * Prueba para verificar que el árbol se mantenga balanceado con claves ordenadas.
+     * Asegura que una carga ascendente no degenere en una lista enlazada.
+     */
+    @Test
+    public void testInsertarOrdenadoMantieneBalance() {
+        for (int i = 0; i < 1024; i++) {
+            String sku = String.format("%04d", i);
+            arbol.insertar(sku, new Producto(sku, "Producto " + i, "Descripción", "m:1"));
+        }
+
+        assertEquals(1024, arbol.tamano(), "El árbol debería contener todos los productos insertados");
+        assertTrue(arbol.altura() <= 15, "La altura debería ser logarítmica, fue " + arbol.altura());
+        assertEquals("Producto 700", arbol.buscar("0700").getNombre(), "El producto 0700 debería encontrarse");
+    }
+
+    /**
+     * Prueba para verificar que la exportación a CSV recorra el árbol en orden ascendente.
+     * Asegura que el recorrido iterativo escriba el encabezado y cada producto una sola vez.
+     */
+    @Test
+    public void testGuardarEnCSVEnOrden() throws IOException {
+        Producto p1 = new Producto("003", "Guantes de Gimnasio", "Alta intensidad", "m:18");
+        Producto p2 = new Producto("001", "Short de Pádel", "Ajuste cómodo", "xs:5");
+        Producto p3 = new Producto("002", "Conjunto de Gimnasia", "Transpirable", "m:10");
+        arbol.insertar(p1.getSku(), p1);
+        arbol.insertar(p2.getSku(), p2);
+        arbol.insertar(p3.getSku(), p3);
+
+        StringWriter writer = new StringWriter();
+        arbol.guardarEnCSV(writer, "SKU,Nombre,Descripción,Cantidad por talla");
+        String esperado = "SKU,Nombre,Descripción,Cantidad por talla\n"
+            + "001,Short de Pádel,Ajuste cómodo,xs:5\n"
+            + "002,Conjunto de Gimnasia,Transpirable,m:10\n"
+            + "003,Guantes de Gimnasio,Alta intensidad,m:18\n";
+        assertEquals(esperado, writer.toString(), "El CSV debería contener los productos ordenados por SKU");
+    }
+
+    /**
+     * Prueba para verificar la inserción por lote en un árbol con contenido previo.
+     * Asegura que el lote se combine con los elementos existentes y que prevalezca el último valor.
+     */
+    @Test
+    public void testInsertarLoteCombinaYActualiza() {
+        Producto existente = new Producto("002", "Conjunto de Gimnasia", "Transpirable", "m:10");
+        arbol.insertar(existente.getSku(), existente);
+
+        Producto p1 = new Producto("003", "Guantes de Gimnasio", "Alta intensidad", "m:18");
+        Producto p2 = new Producto("001", "Short de Pádel", "Ajuste cómodo", "xs:5");
+        Producto p3 = new Producto("002", "Conjunto de Gimnasia", "Ajuste mejorado", "m:12");
+        arbol.insertarLote(List.of(p1.getSku(), p2.getSku(), p3.getSku()), List.of(p1, p2, p3));
+
+        assertEquals(3, arbol.tamano(), "El árbol debería contener tres productos distintos");
+        assertEquals(p2, arbol.buscar("001"), "El producto 001 debería estar en el árbol");
+        assertEquals(p3, arbol.buscar("002"), "El producto 002 debería haberse reemplazado por el del lote");
+        assertEquals(p1, arbol.buscar("003"), "El producto 003 debería estar en el árbol");
+    }
+
+    /**
+     * Prueba para verificar que la inserción por lote produzca un árbol balanceado.
+     * Asegura que un lote ordenado grande tenga altura mínima.
+     */
+    @Test
+    public void testInsertarLoteOrdenadoBalanceado() {
+        List<String> claves = new ArrayList<>();
+        List<Producto> valores = new ArrayList<>();
+        for (int i = 0; i < 1023; i++) {
+            String sku = String.format("%04d", i);
+            claves.add(sku);
+            valores.add(new Producto(sku, "Producto " + i, "Descripción", "m:1"));
+        }
+        arbol.insertarLote(claves, valores);
+
+        assertEquals(1023, arbol.tamano(), "El árbol debería contener todos los productos del lote");
+        assertEquals(10, arbol.altura(), "Un lote de 1023 elementos debería producir un árbol perfecto");
+        arbol.insertar("9999", valores.get(0));
+        assertEquals(11, arbol.altura(), "El árbol debería seguir admitiendo inserciones individuales");
+    }
+
+    /**
+     * Prueba para verificar los rangos, el piso y el techo sobre claves no consecutivas.
+     * Asegura que los límites inclusivos y exclusivos se respeten.
+     */
+    @Test
+    public void testRangoPisoYTecho() {
+        for (int i = 0; i < 100; i += 10) {
+            String sku = String.format("%03d", i);
+            arbol.insertar(sku, new Producto(sku, "Producto " + i, "Descripción", "m:1"));
+        }
+
+        List<String> incluidos = new ArrayList<>();
+        arbol.rango("020", true, "050", true).forEachRemaining(p -> incluidos.add(p.getSku()));
+        assertEquals(List.of("020", "030", "040", "050"), incluidos, "El rango inclusivo debería incluir ambos extremos");
+
+        List<String> excluidos = new ArrayList<>();
+        arbol.rango("020", false, "050", false).forEachRemaining(p -> excluidos.add(p.getSku()));
+        assertEquals(List.of("030", "040"), excluidos, "El rango exclusivo no debería incluir los extremos");
+
+        List<String> abierto = new ArrayList<>();
+        arbol.rango("075", true, null, false).forEachRemaining(p -> abierto.add(p.getSku()));
+        assertEquals(List.of("080", "090"), abierto, "Un rango sin final debería llegar hasta la mayor clave");
+
+        assertEquals("030", arbol.piso("035").getSku(), "El piso debería ser la mayor clave menor o igual");
+        assertEquals("040", arbol.techo("035").getSku(), "El techo debería ser la menor clave mayor o igual");
+        assertEquals("030", arbol.techo("030").getSku(), "El techo de una clave existente debería ser ella misma");
+        assertNull(arbol.piso("-1"), "No debería haber piso por debajo de la menor clave");
+        assertNull(arbol.techo("095"), "No debería haber techo por encima de la mayor clave");
+    }
+
+    /**
+     * Prueba para verificar el acceso por posición con inserciones en orden aleatorio.
+     * Asegura que el tamaño de los subárboles se mantenga al rebalancear.
+     */
+    @Test
+    public void testDesdePosicionYPosicion() {
+        List<Integer> orden = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            orden.add(i);
+        }
+        Collections.shuffle(orden, new Random(7));
+        for (int i : orden) {
+            String sku = String.format("%04d", i);
+            arbol.insertar(sku, new Producto(sku, "Producto " + i, "Descripción", "m:1"));
+        }
+        arbol.insertar("0250", arbol.buscar("0250")); // Reemplazar un valor no cambia los tamaños.
+
+        for (int i = 0; i < 500; i += 37) {
+            assertEquals(String.format("%04d", i), arbol.desdePosicion(i).next().getSku(), "La posición " + i + " debería coincidir");
+            assertEquals(i, arbol.posicion(String.format("%04d", i)), "La clave debería estar en la posición " + i);
+        }
+        assertFalse(arbol.desdePosicion(500).hasNext(), "No debería haber elementos después del último");
+        int contados = 0;
+        for (Producto producto : arbol) {
+            assertEquals(String.format("%04d", contados++), producto.getSku(), "El iterador debería recorrer en orden");
+        }
+        assertEquals(500, contados, "El iterador debería recorrer todos los elementos");
+        assertEquals(500, StreamSupport.stream(arbol.spliterator(), false).count(),
+            "El Spliterator debería recorrer todos los elementos");
+    }
+
+    /**
+     * Prueba para verificar la eliminación de claves en orden aleatorio.
+     * Asegura que el árbol siga ordenado, balanceado y con los tamaños de subárbol correctos.
+     */
+    @Test
+    public void testEliminarMantieneBalanceYOrden() {
+        List<Integer> orden = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            orden.add(i);
+            String sku = String.format("%04d", i);
+            arbol.insertar(sku, new Producto(sku, "Producto " + i, "Descripción", "m:1"));
+        }
+        Collections.shuffle(orden, new Random(11));
+        for (int i : orden.subList(0, 700)) {
+            assertTrue(arbol.eliminar(String.format("%04d", i)), "La clave " + i + " debería eliminarse");
+        }
+        assertFalse(arbol.eliminar(String.format("%04d", orden.get(0))), "Una clave ya eliminada no debería eliminarse de nuevo");
+
+        List<Integer> restantes = new ArrayList<>(orden.subList(700, 1000));
+        Collections.sort(restantes);
+        assertEquals(300, arbol.tamano(), "El árbol debería conservar las claves no eliminadas");
+        assertTrue(arbol.altura() <= 12, "La altura debería seguir siendo logarítmica, fue " + arbol.altura());
+        int posicion = 0;
+        for (Producto producto : arbol) {
+            assertEquals(String.format("%04d", restantes.get(posicion)), producto.getSku(), "El recorrido debería seguir en orden");
+            posicion++;
+        }
+        assertEquals(String.format("%04d", restantes.get(150)), arbol.desdePosicion(150).next().getSku(),
+            "Los tamaños de subárbol deberían actualizarse al eliminar");
+    }
+
+    /**
+     * Prueba para verificar la eliminación por lote, tanto grande (reconstrucción) como pequeña.
+     * Asegura que solo se eliminen las claves existentes del lote.
+     */
+    @Test
+    public void testEliminarLote() {
+        List<String> pares = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String sku = String.format("%04d", i);
+            arbol.insertar(sku, new Producto(sku, "Producto " + i, "Descripción", "m:1"));
+            if (i % 2 == 0) {
+                pares.add(sku);
+            }
+        }
+        pares.add("inexistente");
+
+        assertEquals(500, arbol.eliminarLote(pares), "Se deberían eliminar las 500 claves pares");
+        assertEquals(500, arbol.tamano(), "Deberían quedar las claves impares");
+        assertNull(arbol.buscar("0002"), "Una clave del lote no debería encontrarse");
+        assertNotNull(arbol.buscar("0003"), "Una clave fuera del lote debería conservarse");
+        assertEquals(9, arbol.altura(), "La reconstrucción debería producir un árbol de altura mínima");
+        assertEquals(1, arbol.eliminarLote(List.of("0001")), "Un lote pequeño debería eliminarse clave por clave");
+        assertEquals("0005", arbol.desdePosicion(1).next().getSku(), "El orden debería conservarse después del lote");
+    }
+
+    /**
+     * Prueba para verificar las instantáneas del árbol.
+     * Asegura que una instantánea conserve su contenido mientras el árbol original se sigue
+     * modificando con inserciones, reemplazos, eliminaciones y lotes, y viceversa.
+     */
+    @Test
+    public void testInstantaneaNoVeCambiosPosteriores() {
+        List<String> originales = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String sku = String.format("%04d", i * 2);
+            originales.add(sku);
+            arbol.insertar(sku, new Producto(sku, "Producto " + i, "Descripción", "m:1"));
+        }
+        BinaryTree<String, Producto> instantanea = arbol.instantanea();
+        Producto reemplazado = arbol.buscar("0010");
+
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            String sku = String.format("%04d", random.nextInt(1000));
+            if (random.nextBoolean()) {
+                arbol.insertar(sku, new Producto(sku, "Nuevo", "Descripción", "m:2"));
+            } else {
+                arbol.eliminar(sku);
+            }
+        }
+        arbol.eliminarLote(new ArrayList<>(originales.subList(0, 200)));
+        arbol.insertar("0010", new Producto("0010", "Reemplazo", "Descripción", "m:3"));
+        arbol.insertarLote(List.of("9998", "9999"), List.of(
+            new Producto("9998", "Lote", "Descripción", "m:1"), new Producto("9999", "Lote", "Descripción", "m:1")));
+
+        assertEquals(500, instantanea.tamano(), "La instantánea debería conservar su cantidad de elementos");
+        List<String> enInstantanea = new ArrayList<>();
+        for (Producto producto : instantanea) {
+            enInstantanea.add(producto.getSku());
+        }
+        assertEquals(originales, enInstantanea, "La instantánea debería conservar exactamente las claves originales");
+        assertSame(reemplazado, instantanea.buscar("0010"), "La instantánea debería conservar el valor reemplazado");
+        assertEquals("0500", instantanea.desdePosicion(250).next().getSku(), "Los tamaños de subárbol de la instantánea no deberían cambiar");
+        assertNull(instantanea.buscar("9999"), "La instantánea no debería ver los lotes posteriores");
+        assertEquals("Reemplazo", arbol.buscar("0010").getNombre(), "El árbol debería ver su propio reemplazo");
+
+        instantanea.insertar("0001", new Producto("0001", "Solo instantánea", "Descripción", "m:1"));
+        assertEquals("Solo instantánea", instantanea.buscar("0001").getNombre(), "La instantánea debería poder modificarse");
+        assertNotEquals("Solo instantánea", arbol.buscar("0001") == null ? null : arbol.buscar("0001").getNombre(),
+            "El árbol no debería ver los cambios de la instantánea");
+        int posicion = 0;
+        String anterior = "";
+        for (Producto producto : arbol) {
+            assertTrue(producto.getSku().compareTo(anterior) > 0, "El árbol debería seguir en orden");
+            assertEquals(posicion, arbol.posicion(producto.getSku()), "Los tamaños de subárbol del árbol deberían ser correctos");
+            anterior = producto.getSku();
+            posicion++;
+        }
+        assertEquals(arbol.tamano(), posicion, "La cantidad del árbol debería coincidir con su recorrido");
+    }
+
+    /**
+     * Prueba para verificar las búsquedas con claves que comparten prefijos largos, de distinto largo
+     * o que son prefijo de otras, después de inserciones, eliminaciones, lotes e instantáneas.
+     * Asegura que la comparación por fragmentos guardados en los nodos dé los mismos resultados que un
+     * mapa ordenado de referencia.
+     */
+    @Test
+    public void testBusquedaConPrefijosComunesTrasCambios() {
+        BinaryTree<String, String> claves = new BinaryTree<>();
+        TreeMap<String, String> referencia = new TreeMap<>();
+        List<String> posibles = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            posibles.add("BODEGA-CENTRAL/DEP-2025-" + Integer.toString(i, 7)); // Sufijos de distinto largo.
+        }
+        posibles.add("BODEGA-CENTRAL/DEP-2025-");
+        posibles.add("BODEGA-CENTRAL/DEP-2025");
+        posibles.add("BODEGA-CENTRAL/DEP-2025-10\u0000");
+
+        Random random = new Random(21);
+        BinaryTree<String, String> instantanea = null;
+        for (int i = 0; i < 6000; i++) {
+            String clave = posibles.get(random.nextInt(posibles.size()));
+            int operacion = random.nextInt(100);
+            if (operacion < 55) {
+                claves.insertar(clave, clave + i);
+                referencia.put(clave, clave + i);
+            } else if (operacion < 97) {
+                assertEquals(referencia.remove(clave) != null, claves.eliminar(clave), "La eliminación debería coincidir con la referencia");
+            } else if (operacion < 98) {
+                List<String> lote = new ArrayList<>(posibles.subList(0, 40 + random.nextInt(200)));
+                claves.insertarLote(lote, lote);
+                lote.forEach(c -> referencia.put(c, c));
+            } else if (operacion < 99) {
+                List<String> lote = posibles.subList(random.nextInt(300), 300 + random.nextInt(300));
+                claves.eliminarLote(lote);
+                lote.forEach(referencia::remove);
+            } else {
+                instantanea = claves.instantanea();
+            }
+        }
+        assertNotNull(instantanea, "La prueba debería haber tomado al menos una instantánea");
+        assertEquals(referencia.size(), claves.tamano(), "La cantidad debería coincidir con la referencia");
+        for (String clave : posibles) {
+            assertEquals(referencia.get(clave), claves.buscar(clave), "La búsqueda de " + clave + " debería coincidir");
+            String mayor = clave + "-X";
+            assertEquals(referencia.floorEntry(mayor) == null ? null : referencia.floorEntry(mayor).getValue(), claves.piso(mayor),
+                "El piso de " + mayor + " debería coincidir");
+            assertEquals(referencia.headMap(clave).size(), claves.posicion(clave), "La posición de " + clave + " debería coincidir");
+        }
+        assertEquals(new ArrayList<>(referencia.values()), claves.valoresEnOrden(), "El recorrido debería coincidir con la referencia");
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Clase BitacoraCambios que implementa un registro de escritura anticipada (write-ahead log)
+ * para el inventario. Cada alta, edición o baja se agrega al final del archivo de bitácora en lugar
+ * de reescribir el CSV completo; la bitácora se vacía cuando el inventario se compacta.
+ *
+ * Formato de cada línea:
+ *   A,SKU,Nombre,Descripción,Cantidad por talla   (alta o reemplazo de un producto)
+ *   E,SKU,Descripción,Cantidad por talla          (edición de un producto existente)
+ *   V,SKU,Talla,Cantidad resultante               (venta o devolución de unidades de una talla)
+ *   D,SKU                                         (baja de un producto)
+ * Todas las operaciones fijan un valor absoluto, por lo que reproducir una entrada ya reflejada
+ * en el CSV no altera el resultado. Los métodos son seguros para varios hilos.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : BitacoraCambios.java
+ */
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+
+public class BitacoraCambios implements Closeable {
+    public static final String EXTENSION = ".log"; // Extensión agregada al nombre del CSV.
+    public static final String ALTA = "A"; // Tipo de operación para altas.
+    public static final String EDICION = "E"; // Tipo de operación para ediciones.
+    public static final String VENTA = "V"; // Tipo de operación para cambios de existencias de una talla.
+    public static final String BAJA = "D"; // Tipo de operación para bajas.
+
+    private final String archivo; // Ruta del archivo de bitácora.
+    private FileOutputStream salida; // Flujo del archivo en modo de anexado.
+    private BufferedWriter writer; // Escritor sobre el flujo del archivo.
+    private int operaciones; // Operaciones registradas desde la última compactación.
+
+    /**
+     * Clase que identifica un punto de la bitácora, tomado al iniciar una compactación.
+     */
+    public static final class Marca {
+        private final long posicion; // Bytes escritos hasta la marca.
+        private final int operaciones; // Operaciones registradas hasta la marca.
+
+        private Marca(long posicion, int operaciones) {
+            this.posicion = posicion;
+            this.operaciones = operaciones;
+        }
+    }
+
+    /**
+     * Constructor de la clase BitacoraCambios.
+     * Abre (o crea) el archivo de bitácora en modo de anexado.
+     *
+     * @param archivo La ruta del archivo de bitácora.
+     * @throws IOException Si no se puede abrir el archivo.
+     */
+    public BitacoraCambios(String archivo) throws IOException {
+        this.archivo = archivo;
+        abrir();
+        this.operaciones = 0;
+    }
+
+    // Abre el archivo en modo de anexado.
+    private void abrir() throws IOException {
+        this.salida = new FileOutputStream(archivo, true);
+        this.writer = new BufferedWriter(new OutputStreamWriter(salida, Charset.defaultCharset()));
+    }
+
+    /**
+     * Obtiene la ruta de la bitácora asociada a un archivo CSV.
+     *
+     * @param archivoCSV La ruta del archivo CSV.
+     * @return La ruta del archivo de bitácora.
+     */
+    public static String rutaPara(String archivoCSV) {
+        return archivoCSV + EXTENSION;
+    }
+
+    /**
+     * Registra el alta (o reemplazo) de un producto.
+     *
+     * @param producto El producto agregado.
+     * @throws IOException Si ocurre un error al escribir en la bitácora.
+     */
+    public synchronized void registrarAlta(Producto producto) throws IOException {
+        escribir(lineaAlta(producto));
+    }
+
+    /**
+     * Registra el alta (o reemplazo) de varios productos con una sola entrega al sistema operativo.
+     *
+     * @param productos Los productos agregados o reemplazados.
+     * @throws IOException Si ocurre un error al escribir en la bitácora.
+     */
+    public synchronized void registrarAltas(Collection<Producto> productos) throws IOException {
+        for (Producto producto : productos) {
+            writer.write(lineaAlta(producto));
+            writer.write('\n');
+            operaciones++;
+        }
+        writer.flush();
+    }
+
+    /**
+     * Registra varias operaciones, ya convertidas en líneas, con una sola entrega al sistema operativo.
+     * Las líneas se forman con lineaAlta, lineaEdicion, lineaVenta y lineaBaja.
+     *
+     * @param lineas Las líneas a agregar, en el orden en que ocurrieron las operaciones.
+     * @throws IOException Si ocurre un error al escribir en la bitácora.
+     */
+    public synchronized void registrarLineas(Collection<String> lineas) throws IOException {
+        for (String linea : lineas) {
+            writer.write(linea);
+            writer.write('\n');
+            operaciones++;
+        }
+        writer.flush();
+    }
+
+    // Línea de bitácora con el estado completo de un producto.
+    static String lineaAlta(Producto producto) {
+        return ALTA + "," + producto.getSku() + "," + producto.getNombre() + ","
+            + producto.getDescripcion() + "," + Producto.formatearTallas(producto.getTallas());
+    }
+
+    // Línea de bitácora de la edición de la descripción y las tallas de un producto.
+    static String lineaEdicion(String sku, String descripcion, Map<String, Integer> tallas) {
+        return EDICION + "," + sku + "," + descripcion + "," + Producto.formatearTallas(tallas);
+    }
+
+    // Línea de bitácora con la cantidad resultante de una talla.
+    static String lineaVenta(String sku, String talla, int cantidad) {
+        return VENTA + "," + sku + "," + talla + "," + cantidad;
+    }
+
+    // Línea de bitácora de la baja de un producto.
+    static String lineaBaja(String sku) {
+        return BAJA + "," + sku;
+    }
+
+    /**
+     * Registra la edición de la descripción y las tallas de un producto.
+     *
+     * @param sku El SKU del producto editado.
+     * @param descripcion La nueva descripción.
+     * @param tallas El nuevo mapa de tallas y cantidades.
+     * @throws IOException Si ocurre un error al escribir en la bitácora.
+     */
+    public synchronized void registrarEdicion(String sku, String descripcion, Map<String, Integer> tallas) throws IOException {
+        escribir(lineaEdicion(sku, descripcion, tallas));
+    }
+
+    /**
+     * Registra la cantidad resultante de una talla después de una venta o devolución.
+     * Para que la bitácora conserve el orden real, el llamador debe sincronizarse sobre esta
+     * bitácora mientras modifica la cantidad y la registra.
+     *
+     * @param sku El SKU del producto.
+     * @param talla La talla modificada.
+     * @param cantidad La cantidad que quedó disponible.
+     * @throws IOException Si ocurre un error al escribir en la bitácora.
+     */
+    public synchronized void registrarVenta(String sku, String talla, int cantidad) throws IOException {
+        writer.write(VENTA);
+        writer.write(',');
+        writer.write(sku);
+        writer.write(',');
+        writer.write(talla);
+        writer.write(',');
+        writer.write(Integer.toString(cantidad));
+        writer.write('\n');
+        writer.flush();
+        operaciones++;
+    }
+
+    /**
+     * Registra la baja de varios productos con una sola entrega al sistema operativo.
+     *
+     * @param skus Los SKU de los productos eliminados.
+     * @throws IOException Si ocurre un error al escribir en la bitácora.
+     */
+    public synchronized void registrarBajas(Collection<String> skus) throws IOException {
+        for (String sku : skus) {
+            writer.write(BAJA);
+            writer.write(',');
+            writer.write(sku);
+            writer.write('\n');
+            operaciones++;
+        }
+        writer.flush();
+    }
+
+    // Agrega una línea al final de la bitácora y la entrega al sistema operativo.
+    private void escribir(String linea) throws IOException {
+        writer.write(linea);
+        writer.write('\n');
+        writer.flush();
+        operaciones++;
+    }
+
+    /**
+     * Obtiene la cantidad de operaciones registradas desde la última compactación.
+     *
+     * @return El número de operaciones pendientes.
+     */
+    public synchronized int getOperaciones() {
+        return operaciones;
+    }
+
+    /**
+     * Marca la posición actual de la bitácora. Todo lo registrado antes de la marca
+     * debe quedar reflejado en el CSV que se escriba a continuación.
+     *
+     * @return La marca de la posición actual.
+     * @throws IOException Si ocurre un error al consultar el archivo.
+     */
+    public synchronized Marca marcar() throws IOException {
+        writer.flush();
+        return new Marca(salida.getChannel().size(), operaciones);
+    }
+
+    /**
+     * Descarta las entradas anteriores a la marca, que ya están reflejadas en el CSV.
+     * Las entradas registradas después de la marca se conservan.
+     *
+     * @param marca La marca tomada antes de escribir el CSV.
+     * @throws IOException Si ocurre un error al reescribir el archivo.
+     */
+    public synchronized void descartarHasta(Marca marca) throws IOException {
+        Path ruta = Paths.get(archivo);
+        Path temporal = Paths.get(archivo + ".tmp");
+        try {
+            writer.close();
+            try (FileChannel origen = FileChannel.open(ruta, StandardOpenOption.READ);
+                 FileChannel destino = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long restante = origen.size() - marca.posicion;
+                long copiados = 0;
+                while (copiados < restante) {
+                    copiados += origen.transferTo(marca.posicion + copiados, restante - copiados, destino);
+                }
+                // Sin esto, una caída después del reemplazo podría dejar la bitácora renombrada pero incompleta.
+                destino.force(true);
+            }
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // Se reabre aunque falle la copia o el reemplazo (la bitácora anterior sigue completa); si no,
+            // todos los registros siguientes fallarían y los cambios dejarían de ser durables.
+            abrir();
+        }
+        operaciones -= marca.operaciones;
+    }
+
+    /**
+     * Cierra el archivo de bitácora.
+     *
+     * @throws IOException Si ocurre un error al cerrar el archivo.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
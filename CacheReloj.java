@@ -0,0 +1,214 @@
+/**
+ * Clase CacheReloj que guarda en memoria un número limitado de valores consultados con frecuencia
+ * y, cuando se llena, descarta uno que no se haya usado recientemente.
+ * Usa el algoritmo del reloj (CLOCK), una aproximación de LRU: las entradas ocupan un anillo y cada
+ * acierto solo marca su entrada como usada; al llenarse, una manecilla recorre el anillo dando una
+ * segunda oportunidad a las entradas marcadas (desmarcándolas) y descarta la primera sin marca.
+ * Así las consultas no reordenan ninguna lista ni toman candados, y varios hilos pueden leer a la vez;
+ * solo las inserciones e invalidaciones se serializan.
+ * No es un LRU exacto: puede desalojar una entrada que no es la menos reciente, así que su tasa de
+ * aciertos puede diferir de la de un LRU de la misma capacidad.
+ * Lleva contadores de aciertos, fallos y desalojos para medir su efectividad.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : CacheReloj.java
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CacheReloj<K, V> {
+    private final ConcurrentHashMap<K, Entrada<K, V>> entradas; // Clave -> entrada, para las consultas sin candado.
+    private final Entrada<K, V>[] anillo; // Posiciones recorridas por la manecilla del reloj.
+    private final int capacidad; // Cantidad máxima de entradas.
+    private int ocupadas; // Posiciones del anillo usadas al menos una vez (protegida por el monitor de la caché).
+    private int manecilla; // Siguiente posición a revisar al desalojar (protegida por el monitor de la caché).
+    private final LongAdder aciertos = new LongAdder(); // Consultas resueltas por la caché.
+    private final LongAdder fallos = new LongAdder(); // Consultas que no estaban en la caché.
+    private final LongAdder desalojos = new LongAdder(); // Entradas descartadas por falta de espacio.
+
+    /**
+     * Constructor de la clase CacheReloj.
+     *
+     * @param capacidad Cantidad máxima de entradas (al menos 1).
+     */
+    public CacheReloj(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser al menos 1");
+        }
+        this.capacidad = capacidad;
+        this.entradas = new ConcurrentHashMap<>(capacidad * 4 / 3 + 1);
+        @SuppressWarnings("unchecked")
+        Entrada<K, V>[] anillo = (Entrada<K, V>[]) new Entrada<?, ?>[capacidad];
+        this.anillo = anillo;
+        this.ocupadas = 0;
+        this.manecilla = 0;
+    }
+
+    /**
+     * Obtiene el valor guardado para una clave y marca su entrada como usada recientemente.
+     *
+     * @param clave La clave a consultar.
+     * @return El valor guardado, o null si la clave no está en la caché.
+     */
+    public V obtener(K clave) {
+        Entrada<K, V> entrada = entradas.get(clave);
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        if (!entrada.usada) {
+            entrada.usada = true; // Solo se escribe si cambia, para no invalidar la línea de caché del procesador.
+        }
+        aciertos.increment();
+        return entrada.valor;
+    }
+
+    /**
+     * Guarda un valor para una clave, desalojando una entrada no usada recientemente si la caché está llena.
+     *
+     * @param clave La clave.
+     * @param valor El valor (no nulo).
+     */
+    public synchronized void guardar(K clave, V valor) {
+        Entrada<K, V> existente = entradas.get(clave);
+        if (existente != null) {
+            existente.valor = valor;
+            existente.usada = true;
+            return;
+        }
+        int posicion;
+        if (ocupadas < capacidad) {
+            posicion = ocupadas++;
+        } else {
+            posicion = posicionLibre();
+        }
+        Entrada<K, V> entrada = new Entrada<>(clave, valor);
+        anillo[posicion] = entrada;
+        entradas.put(clave, entrada);
+    }
+
+    // Avanza la manecilla hasta una posición invalidada o con una entrada no usada desde la última vuelta,
+    // desmarcando las usadas en el camino. Termina a lo sumo en dos vueltas.
+    private int posicionLibre() {
+        while (true) {
+            int posicion = manecilla;
+            manecilla = posicion + 1 == capacidad ? 0 : posicion + 1;
+            Entrada<K, V> entrada = anillo[posicion];
+            if (entrada.invalidada) {
+                return posicion;
+            }
+            if (entrada.usada) {
+                entrada.usada = false;
+            } else {
+                entradas.remove(entrada.clave, entrada);
+                desalojos.increment();
+                return posicion;
+            }
+        }
+    }
+
+    /**
+     * Descarta la entrada de una clave, si existe. Su posición queda libre para la siguiente inserción.
+     *
+     * @param clave La clave a invalidar.
+     */
+    public synchronized void invalidar(K clave) {
+        Entrada<K, V> entrada = entradas.remove(clave);
+        if (entrada != null) {
+            entrada.invalidada = true;
+        }
+    }
+
+    /**
+     * Descarta todas las entradas. Los contadores se conservan.
+     */
+    public synchronized void limpiar() {
+        entradas.clear();
+        Arrays.fill(anillo, null);
+        ocupadas = 0;
+        manecilla = 0;
+    }
+
+    /**
+     * Obtiene la cantidad de entradas guardadas.
+     *
+     * @return El número de entradas en la caché.
+     */
+    public int tamano() {
+        return entradas.size();
+    }
+
+    /**
+     * Obtiene la capacidad máxima de la caché.
+     *
+     * @return La cantidad máxima de entradas.
+     */
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Obtiene la cantidad de consultas resueltas por la caché.
+     *
+     * @return El número de aciertos.
+     */
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de consultas que no estaban en la caché.
+     *
+     * @return El número de fallos.
+     */
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de entradas descartadas por falta de espacio.
+     * Las invalidaciones no se cuentan como desalojos.
+     *
+     * @return El número de desalojos.
+     */
+    public long getDesalojos() {
+        return desalojos.sum();
+    }
+
+    /**
+     * Obtiene la proporción de consultas resueltas por la caché.
+     *
+     * @return La tasa de aciertos entre 0 y 1 (0 si aún no hubo consultas).
+     */
+    public double tasaAciertos() {
+        long exitos = aciertos.sum();
+        long total = exitos + fallos.sum();
+        return total == 0 ? 0 : (double) exitos / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Caché: %d/%d entradas, %d aciertos, %d fallos, %d desalojos (%.1f%% aciertos)",
+            tamano(), capacidad, getAciertos(), getFallos(), getDesalojos(), tasaAciertos() * 100);
+    }
+
+    // Entrada de la caché: su posición en el anillo no cambia mientras está guardada.
+    private static final class Entrada<K, V> {
+        private final K clave; // Clave de la entrada.
+        private volatile V valor; // Valor guardado.
+        private volatile boolean usada; // Consultada desde la última vez que pasó la manecilla.
+        private boolean invalidada; // Quitada de la caché; su posición puede reutilizarse (protegida por el monitor de la caché).
+
+        Entrada(K clave, V valor) {
+            this.clave = clave;
+            this.valor = valor;
+            this.usada = false;
+            this.invalidada = false;
+        }
+    }
+}
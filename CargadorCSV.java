@@ -0,0 +1,183 @@
+/**
+ * Clase CargadorCSV que lee un archivo CSV de inventario en bloques grandes y
+ * convierte sus filas en productos usando varios hilos.
+ * Cada bloque termina en un salto de línea, por lo que puede procesarse de forma
+ * independiente; los resultados se devuelven en el mismo orden del archivo.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : CargadorCSV.java
+ */
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class CargadorCSV {
+    private static final int TAMANO_BLOQUE = 4 << 20; // Bytes leídos del archivo por bloque.
+
+    private final int hilos; // Cantidad de hilos que convierten filas en productos.
+    private final Charset charset; // Codificación del archivo.
+
+    /**
+     * Constructor de la clase CargadorCSV.
+     *
+     * @param hilos Cantidad de hilos de trabajo (al menos 1).
+     */
+    public CargadorCSV(int hilos) {
+        if (hilos < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo de carga");
+        }
+        this.hilos = hilos;
+        this.charset = Charset.defaultCharset();
+    }
+
+    /**
+     * Lee el archivo CSV completo, omitiendo el encabezado.
+     * Las filas con formato inválido se reportan (ver Diagnosticos) y se descartan.
+     *
+     * @param nombreArchivo El nombre del archivo CSV.
+     * @return Los productos leídos, en el orden en que aparecen en el archivo.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     */
+    public List<Producto> cargar(String nombreArchivo) throws IOException {
+        List<Producto> productos = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        ArrayDeque<Future<List<Producto>>> pendientes = new ArrayDeque<>();
+        try (FileChannel canal = FileChannel.open(Paths.get(nombreArchivo), StandardOpenOption.READ)) {
+            byte[] bloque = new byte[TAMANO_BLOQUE];
+            int ocupados = 0;
+            boolean primerBloque = true;
+            while (true) {
+                int leidos = canal.read(ByteBuffer.wrap(bloque, ocupados, bloque.length - ocupados));
+                if (leidos > 0) {
+                    ocupados += leidos;
+                }
+                boolean fin = leidos < 0;
+                if (!fin && ocupados < bloque.length) {
+                    continue; // Se completa el bloque antes de cortarlo.
+                }
+                int corte = fin ? ocupados : ultimoSaltoDeLinea(bloque, ocupados);
+                if (corte < 0) {
+                    // Una sola fila ocupa todo el bloque: se amplía y se sigue leyendo.
+                    bloque = Arrays.copyOf(bloque, bloque.length * 2);
+                    continue;
+                }
+                if (corte > 0) {
+                    String texto = new String(bloque, 0, corte, charset);
+                    boolean omitirEncabezado = primerBloque;
+                    pendientes.add(pool.submit(() -> parsearBloque(texto, omitirEncabezado)));
+                    primerBloque = false;
+                    if (pendientes.size() > hilos * 2) {
+                        productos.addAll(esperar(pendientes.poll()));
+                    }
+                }
+                if (fin) {
+                    break;
+                }
+                // Lo que sigue al último salto de línea pasa al inicio del siguiente bloque.
+                int resto = ocupados - corte;
+                byte[] siguiente = new byte[Math.max(TAMANO_BLOQUE, resto * 2)];
+                System.arraycopy(bloque, corte, siguiente, 0, resto);
+                bloque = siguiente;
+                ocupados = resto;
+            }
+            while (!pendientes.isEmpty()) {
+                productos.addAll(esperar(pendientes.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return productos;
+    }
+
+    // Devuelve la posición siguiente al último '\n' del bloque, o -1 si no hay ninguno.
+    private static int ultimoSaltoDeLinea(byte[] bloque, int ocupados) {
+        for (int i = ocupados - 1; i >= 0; i--) {
+            if (bloque[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // Espera el resultado de un bloque y propaga sus errores como IOException.
+    private static List<Producto> esperar(Future<List<Producto>> futuro) throws IOException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Carga interrumpida");
+        } catch (ExecutionException e) {
+            throw new IOException("Error al procesar el archivo", e.getCause());
+        }
+    }
+
+    // Convierte todas las líneas de un bloque en productos.
+    private static List<Producto> parsearBloque(String texto, boolean omitirEncabezado) {
+        List<Producto> productos = new ArrayList<>();
+        int inicio = 0;
+        int longitud = texto.length();
+        boolean omitir = omitirEncabezado;
+        while (inicio < longitud) {
+            int fin = texto.indexOf('\n', inicio);
+            if (fin < 0) {
+                fin = longitud;
+            }
+            if (omitir) {
+                omitir = false;
+            } else {
+                Producto producto = parsearFila(texto, inicio, fin);
+                if (producto != null) {
+                    productos.add(producto);
+                }
+            }
+            inicio = fin + 1;
+        }
+        return productos;
+    }
+
+    /**
+     * Convierte una fila "SKU,Nombre,Descripción,Cantidad por talla" en un producto,
+     * localizando las comas a mano en lugar de usar expresiones regulares.
+     * Igual que String.split, las comas finales se ignoran.
+     *
+     * @param texto El texto que contiene la fila.
+     * @param desde Posición inicial de la fila.
+     * @param hasta Posición final (exclusiva) de la fila, sin el salto de línea.
+     * @return El producto leído, o null si la fila no tiene exactamente cuatro campos.
+     */
+    static Producto parsearFila(String texto, int desde, int hasta) {
+        if (hasta > desde && texto.charAt(hasta - 1) == '\r') {
+            hasta--;
+        }
+        int finCampos = hasta;
+        while (finCampos > desde && texto.charAt(finCampos - 1) == ',') {
+            finCampos--;
+        }
+        int coma1 = texto.indexOf(',', desde);
+        int coma2 = coma1 < 0 || coma1 >= finCampos ? -1 : texto.indexOf(',', coma1 + 1);
+        int coma3 = coma2 < 0 || coma2 >= finCampos ? -1 : texto.indexOf(',', coma2 + 1);
+        int coma4 = coma3 < 0 || coma3 >= finCampos ? -1 : texto.indexOf(',', coma3 + 1);
+        if (coma3 < 0 || coma3 >= finCampos || (coma4 >= 0 && coma4 < finCampos)) {
+            Diagnosticos.reportar(Diagnosticos.Tipo.FILA_INVALIDA, "Formato inválido en: ", texto, desde, hasta);
+            return null;
+        }
+        return new Producto(texto.substring(desde, coma1), texto.substring(coma1 + 1, coma2),
+            texto.substring(coma2 + 1, coma3), texto.substring(coma3 + 1, finCampos));
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Clase ComandoLote que representa una línea de un archivo de comandos del modo por lotes
+ * (ver ProcesadorLotes), ya interpretada, y el resultado de aplicarla al inventario.
+ * Cada línea tiene el tipo de comando y sus campos separados por comas:
+ *   agregar,SKU,Nombre,Descripción,Cantidad por talla
+ *   editar,SKU,Descripción,Cantidad por talla     (un campo vacío conserva el valor actual)
+ *   buscar,SKU
+ *   nombre,Nombre
+ *   vender,SKU,Talla,Cantidad
+ *   devolver,SKU,Talla,Cantidad
+ *   eliminar,SKU
+ * Las líneas vacías y las que empiezan con '#' se ignoran.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : ComandoLote.java
+ */
+
+public class ComandoLote {
+
+    /**
+     * Tipos de comando, con la cantidad de campos de su línea (incluido el tipo).
+     */
+    public enum Tipo {
+        AGREGAR("agregar", 5),
+        EDITAR("editar", 4),
+        BUSCAR("buscar", 2),
+        NOMBRE("nombre", 2),
+        VENDER("vender", 4),
+        DEVOLVER("devolver", 4),
+        ELIMINAR("eliminar", 2),
+        INVALIDO("inválido", 0);
+
+        private final String palabra; // Palabra con la que empieza la línea.
+        private final int campos; // Campos de la línea.
+
+        Tipo(String palabra, int campos) {
+            this.palabra = palabra;
+            this.campos = campos;
+        }
+
+        // Busca el tipo que corresponde a la palabra inicial de una línea.
+        private static Tipo desde(String palabra) {
+            for (Tipo tipo : values()) {
+                if (tipo != INVALIDO && tipo.palabra.equals(palabra)) {
+                    return tipo;
+                }
+            }
+            return INVALIDO;
+        }
+    }
+
+    private final long linea; // Número de línea en la entrada.
+    private final Tipo tipo; // Tipo de comando.
+    private final String[] campos; // Campos de la línea, sin el tipo.
+    private final Producto producto; // Producto a agregar (solo en AGREGAR).
+    private final int cantidad; // Unidades a vender o devolver (solo en VENDER y DEVOLVER).
+    private final String error; // Motivo por el que la línea es inválida (solo en INVALIDO).
+    private boolean exito; // Si el comando se aplicó (o, en las búsquedas, si encontró algo).
+    private int restante; // Unidades que quedaron en la talla después de vender o devolver.
+    private String filas; // Filas CSV de los productos encontrados por las búsquedas, como estaban al buscarlos.
+
+    private ComandoLote(long linea, Tipo tipo, String[] campos, Producto producto, int cantidad, String error) {
+        this.linea = linea;
+        this.tipo = tipo;
+        this.campos = campos;
+        this.producto = producto;
+        this.cantidad = cantidad;
+        this.error = error;
+    }
+
+    /**
+     * Interpreta una línea de comando.
+     *
+     * @param texto La línea leída.
+     * @param linea Su número de línea, para los mensajes de error.
+     * @return El comando (de tipo INVALIDO si la línea no tiene el formato esperado), o null si la línea
+     *         está vacía o es un comentario.
+     */
+    public static ComandoLote parsear(String texto, long linea) {
+        if (texto.isBlank() || texto.charAt(0) == '#') {
+            return null;
+        }
+        int coma = texto.indexOf(',');
+        Tipo tipo = Tipo.desde(coma < 0 ? texto.trim() : texto.substring(0, coma));
+        if (tipo == Tipo.INVALIDO) {
+            return invalido(linea, "comando desconocido");
+        }
+        String[] campos = texto.substring(coma + 1).split(",", -1);
+        if (coma < 0 || campos.length != tipo.campos - 1) {
+            return invalido(linea, "se esperaban " + (tipo.campos - 1) + " campos después de '" + tipo.palabra + "'");
+        }
+        if (campos[0].isEmpty()) {
+            return invalido(linea, tipo == Tipo.NOMBRE ? "nombre vacío" : "SKU vacío");
+        }
+        Producto producto = null;
+        int cantidad = 0;
+        if (tipo == Tipo.AGREGAR) {
+            producto = new Producto(campos[0], campos[1], campos[2], campos[3]);
+        } else if (tipo == Tipo.VENDER || tipo == Tipo.DEVOLVER) {
+            try {
+                cantidad = Integer.parseInt(campos[2]);
+            } catch (NumberFormatException e) {
+                cantidad = 0;
+            }
+            if (cantidad <= 0) {
+                return invalido(linea, "cantidad inválida: " + campos[2]);
+            }
+        }
+        return new ComandoLote(linea, tipo, campos, producto, cantidad, null);
+    }
+
+    // Crea un comando inválido con su motivo.
+    private static ComandoLote invalido(long linea, String error) {
+        return new ComandoLote(linea, Tipo.INVALIDO, new String[0], null, 0, error);
+    }
+
+    /**
+     * Obtiene el tipo de comando.
+     *
+     * @return El tipo.
+     */
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Obtiene el SKU (o, en NOMBRE, el nombre) al que se aplica el comando.
+     *
+     * @return La clave del comando.
+     */
+    public String getClave() {
+        return campos[0];
+    }
+
+    // Producto a agregar.
+    Producto getProducto() {
+        return producto;
+    }
+
+    // Descripción nueva de una edición (vacía para conservar la actual).
+    String getDescripcion() {
+        return campos[1];
+    }
+
+    // Tallas nuevas de una edición, en formato "xs:10|s:15" (vacías para conservar las actuales).
+    String getTallas() {
+        return campos[2];
+    }
+
+    // Talla de una venta o devolución.
+    String getTalla() {
+        return campos[1];
+    }
+
+    // Unidades de una venta o devolución.
+    int getCantidad() {
+        return cantidad;
+    }
+
+    // Registra el resultado de un comando que cambia el inventario.
+    void resuelto(boolean exito) {
+        this.exito = exito;
+    }
+
+    // Registra el resultado de una venta o devolución.
+    void resuelto(boolean exito, int restante) {
+        this.exito = exito;
+        this.restante = restante;
+    }
+
+    // Registra los productos encontrados por una búsqueda (null si no hubo). Sus filas se escriben en
+    // este momento porque los comandos siguientes del mismo grupo pueden cambiarlos antes de la salida.
+    void encontrados(Producto... productos) {
+        this.exito = productos != null;
+        if (exito) {
+            StringBuilder sb = new StringBuilder();
+            for (Producto producto : productos) {
+                producto.escribirFilaCSV(sb);
+            }
+            filas = sb.toString();
+        }
+    }
+
+    /**
+     * Indica si el comando se aplicó o, en las búsquedas, si encontró algún producto.
+     *
+     * @return true si el comando tuvo éxito.
+     */
+    public boolean isExito() {
+        return exito;
+    }
+
+    /**
+     * Agrega el resultado del comando a la salida, en una línea (o una por producto encontrado):
+     * "OK" seguido del comando, la fila CSV de cada producto encontrado, "NO_ENCONTRADO" o "ERROR".
+     *
+     * @param sb El StringBuilder de destino.
+     */
+    public void escribirResultado(StringBuilder sb) {
+        switch (tipo) {
+            case INVALIDO:
+                sb.append("ERROR línea ").append(linea).append(": ").append(error).append('\n');
+                break;
+            case BUSCAR:
+            case NOMBRE:
+                if (exito) {
+                    sb.append(filas);
+                } else {
+                    sb.append("NO_ENCONTRADO ").append(campos[0]).append('\n');
+                }
+                break;
+            case VENDER:
+            case DEVOLVER:
+                if (exito) {
+                    sb.append("OK ").append(tipo.palabra).append(' ').append(campos[0]).append(' ')
+                        .append(campos[1]).append(' ').append(restante).append('\n');
+                } else {
+                    sb.append("ERROR línea ").append(linea).append(": ").append(tipo.palabra).append(' ').append(campos[0])
+                        .append(' ').append(campos[1]).append(": producto, talla o existencias insuficientes").append('\n');
+                }
+                break;
+            default:
+                if (exito) {
+                    sb.append("OK ").append(tipo.palabra).append(' ').append(campos[0]).append('\n');
+                } else {
+                    sb.append("NO_ENCONTRADO ").append(campos[0]).append('\n');
+                }
+        }
+    }
+}
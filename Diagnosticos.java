@@ -0,0 +1,267 @@
+/**
+ * Clase Diagnosticos que recibe los avisos de la carga y el guardado del inventario (filas inválidas,
+ * tallas mal escritas, errores de escritura) y los publica desde un hilo propio, para que los ciclos
+ * de carga nunca esperen a la consola.
+ * Cada aviso suma a un contador por tipo; solo los primeros avisos de cada tipo por segundo se publican
+ * con su detalle, y cuando se omitieron avisos se publica después un resumen ("12345 filas rechazadas:
+ * formato inválido (12325 sin detalle)"). Si la cola se llena, el aviso se cuenta pero no se encola,
+ * así que reportar nunca bloquea. Los avisos se entregan en lotes a la salida configurada (la consola
+ * por defecto).
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : Diagnosticos.java
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Diagnosticos {
+
+    /**
+     * Tipos de aviso, cada uno con su contador y su límite de avisos detallados por segundo.
+     */
+    public enum Tipo {
+        FILA_INVALIDA("filas rechazadas: formato inválido"),
+        TALLA_INVALIDA("tallas rechazadas: formato de talla inválido"),
+        CANTIDAD_INVALIDA("tallas rechazadas: cantidad inválida"),
+        BITACORA_INVALIDA("entradas de bitácora inválidas"),
+        ERROR_LECTURA("errores de lectura"),
+        ERROR_ESCRITURA("errores de escritura");
+
+        private final String descripcion; // Texto usado en el resumen.
+        private final LongAdder total = new LongAdder(); // Avisos recibidos desde que inició el programa.
+        private final AtomicLong sinDetalle = new AtomicLong(); // Avisos omitidos desde el último resumen.
+        private final AtomicLong desdeResumen = new AtomicLong(); // Avisos recibidos desde el último resumen.
+        private volatile long ventana; // Segundo (aproximado) al que corresponde "enVentana".
+        private final AtomicInteger enVentana = new AtomicInteger(); // Avisos detallados en la ventana actual.
+        private long vistos; // Valor de "desdeResumen" en la revisión anterior (solo lo usa el hilo de diagnósticos).
+
+        Tipo(String descripcion) {
+            this.descripcion = descripcion;
+        }
+
+        // Decide si el aviso se publica con detalle, según el límite por segundo.
+        private boolean admitir() {
+            long actual = System.nanoTime() >>> 30; // Ventanas de ~1.07 s.
+            if (actual != ventana) {
+                ventana = actual;
+                enVentana.set(0);
+            }
+            return enVentana.incrementAndGet() <= avisosPorSegundo;
+        }
+    }
+
+    /**
+     * Destino de los avisos. Recibe los mensajes en lotes, siempre desde el hilo de diagnósticos.
+     */
+    public interface Salida {
+        /**
+         * Publica un lote de mensajes.
+         *
+         * @param mensajes Los mensajes, en el orden en que se reportaron.
+         */
+        void publicar(List<String> mensajes);
+    }
+
+    /**
+     * Salida que imprime cada lote en la consola con una sola escritura.
+     */
+    public static final Salida CONSOLA = mensajes -> System.out.print(String.join(System.lineSeparator(), mensajes) + System.lineSeparator());
+
+    private static final int CAPACIDAD_COLA = 4_096; // Avisos pendientes de publicar antes de empezar a descartar.
+    private static final int TAMANO_LOTE = 256; // Avisos entregados a la salida por publicación.
+
+    private static final ArrayBlockingQueue<String> cola = new ArrayBlockingQueue<>(CAPACIDAD_COLA); // Avisos por publicar.
+    private static final AtomicLong encolados = new AtomicLong(); // Avisos encolados.
+    private static final AtomicLong procesados = new AtomicLong(); // Avisos que el hilo ya entregó a la salida.
+    private static volatile Salida salida = CONSOLA; // Destino actual de los avisos.
+    private static volatile int avisosPorSegundo = 20; // Avisos detallados por tipo y por segundo.
+    private static final AtomicLong pedidosResumen = new AtomicLong(); // Resúmenes pedidos con vaciar().
+    private static volatile long resumenesAtendidos; // Pedidos de resumen ya publicados por el hilo.
+    private static volatile Thread hilo; // Hilo que publica los avisos; se crea con el primer aviso.
+
+    private Diagnosticos() {
+    }
+
+    /**
+     * Reporta un aviso. Nunca bloquea: si no corresponde publicarlo con detalle, solo se cuenta.
+     *
+     * @param tipo El tipo de aviso.
+     * @param mensaje El mensaje con el detalle.
+     */
+    public static void reportar(Tipo tipo, String mensaje) {
+        if (contar(tipo)) {
+            encolar(tipo, mensaje);
+        }
+    }
+
+    /**
+     * Reporta un aviso cuyo detalle es un fragmento de un texto más grande (por ejemplo, una fila del
+     * bloque que se está leyendo). El mensaje solo se construye si se va a publicar.
+     *
+     * @param tipo El tipo de aviso.
+     * @param prefijo El inicio del mensaje.
+     * @param texto El texto que contiene el detalle.
+     * @param desde Posición inicial del detalle.
+     * @param hasta Posición final (exclusiva) del detalle.
+     */
+    public static void reportar(Tipo tipo, String prefijo, String texto, int desde, int hasta) {
+        if (contar(tipo)) {
+            encolar(tipo, new StringBuilder(prefijo.length() + hasta - desde).append(prefijo).append(texto, desde, hasta).toString());
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de avisos de un tipo recibidos desde que inició el programa,
+     * incluidos los que no se publicaron con detalle.
+     *
+     * @param tipo El tipo de aviso.
+     * @return El número de avisos.
+     */
+    public static long getCantidad(Tipo tipo) {
+        return tipo.total.sum();
+    }
+
+    /**
+     * Cambia el destino de los avisos (por ejemplo, a un archivo o a un registro de la aplicación).
+     *
+     * @param nueva La nueva salida.
+     */
+    public static void setSalida(Salida nueva) {
+        if (nueva == null) {
+            throw new IllegalArgumentException("La salida de diagnósticos no puede ser nula");
+        }
+        salida = nueva;
+    }
+
+    /**
+     * Establece cuántos avisos de cada tipo se publican con detalle por segundo; el resto solo se cuenta.
+     *
+     * @param limite Avisos detallados por tipo y por segundo (0 para publicar solo resúmenes).
+     */
+    public static void setAvisosPorSegundo(int limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("El límite de avisos no puede ser negativo");
+        }
+        avisosPorSegundo = limite;
+    }
+
+    /**
+     * Espera a que se publiquen los avisos reportados hasta ahora y los resúmenes pendientes.
+     * Conviene llamarlo antes de terminar el programa, porque el hilo de diagnósticos no lo mantiene vivo.
+     */
+    public static void vaciar() {
+        iniciar();
+        long objetivo = encolados.get();
+        long pedido = pedidosResumen.incrementAndGet();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((procesados.get() < objetivo || resumenesAtendidos < pedido) && System.nanoTime() < limite) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Suma el aviso a los contadores y decide si se publica con detalle.
+    private static boolean contar(Tipo tipo) {
+        tipo.total.increment();
+        tipo.desdeResumen.incrementAndGet();
+        if (tipo.admitir()) {
+            return true;
+        }
+        tipo.sinDetalle.incrementAndGet();
+        return false;
+    }
+
+    // Agrega un mensaje a la cola sin esperar; si está llena, el mensaje se omite y el resumen lo cuenta.
+    private static void encolar(Tipo tipo, String mensaje) {
+        iniciar();
+        if (cola.offer(mensaje)) {
+            encolados.incrementAndGet();
+        } else {
+            tipo.sinDetalle.incrementAndGet();
+        }
+    }
+
+    // Crea el hilo de publicación la primera vez que se necesita.
+    private static void iniciar() {
+        if (hilo != null) {
+            return;
+        }
+        synchronized (Diagnosticos.class) {
+            if (hilo == null) {
+                Thread nuevo = new Thread(Diagnosticos::publicarContinuamente, "diagnosticos");
+                nuevo.setDaemon(true);
+                nuevo.start();
+                hilo = nuevo;
+            }
+        }
+    }
+
+    // Ciclo del hilo de diagnósticos: entrega los avisos en lotes y, cuando la cola queda libre
+    // o se pide con vaciar(), publica el resumen de los tipos que tuvieron avisos sin detalle.
+    private static void publicarContinuamente() {
+        List<String> lote = new ArrayList<>(TAMANO_LOTE);
+        while (true) {
+            int avisos;
+            long pedidos;
+            try {
+                String primero = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primero != null) {
+                    lote.add(primero);
+                    cola.drainTo(lote, TAMANO_LOTE - 1);
+                }
+                avisos = lote.size();
+                pedidos = pedidosResumen.get();
+                if (avisos == 0 || pedidos != resumenesAtendidos) {
+                    lote.addAll(resumenes(pedidos != resumenesAtendidos));
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (!lote.isEmpty()) {
+                    salida.publicar(lote);
+                }
+            } catch (RuntimeException e) {
+                // Una salida defectuosa no debe detener el hilo; el lote se descarta.
+            }
+            procesados.addAndGet(avisos);
+            resumenesAtendidos = pedidos;
+            lote.clear();
+        }
+    }
+
+    // Resúmenes de los tipos con avisos omitidos desde el último resumen. Sin forzarlo, un tipo solo se
+    // resume cuando no recibió avisos desde la revisión anterior, para publicar un único resumen por
+    // ráfaga (por ejemplo, por carga) en lugar de uno cada vez que la cola queda libre.
+    private static List<String> resumenes(boolean forzar) {
+        List<String> lineas = new ArrayList<>();
+        for (Tipo tipo : Tipo.values()) {
+            long recibidos = tipo.desdeResumen.get();
+            boolean quieto = recibidos == tipo.vistos;
+            tipo.vistos = recibidos;
+            if (recibidos == 0 || !(forzar || quieto)) {
+                continue;
+            }
+            long omitidos = tipo.sinDetalle.getAndSet(0);
+            tipo.desdeResumen.addAndGet(-recibidos);
+            tipo.vistos = 0;
+            if (omitidos > 0) {
+                lineas.add(String.format("%,d %s (%,d sin detalle)", recibidos, tipo.descripcion, omitidos));
+            }
+        }
+        return lineas;
+    }
+}
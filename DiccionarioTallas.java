@@ -0,0 +1,86 @@
+/**
+ * Clase DiccionarioTallas que asigna a cada nombre de talla un identificador entero único
+ * y compartido por todo el inventario. Los productos guardan sus cantidades en un arreglo
+ * de enteros indexado por estos identificadores, de modo que cada nombre de talla ("xs", "m", ...)
+ * existe una sola vez en memoria sin importar cuántos productos lo usen.
+ * Los identificadores se asignan en orden de aparición y nunca cambian ni se liberan.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : DiccionarioTallas.java
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class DiccionarioTallas {
+    private static final ConcurrentHashMap<String, Integer> identificadores = new ConcurrentHashMap<>(); // Talla -> identificador.
+    private static volatile String[] nombres = new String[8]; // Identificador -> talla.
+    private static volatile int cantidad = 0; // Tallas registradas.
+
+    private DiccionarioTallas() {
+    }
+
+    /**
+     * Obtiene el identificador de una talla, registrándola si es la primera vez que aparece.
+     *
+     * @param talla El nombre de la talla.
+     * @return El identificador de la talla.
+     */
+    public static int registrar(String talla) {
+        Integer id = identificadores.get(talla);
+        if (id != null) {
+            return id;
+        }
+        synchronized (DiccionarioTallas.class) {
+            id = identificadores.get(talla);
+            if (id != null) {
+                return id;
+            }
+            int nuevo = cantidad;
+            String[] actuales = nombres;
+            if (nuevo == actuales.length) {
+                String[] ampliados = new String[actuales.length * 2];
+                System.arraycopy(actuales, 0, ampliados, 0, actuales.length);
+                actuales = ampliados;
+            }
+            // Se guarda la copia propia de la cadena para no retener el texto del que se extrajo.
+            actuales[nuevo] = new String(talla);
+            nombres = actuales;
+            cantidad = nuevo + 1;
+            identificadores.put(actuales[nuevo], nuevo);
+            return nuevo;
+        }
+    }
+
+    /**
+     * Obtiene el identificador de una talla sin registrarla.
+     *
+     * @param talla El nombre de la talla.
+     * @return El identificador de la talla, o -1 si ningún producto la ha usado.
+     */
+    public static int buscar(String talla) {
+        Integer id = identificadores.get(talla);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Obtiene el nombre de la talla con el identificador indicado.
+     *
+     * @param id El identificador de la talla.
+     * @return El nombre de la talla.
+     */
+    public static String nombre(int id) {
+        return nombres[id];
+    }
+
+    /**
+     * Obtiene la cantidad de tallas distintas registradas.
+     *
+     * @return El número de tallas registradas.
+     */
+    public static int cantidad() {
+        return cantidad;
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * Clase ExistenciasInventario que mantiene, con cada alta, edición, baja y venta, los totales de
+ * unidades del inventario (global y por talla) y un índice ordenado por SKU de los productos con pocas
+ * existencias (alguna talla con menos unidades que el umbral). Así esas consultas no recorren el catálogo:
+ * los totales se leen en O(1) por talla y los productos con pocas existencias en O(log n + k).
+ * Las altas, ediciones y bajas llegan con el candado de escritura del inventario; las ventas y devoluciones,
+ * con el de lectura y desde varios hilos a la vez, por lo que los totales son contadores concurrentes y el
+ * índice es un mapa concurrente. Un producto solo cambia de clasificación cuando una talla cruza el umbral,
+ * y esa reclasificación se serializa con el monitor del producto.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : ExistenciasInventario.java
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ExistenciasInventario {
+    public static final int UMBRAL_POR_DEFECTO = 5; // Unidades por debajo de las cuales una talla tiene pocas existencias.
+
+    private final LongAdder total = new LongAdder(); // Unidades de todas las tallas de todos los productos.
+    // Unidades de cada talla, indexadas por su identificador en DiccionarioTallas. Solo crece con el
+    // candado de escritura, así que las ventas (con el de lectura) siempre encuentran su talla.
+    private volatile LongAdder[] unidadesPorTalla = new LongAdder[0];
+    private int[] productosPorTalla = new int[0]; // Productos que tienen cada talla (solo cambia con el candado de escritura).
+    // SKU -> producto con pocas existencias (se reemplaza completo con el candado de escritura al reconstruir).
+    private volatile ConcurrentSkipListMap<String, Producto> pocasExistencias = new ConcurrentSkipListMap<>();
+    private final AtomicInteger cantidadPocasExistencias = new AtomicInteger(); // Tamaño del índice (el del mapa cuesta O(n)).
+    private volatile int umbral = UMBRAL_POR_DEFECTO; // Una talla con menos unidades tiene pocas existencias.
+
+    // Suma las existencias de un producto que entra al inventario. Se llama con el candado de escritura.
+    void agregar(Producto producto) {
+        int[] existencias = producto.existenciasPorTalla();
+        LongAdder[] unidades = ampliar(existencias.length);
+        boolean pocas = false;
+        for (int id = 0; id < existencias.length; id++) {
+            int cantidad = existencias[id];
+            if (cantidad >= 0) {
+                unidades[id].add(cantidad);
+                productosPorTalla[id]++;
+                total.add(cantidad);
+                pocas |= cantidad < umbral;
+            }
+        }
+        if (pocas && pocasExistencias.put(producto.getSku(), producto) == null) {
+            cantidadPocasExistencias.incrementAndGet();
+        }
+    }
+
+    // Resta las existencias de un producto que sale del inventario (o que se va a reemplazar).
+    // Se llama con el candado de escritura.
+    void retirar(Producto producto) {
+        int[] existencias = producto.existenciasPorTalla();
+        LongAdder[] unidades = unidadesPorTalla;
+        for (int id = 0; id < existencias.length; id++) {
+            int cantidad = existencias[id];
+            if (cantidad >= 0) {
+                unidades[id].add(-cantidad);
+                productosPorTalla[id]--;
+                total.add(-cantidad);
+            }
+        }
+        if (pocasExistencias.remove(producto.getSku(), producto)) {
+            cantidadPocasExistencias.decrementAndGet();
+        }
+    }
+
+    // Registra una venta o devolución ya aplicada al producto: la talla pasó de resultado - diferencia
+    // a resultado unidades. Se llama con el candado de lectura, posiblemente desde varios hilos.
+    void registrarCambio(Producto producto, String talla, int diferencia, int resultado) {
+        int id = DiccionarioTallas.buscar(talla);
+        unidadesPorTalla[id].add(diferencia);
+        total.add(diferencia);
+        int limite = umbral;
+        if ((resultado - diferencia < limite) != (resultado < limite)) {
+            // La talla cruzó el umbral. El producto se reclasifica con sus existencias actuales; con el
+            // monitor tomado, la última reclasificación ve todos los cambios anteriores a ella.
+            synchronized (producto) {
+                clasificar(producto, limite);
+            }
+        }
+    }
+
+    // Agrega el producto al índice si alguna de sus tallas está por debajo del límite, o lo quita si no.
+    private void clasificar(Producto producto, int limite) {
+        boolean pocas = false;
+        for (int cantidad : producto.existenciasPorTalla()) {
+            if (cantidad >= 0 && cantidad < limite) {
+                pocas = true;
+                break;
+            }
+        }
+        if (pocas) {
+            if (pocasExistencias.put(producto.getSku(), producto) == null) {
+                cantidadPocasExistencias.incrementAndGet();
+            }
+        } else if (pocasExistencias.remove(producto.getSku(), producto)) {
+            cantidadPocasExistencias.decrementAndGet();
+        }
+    }
+
+    // Vuelve a calcular todo a partir de los productos vigentes, que llegan en orden de SKU (después de
+    // una carga en bloque o al cambiar el umbral). Se llama con el candado de escritura.
+    // Las sumas se acumulan en arreglos locales y el índice se arma en un mapa nuevo que se publica al
+    // final, así que las consultas concurrentes nunca ven un índice a medio construir.
+    void reconstruir(Iterable<Producto> productos) {
+        long[] unidades = new long[unidadesPorTalla.length];
+        int[] conTalla = new int[unidades.length];
+        long suma = 0;
+        ConcurrentSkipListMap<String, Producto> pocas = new ConcurrentSkipListMap<>();
+        int limite = umbral;
+        for (Producto producto : productos) {
+            int[] existencias = producto.existenciasPorTalla();
+            if (existencias.length > unidades.length) {
+                unidades = Arrays.copyOf(unidades, existencias.length);
+                conTalla = Arrays.copyOf(conTalla, existencias.length);
+            }
+            boolean baja = false;
+            for (int id = 0; id < existencias.length; id++) {
+                int cantidad = existencias[id];
+                if (cantidad >= 0) {
+                    unidades[id] += cantidad;
+                    conTalla[id]++;
+                    suma += cantidad;
+                    baja |= cantidad < limite;
+                }
+            }
+            if (baja) {
+                pocas.put(producto.getSku(), producto);
+            }
+        }
+        LongAdder[] contadores = new LongAdder[unidades.length];
+        for (int id = 0; id < unidades.length; id++) {
+            contadores[id] = new LongAdder();
+            contadores[id].add(unidades[id]);
+        }
+        unidadesPorTalla = contadores;
+        productosPorTalla = conTalla;
+        total.reset();
+        total.add(suma);
+        pocasExistencias = pocas;
+        cantidadPocasExistencias.set(pocas.size());
+    }
+
+    // Cambia el umbral de pocas existencias y reconstruye el índice. Se llama con el candado de escritura.
+    void setUmbral(int umbral, Iterable<Producto> productos) {
+        this.umbral = umbral;
+        reconstruir(productos);
+    }
+
+    // Garantiza un contador para cada identificador de talla menor que la longitud indicada.
+    private LongAdder[] ampliar(int longitud) {
+        LongAdder[] unidades = unidadesPorTalla;
+        if (longitud <= unidades.length) {
+            return unidades;
+        }
+        LongAdder[] ampliado = Arrays.copyOf(unidades, longitud);
+        for (int id = unidades.length; id < longitud; id++) {
+            ampliado[id] = new LongAdder();
+        }
+        productosPorTalla = Arrays.copyOf(productosPorTalla, longitud);
+        unidadesPorTalla = ampliado;
+        return ampliado;
+    }
+
+    /**
+     * Obtiene el total de unidades de todas las tallas de todos los productos.
+     *
+     * @return El número de unidades.
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * Obtiene el total de unidades de una talla en todo el catálogo.
+     *
+     * @param talla La talla a consultar.
+     * @return El número de unidades (0 si ningún producto tiene la talla).
+     */
+    public long getTotal(String talla) {
+        int id = DiccionarioTallas.buscar(talla);
+        LongAdder[] unidades = unidadesPorTalla;
+        return id >= 0 && id < unidades.length ? unidades[id].sum() : 0;
+    }
+
+    /**
+     * Obtiene el total de unidades de cada talla que tiene al menos un producto, en el orden en que
+     * se registraron las tallas.
+     *
+     * @return Un mapa de talla a unidades.
+     */
+    public Map<String, Long> getTotalesPorTalla() {
+        LongAdder[] unidades = unidadesPorTalla;
+        Map<String, Long> totales = new LinkedHashMap<>();
+        for (int id = 0; id < unidades.length; id++) {
+            if (productosPorTalla[id] > 0) {
+                totales.put(DiccionarioTallas.nombre(id), unidades[id].sum());
+            }
+        }
+        return totales;
+    }
+
+    /**
+     * Obtiene el umbral de pocas existencias.
+     *
+     * @return Las unidades por debajo de las cuales una talla tiene pocas existencias.
+     */
+    public int getUmbral() {
+        return umbral;
+    }
+
+    /**
+     * Obtiene la cantidad de productos con alguna talla por debajo del umbral.
+     *
+     * @return El número de productos con pocas existencias.
+     */
+    public int getCantidadPocasExistencias() {
+        return cantidadPocasExistencias.get();
+    }
+
+    /**
+     * Obtiene, en orden de SKU, los productos con alguna talla por debajo del umbral, en O(log n + k).
+     *
+     * @param despuesDe SKU a partir del cual continuar (exclusivo), o null para empezar desde el primero.
+     * @param limite Cantidad máxima de productos.
+     * @return Los productos con pocas existencias.
+     */
+    public List<Producto> pocasExistencias(String despuesDe, int limite) {
+        ConcurrentSkipListMap<String, Producto> indice = pocasExistencias;
+        Map<String, Producto> desde = despuesDe == null ? indice : indice.tailMap(despuesDe, false);
+        List<Producto> productos = new ArrayList<>(Math.min(limite, 64));
+        for (Producto producto : desde.values()) {
+            if (productos.size() >= limite) {
+                break;
+            }
+            productos.add(producto);
+        }
+        return productos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Existencias: %,d unidades, %,d productos con menos de %d unidades en alguna talla",
+            getTotal(), getCantidadPocasExistencias(), umbral);
+    }
+}
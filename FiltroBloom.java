@@ -0,0 +1,251 @@
+/**
+ * Clase FiltroBloom que responde, sin recorrer ningún árbol, si una clave de texto seguro no fue
+ * agregada. Puede dar falsos positivos (decir que una clave quizá existe cuando no es así) con la
+ * tasa elegida al crearlo, pero nunca falsos negativos.
+ * Es un filtro por bloques: cada clave elige un bloque de 8 enteros (32 bytes, media línea de caché)
+ * y marca un bit en cada uno, así que una consulta lee una sola zona de memoria y no ocho al azar.
+ * El bloque y los bits salen de un hash de 64 bits calculado sobre los caracteres de la clave (no de
+ * String.hashCode(), cuyas colisiones, como "Aa" y "BB", serían falsos positivos seguros), de modo que
+ * la tasa real se acerca a la calculada al dimensionarlo incluso con millones de claves.
+ * Las consultas no toman candados; las altas marcan los bits de forma atómica, de modo que dos hilos
+ * pueden llenar el mismo filtro a la vez (por ejemplo, una reconstrucción y una alta).
+ * Los bits no se pueden desmarcar: las claves eliminadas siguen pareciendo posibles hasta que el filtro
+ * se reconstruye. Lleva contadores de consultas, descartes y falsos positivos.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : FiltroBloom.java
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class FiltroBloom {
+    private static final int PALABRAS_POR_BLOQUE = 8; // Enteros de 32 bits por bloque; la clave marca un bit en cada uno.
+    // Multiplicadores impares que derivan, de un mismo hash, la posición del bit en cada palabra del bloque.
+    private static final int[] SALES = {
+        0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d, 0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31
+    };
+    private static final VarHandle PALABRA = MethodHandles.arrayElementVarHandle(int[].class); // Acceso atómico a los bits.
+
+    private final int[] palabras; // Bits del filtro, en bloques consecutivos de PALABRAS_POR_BLOQUE.
+    private final int bloques; // Cantidad de bloques.
+    private final int capacidad; // Claves para las que se dimensionó el filtro.
+    private final double tasaFalsosPositivos; // Tasa de falsos positivos esperada con la capacidad completa.
+    private final AtomicInteger claves = new AtomicInteger(); // Claves agregadas.
+    private final LongAdder consultas = new LongAdder(); // Consultas realizadas.
+    private final LongAdder descartes = new LongAdder(); // Consultas que el filtro descartó sin ir al árbol.
+    private final LongAdder falsosPositivos = new LongAdder(); // Consultas que pasaron el filtro sin que la clave existiera.
+
+    /**
+     * Constructor de la clase FiltroBloom.
+     *
+     * @param capacidad Cantidad de claves esperadas (al menos 1); con más claves la tasa de falsos positivos sube.
+     * @param tasaFalsosPositivos Tasa de falsos positivos deseada, mayor que 0 y menor que 1 (por ejemplo, 0.01).
+     */
+    public FiltroBloom(int capacidad, double tasaFalsosPositivos) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad del filtro debe ser al menos 1");
+        }
+        if (!(tasaFalsosPositivos > 0 && tasaFalsosPositivos < 1)) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        this.capacidad = capacidad;
+        this.tasaFalsosPositivos = tasaFalsosPositivos;
+        this.bloques = bloquesNecesarios(capacidad, tasaFalsosPositivos);
+        this.palabras = new int[bloques * PALABRAS_POR_BLOQUE];
+    }
+
+    /**
+     * Agrega una clave al filtro. Puede llamarse desde varios hilos a la vez.
+     *
+     * @param clave La clave a agregar.
+     */
+    public void agregar(String clave) {
+        long hash = hash(clave);
+        int base = bloque(hash) * PALABRAS_POR_BLOQUE;
+        int bits = (int) hash;
+        for (int i = 0; i < PALABRAS_POR_BLOQUE; i++) {
+            int mascara = 1 << ((bits * SALES[i]) >>> 27);
+            // Solo se escribe si el bit falta: las claves repetidas no compiten por la línea de caché.
+            if ((palabras[base + i] & mascara) == 0) {
+                PALABRA.getAndBitwiseOr(palabras, base + i, mascara);
+            }
+        }
+        claves.incrementAndGet();
+    }
+
+    /**
+     * Indica si una clave pudo haberse agregado. Si devuelve false, la clave seguro no está.
+     *
+     * @param clave La clave a consultar.
+     * @return false si la clave no se agregó; true si quizá se agregó.
+     */
+    public boolean puedeContener(String clave) {
+        consultas.increment();
+        long hash = hash(clave);
+        int base = bloque(hash) * PALABRAS_POR_BLOQUE;
+        int bits = (int) hash;
+        for (int i = 0; i < PALABRAS_POR_BLOQUE; i++) {
+            if ((palabras[base + i] & (1 << ((bits * SALES[i]) >>> 27))) == 0) {
+                descartes.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registra que una consulta pasó el filtro pero la clave no existía, para medir la tasa real.
+     */
+    public void registrarFalsoPositivo() {
+        falsosPositivos.increment();
+    }
+
+    /**
+     * Indica si el filtro ya recibió más claves que su capacidad, por lo que conviene reconstruirlo más grande.
+     *
+     * @return true si se superó la capacidad.
+     */
+    public boolean saturado() {
+        return claves.get() > capacidad;
+    }
+
+    /**
+     * Obtiene la cantidad de claves para la que se dimensionó el filtro.
+     *
+     * @return La capacidad del filtro.
+     */
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Obtiene la tasa de falsos positivos con la que se dimensionó el filtro.
+     *
+     * @return La tasa configurada.
+     */
+    public double getTasaFalsosPositivos() {
+        return tasaFalsosPositivos;
+    }
+
+    /**
+     * Obtiene la cantidad de claves agregadas (las repetidas cuentan una vez por alta).
+     *
+     * @return El número de claves agregadas.
+     */
+    public int getClaves() {
+        return claves.get();
+    }
+
+    /**
+     * Obtiene la memoria que ocupan los bits del filtro.
+     *
+     * @return El tamaño en bytes.
+     */
+    public long getBytes() {
+        return (long) palabras.length * Integer.BYTES;
+    }
+
+    /**
+     * Obtiene la cantidad de consultas realizadas.
+     *
+     * @return El número de consultas.
+     */
+    public long getConsultas() {
+        return consultas.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de consultas que el filtro descartó sin recorrer el árbol.
+     *
+     * @return El número de descartes.
+     */
+    public long getDescartes() {
+        return descartes.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de consultas que pasaron el filtro sin que la clave existiera.
+     *
+     * @return El número de falsos positivos registrados.
+     */
+    public long getFalsosPositivos() {
+        return falsosPositivos.sum();
+    }
+
+    /**
+     * Calcula la tasa de falsos positivos observada: de las consultas por claves inexistentes,
+     * la proporción que el filtro no descartó.
+     *
+     * @return Un valor entre 0 y 1 (0 si no hubo consultas por claves inexistentes).
+     */
+    public double tasaObservada() {
+        long pasaron = falsosPositivos.sum();
+        long inexistentes = pasaron + descartes.sum();
+        return inexistentes == 0 ? 0 : (double) pasaron / inexistentes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Filtro: %d/%d claves, %d KB, %d consultas, %d descartadas, %d falsos positivos (%.2f%% observado, %.2f%% configurado)",
+            getClaves(), capacidad, getBytes() / 1024, getConsultas(), getDescartes(), getFalsosPositivos(),
+            tasaObservada() * 100, tasaFalsosPositivos * 100);
+    }
+
+    // Elige el bloque con los 32 bits altos del hash, multiplicando en lugar de usar el residuo.
+    private int bloque(long hash) {
+        return (int) (((hash >>> 32) * bloques) >>> 32);
+    }
+
+    // Hash de 64 bits de la clave: FNV-1a sobre sus caracteres, mezclado con el paso final de MurmurHash3
+    // para repartir bien claves casi iguales, como los SKU consecutivos, entre bloques y bits.
+    private static long hash(String clave) {
+        long x = 0xcbf29ce484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            x ^= clave.charAt(i);
+            x *= 0x100000001b3L;
+        }
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        return x ^ (x >>> 33);
+    }
+
+    // Menor cantidad de bloques con la que la tasa esperada no supera la pedida. La tasa depende de las
+    // claves promedio por bloque, así que se busca ese promedio por bisección.
+    private static int bloquesNecesarios(int capacidad, double tasa) {
+        double menor = 0; // Claves por bloque que cumplen la tasa.
+        double mayor = PALABRAS_POR_BLOQUE * Integer.SIZE; // Claves por bloque que no la cumplen.
+        for (int i = 0; i < 60; i++) {
+            double medio = (menor + mayor) / 2;
+            if (tasaEsperada(medio) <= tasa) {
+                menor = medio;
+            } else {
+                mayor = medio;
+            }
+        }
+        long necesarios = (long) Math.ceil(capacidad / Math.max(menor, 1e-3));
+        return (int) Math.min(Math.max(necesarios, 1), Integer.MAX_VALUE / PALABRAS_POR_BLOQUE);
+    }
+
+    // Tasa de falsos positivos con "porBloque" claves promedio por bloque: la cantidad de claves que caen
+    // en un bloque sigue una distribución de Poisson, y con j claves cada bit pedido está marcado con
+    // probabilidad 1 - (31/32)^j en cada una de las 8 palabras.
+    private static double tasaEsperada(double porBloque) {
+        double probabilidad = Math.exp(-porBloque); // P(j claves en el bloque), empezando en j = 0.
+        double tasa = 0;
+        int limite = (int) (porBloque + 12 * Math.sqrt(porBloque) + 20);
+        for (int j = 0; j <= limite; j++) {
+            double marcado = 1 - Math.pow(1 - 1.0 / Integer.SIZE, j);
+            tasa += probabilidad * Math.pow(marcado, PALABRAS_POR_BLOQUE);
+            probabilidad *= porBloque / (j + 1);
+        }
+        return tasa;
+    }
+}
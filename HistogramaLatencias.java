@@ -0,0 +1,136 @@
+/**
+ * Clase HistogramaLatencias que acumula duraciones (en nanosegundos) para obtener percentiles,
+ * al estilo de HdrHistogram: los valores menores que 64 tienen una cubeta propia, y cada potencia
+ * de dos por encima se divide en 32 cubetas de igual ancho, de modo que el error relativo de un
+ * percentil es menor al 3.2% para cualquier magnitud, con memoria fija (unas 1 900 cubetas).
+ * Registrar un valor es O(1) y seguro desde varios hilos sin candados.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : HistogramaLatencias.java
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class HistogramaLatencias {
+    private static final int BITS_SUBCUBETA = 5; // 2^5 = 32 cubetas por cada potencia de dos.
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int LINEALES = SUBCUBETAS * 2; // Valores menores que 64 tienen cubeta propia.
+    private static final int CUBETAS = LINEALES + (63 - 6) * SUBCUBETAS; // Hasta Long.MAX_VALUE.
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS); // Cantidad de valores por cubeta.
+    private final LongAdder cantidad = new LongAdder(); // Valores registrados.
+    private final LongAdder suma = new LongAdder(); // Suma de los valores registrados.
+    private final AtomicLong maximo = new AtomicLong(); // Mayor valor registrado.
+
+    /**
+     * Registra una duración.
+     *
+     * @param nanos La duración en nanosegundos (los valores negativos se cuentan como 0).
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        cubetas.incrementAndGet(indice(valor));
+        cantidad.increment();
+        suma.add(valor);
+        if (valor > maximo.get()) {
+            maximo.accumulateAndGet(valor, Math::max);
+        }
+    }
+
+    // Cubeta de un valor: lineal por debajo de 64; por encima, la potencia de dos y los 5 bits siguientes al más alto.
+    private static int indice(long valor) {
+        if (valor < LINEALES) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor); // 6 o más.
+        int subcubeta = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return LINEALES + (exponente - 6) * SUBCUBETAS + subcubeta;
+    }
+
+    // Mayor valor que cae en la cubeta indicada.
+    private static long limiteSuperior(int indice) {
+        if (indice < LINEALES) {
+            return indice;
+        }
+        int exponente = (indice - LINEALES) / SUBCUBETAS + 6;
+        long subcubeta = (indice - LINEALES) % SUBCUBETAS;
+        long inicio = (1L << exponente) + (subcubeta << (exponente - BITS_SUBCUBETA));
+        return inicio + (1L << (exponente - BITS_SUBCUBETA)) - 1;
+    }
+
+    /**
+     * Obtiene la cantidad de valores registrados.
+     *
+     * @return El número de valores.
+     */
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    /**
+     * Obtiene el promedio de los valores registrados.
+     *
+     * @return El promedio en nanosegundos, o 0 si no hay valores.
+     */
+    public double getPromedio() {
+        long total = cantidad.sum();
+        return total == 0 ? 0 : (double) suma.sum() / total;
+    }
+
+    /**
+     * Obtiene el mayor valor registrado.
+     *
+     * @return El máximo en nanosegundos, o 0 si no hay valores.
+     */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Obtiene el percentil indicado. El resultado es el límite superior de la cubeta que lo contiene,
+     * así que nunca subestima el valor real en más del ancho de una cubeta.
+     *
+     * @param percentil El percentil entre 0 y 100 (por ejemplo, 99.9).
+     * @return El valor del percentil en nanosegundos, o 0 si no hay valores.
+     */
+    public long percentil(double percentil) {
+        if (percentil < 0 || percentil > 100) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100");
+        }
+        long total = 0;
+        long[] conteos = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos[i] = cubetas.get(i);
+            total += conteos[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteos[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Descarta todos los valores registrados.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        cantidad.reset();
+        suma.reset();
+        maximo.set(0);
+    }
+}
@@ -0,0 +1,490 @@
+/**
+ * Clase IndiceNombres que permite buscar productos por una parte de su nombre, sin distinguir
+ * mayúsculas, minúsculas ni acentos ("Pádel" equivale a "padel").
+ * Combina dos estructuras sobre los nombres normalizados:
+ *   - un trie, para los nombres que empiezan con un prefijo, recorridos en orden alfabético;
+ *   - un índice de trigramas (secuencias de tres caracteres), para los nombres que contienen
+ *     un texto: se recorre la lista de candidatos más corta y se verifica cada uno. Los textos de
+ *     uno o dos caracteres se buscan en las listas de los trigramas que los contienen.
+ * No es seguro para varios hilos; Inventario lo modifica bajo su candado de escritura.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : IndiceNombres.java
+ */
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public class IndiceNombres {
+    private static final Producto[] SIN_PRODUCTOS = new Producto[0];
+    private static final int[] SIN_IDS = new int[0];
+    private static final char[] SIN_LETRAS = new char[0];
+    private static final NodoTrie[] SIN_HIJOS = new NodoTrie[0];
+    private static final int MINIMO_RETIRADOS = 1024; // Retirados tolerados antes de considerar reconstruir los trigramas.
+
+    // Nodo del trie: los hijos se guardan en arreglos paralelos ordenados por carácter.
+    private static final class NodoTrie {
+        char[] letras = SIN_LETRAS; // Carácter de cada hijo, en orden ascendente.
+        NodoTrie[] hijos = SIN_HIJOS; // Hijo correspondiente a cada carácter.
+        Producto[] productos = SIN_PRODUCTOS; // Productos cuyo nombre normalizado termina en este nodo.
+        int[] ids = SIN_IDS; // Identificador en las listas de trigramas de cada producto del nodo.
+
+        // Devuelve el hijo del carácter indicado, o null si no existe.
+        NodoTrie hijo(char letra) {
+            int i = Arrays.binarySearch(letras, letra);
+            return i >= 0 ? hijos[i] : null;
+        }
+
+        // Devuelve el hijo del carácter indicado, creándolo si no existe.
+        NodoTrie hijoOCrear(char letra) {
+            int i = Arrays.binarySearch(letras, letra);
+            if (i >= 0) {
+                return hijos[i];
+            }
+            int posicion = -i - 1;
+            char[] nuevasLetras = new char[letras.length + 1];
+            NodoTrie[] nuevosHijos = new NodoTrie[hijos.length + 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, posicion);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, posicion);
+            System.arraycopy(letras, posicion, nuevasLetras, posicion + 1, letras.length - posicion);
+            System.arraycopy(hijos, posicion, nuevosHijos, posicion + 1, hijos.length - posicion);
+            NodoTrie nuevo = new NodoTrie();
+            nuevasLetras[posicion] = letra;
+            nuevosHijos[posicion] = nuevo;
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+            return nuevo;
+        }
+
+        // Quita el hijo del carácter indicado.
+        void quitarHijo(char letra) {
+            int i = Arrays.binarySearch(letras, letra);
+            if (i < 0) {
+                return;
+            }
+            if (letras.length == 1) {
+                letras = SIN_LETRAS;
+                hijos = SIN_HIJOS;
+                return;
+            }
+            char[] nuevasLetras = new char[letras.length - 1];
+            NodoTrie[] nuevosHijos = new NodoTrie[hijos.length - 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, i);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, i);
+            System.arraycopy(letras, i + 1, nuevasLetras, i, nuevasLetras.length - i);
+            System.arraycopy(hijos, i + 1, nuevosHijos, i, nuevosHijos.length - i);
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+        }
+    }
+
+    // Trigramas distintos que contienen un mismo texto de uno o dos caracteres.
+    private static final class Trigramas {
+        long[] claves = new long[4]; // Trigramas empaquetados.
+        int tamano; // Posiciones ocupadas.
+
+        void agregar(long trigrama) {
+            if (tamano == claves.length) {
+                claves = Arrays.copyOf(claves, tamano * 2);
+            }
+            claves[tamano++] = trigrama;
+        }
+    }
+
+    // Producto encontrado por contenido, con su nombre normalizado para ordenar sin volver a normalizarlo.
+    private static final class Coincidencia {
+        final String nombre; // Nombre normalizado.
+        final Producto producto; // Producto encontrado.
+
+        Coincidencia(String nombre, Producto producto) {
+            this.nombre = nombre;
+            this.producto = producto;
+        }
+    }
+
+    // Tabla de direccionamiento abierto: trigrama (tres caracteres empaquetados) -> identificadores de los
+    // productos cuyo nombre lo contiene. Evita crear un objeto Long por cada trigrama consultado o agregado.
+    private static final class TablaTrigramas {
+        long[] claves = new long[1024]; // Trigrama de cada posición (0 = libre).
+        int[][] listas = new int[1024][]; // Identificadores de los productos de cada trigrama.
+        int[] tamanos = new int[1024]; // Posiciones ocupadas de cada lista.
+        int ocupadas; // Trigramas distintos registrados.
+        // Texto de uno o dos caracteres (ver corto) -> trigramas distintos que lo contienen. Solo crece al
+        // aparecer un trigrama nuevo, y permite buscar textos cortos sin recorrer todos los nombres.
+        final Map<Long, Trigramas> porTextoCorto = new HashMap<>();
+
+        // Devuelve la posición del trigrama, o la posición libre donde debería ir.
+        int posicion(long trigrama) {
+            int mascara = claves.length - 1;
+            int i = Long.hashCode(trigrama * 0x9E3779B97F4A7C15L) & mascara;
+            while (claves[i] != 0 && claves[i] != trigrama) {
+                i = (i + 1) & mascara;
+            }
+            return i;
+        }
+
+        // Agrega el identificador a la lista del trigrama, salvo que ya sea el último agregado.
+        void agregar(long trigrama, int id) {
+            int i = posicion(trigrama);
+            if (claves[i] == 0) {
+                if ((ocupadas + 1) * 2 > claves.length) {
+                    ampliar();
+                    i = posicion(trigrama);
+                }
+                claves[i] = trigrama;
+                listas[i] = new int[4];
+                ocupadas++;
+                registrarTextosCortos(trigrama);
+            }
+            int tamano = tamanos[i];
+            if (tamano > 0 && listas[i][tamano - 1] == id) {
+                return; // Un trigrama repetido en el nombre cuenta una vez.
+            }
+            if (tamano == listas[i].length) {
+                listas[i] = Arrays.copyOf(listas[i], tamano * 2);
+            }
+            listas[i][tamano] = id;
+            tamanos[i] = tamano + 1;
+        }
+
+        // Registra un trigrama nuevo bajo cada uno de sus caracteres y de sus dos pares de caracteres.
+        private void registrarTextosCortos(long trigrama) {
+            char a = (char) (trigrama >>> 32);
+            char b = (char) (trigrama >>> 16);
+            char c = (char) trigrama;
+            registrarTextoCorto(corto(a), trigrama);
+            if (b != a) {
+                registrarTextoCorto(corto(b), trigrama);
+            }
+            if (c != a && c != b) {
+                registrarTextoCorto(corto(c), trigrama);
+            }
+            registrarTextoCorto(corto(a, b), trigrama);
+            if (a != b || b != c) {
+                registrarTextoCorto(corto(b, c), trigrama);
+            }
+        }
+
+        private void registrarTextoCorto(long texto, long trigrama) {
+            porTextoCorto.computeIfAbsent(texto, clave -> new Trigramas()).agregar(trigrama);
+        }
+
+        // Duplica la capacidad de la tabla y reubica los trigramas.
+        void ampliar() {
+            long[] clavesAnteriores = claves;
+            int[][] listasAnteriores = listas;
+            int[] tamanosAnteriores = tamanos;
+            claves = new long[clavesAnteriores.length * 2];
+            listas = new int[claves.length][];
+            tamanos = new int[claves.length];
+            for (int j = 0; j < clavesAnteriores.length; j++) {
+                if (clavesAnteriores[j] != 0) {
+                    int i = posicion(clavesAnteriores[j]);
+                    claves[i] = clavesAnteriores[j];
+                    listas[i] = listasAnteriores[j];
+                    tamanos[i] = tamanosAnteriores[j];
+                }
+            }
+        }
+    }
+
+    private final NodoTrie raiz = new NodoTrie(); // Raíz del trie de nombres normalizados.
+    // Las listas de trigramas no se modifican al retirar: el identificador del producto retirado queda
+    // libre (null en productosPorId) y se descarta al verificar los candidatos. La tabla se reconstruye,
+    // con identificadores nuevos, cuando acumula más retirados que vigentes.
+    private TablaTrigramas trigramas = new TablaTrigramas();
+    private Producto[] productosPorId = new Producto[1024]; // Producto de cada identificador (null si se retiró).
+    private String[] nombresPorId = new String[1024]; // Nombre normalizado de cada identificador.
+    private int siguienteId; // Identificadores asignados desde la última reconstrucción.
+    private int cantidad; // Productos indexados.
+    private int retirados; // Productos retirados que aún figuran en las listas de trigramas.
+
+    /**
+     * Normaliza un texto para la búsqueda: lo pasa a minúsculas y elimina los acentos y diéresis.
+     *
+     * @param texto El texto a normalizar.
+     * @return El texto normalizado.
+     */
+    public static String normalizar(String texto) {
+        boolean ascii = true;
+        for (int i = 0; i < texto.length() && ascii; i++) {
+            ascii = texto.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return texto.toLowerCase(Locale.ROOT);
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(descompuesto.length());
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Agrega un producto al índice.
+     *
+     * @param producto El producto a agregar.
+     */
+    public void agregar(Producto producto) {
+        String nombre = normalizar(producto.getNombre());
+        NodoTrie nodo = raiz;
+        for (int i = 0; i < nombre.length(); i++) {
+            nodo = nodo.hijoOCrear(nombre.charAt(i));
+        }
+        int id = nuevoId(producto, nombre);
+        Producto[] productos = Arrays.copyOf(nodo.productos, nodo.productos.length + 1);
+        productos[productos.length - 1] = producto;
+        nodo.productos = productos;
+        int[] ids = Arrays.copyOf(nodo.ids, nodo.ids.length + 1);
+        ids[ids.length - 1] = id;
+        nodo.ids = ids;
+        agregarTrigramas(nombre, id);
+        cantidad++;
+    }
+
+    /**
+     * Retira un producto del índice (por ejemplo, cuando otro producto lo reemplaza).
+     *
+     * @param producto El producto a retirar.
+     */
+    public void retirar(Producto producto) {
+        String nombre = normalizar(producto.getNombre());
+        NodoTrie[] camino = new NodoTrie[nombre.length() + 1];
+        camino[0] = raiz;
+        for (int i = 0; i < nombre.length(); i++) {
+            camino[i + 1] = camino[i].hijo(nombre.charAt(i));
+            if (camino[i + 1] == null) {
+                return;
+            }
+        }
+        NodoTrie nodo = camino[nombre.length()];
+        for (int i = 0; i < nodo.productos.length; i++) {
+            if (nodo.productos[i] == producto) {
+                productosPorId[nodo.ids[i]] = null;
+                nombresPorId[nodo.ids[i]] = null;
+                Producto[] productos = new Producto[nodo.productos.length - 1];
+                System.arraycopy(nodo.productos, 0, productos, 0, i);
+                System.arraycopy(nodo.productos, i + 1, productos, i, productos.length - i);
+                nodo.productos = productos.length == 0 ? SIN_PRODUCTOS : productos;
+                int[] ids = new int[productos.length];
+                System.arraycopy(nodo.ids, 0, ids, 0, i);
+                System.arraycopy(nodo.ids, i + 1, ids, i, ids.length - i);
+                nodo.ids = ids.length == 0 ? SIN_IDS : ids;
+                cantidad--;
+                retirados++;
+                // Se podan las ramas que quedaron sin productos, para que el trie no crezca con la rotación del catálogo.
+                for (int j = nombre.length(); j > 0; j--) {
+                    NodoTrie actual = camino[j];
+                    if (actual.productos.length > 0 || actual.hijos.length > 0) {
+                        break;
+                    }
+                    camino[j - 1].quitarHijo(nombre.charAt(j - 1));
+                }
+                if (retirados > cantidad && retirados > MINIMO_RETIRADOS) {
+                    reconstruirTrigramas();
+                }
+                return;
+            }
+        }
+    }
+
+    // Vuelve a crear la tabla de trigramas con los productos vigentes del trie, con identificadores nuevos.
+    private void reconstruirTrigramas() {
+        String[] nombresAnteriores = nombresPorId;
+        trigramas = new TablaTrigramas();
+        productosPorId = new Producto[Math.max(1024, cantidad)];
+        nombresPorId = new String[productosPorId.length];
+        siguienteId = 0;
+        ArrayDeque<NodoTrie> pila = new ArrayDeque<>();
+        pila.push(raiz);
+        while (!pila.isEmpty()) {
+            NodoTrie nodo = pila.pop();
+            for (int i = 0; i < nodo.productos.length; i++) {
+                String nombre = nombresAnteriores[nodo.ids[i]];
+                nodo.ids[i] = nuevoId(nodo.productos[i], nombre);
+                agregarTrigramas(nombre, nodo.ids[i]);
+            }
+            for (NodoTrie hijo : nodo.hijos) {
+                pila.push(hijo);
+            }
+        }
+        retirados = 0;
+    }
+
+    // Asigna el siguiente identificador al producto y guarda su nombre normalizado.
+    private int nuevoId(Producto producto, String nombre) {
+        if (siguienteId == productosPorId.length) {
+            productosPorId = Arrays.copyOf(productosPorId, siguienteId * 2);
+            nombresPorId = Arrays.copyOf(nombresPorId, siguienteId * 2);
+        }
+        productosPorId[siguienteId] = producto;
+        nombresPorId[siguienteId] = nombre;
+        return siguienteId++;
+    }
+
+    // Agrega el identificador del producto a la lista de cada trigrama de su nombre normalizado.
+    private void agregarTrigramas(String nombre, int id) {
+        for (int i = 0; i + 3 <= nombre.length(); i++) {
+            trigramas.agregar(trigrama(nombre, i), id);
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de productos indexados.
+     *
+     * @return El número de productos.
+     */
+    public int tamano() {
+        return cantidad;
+    }
+
+    /**
+     * Busca los productos cuyo nombre empieza con el prefijo indicado.
+     *
+     * @param prefijo El prefijo a buscar.
+     * @param limite Cantidad máxima de resultados.
+     * @return Hasta "limite" productos, en orden alfabético de su nombre normalizado.
+     */
+    public List<Producto> buscarPorPrefijo(String prefijo, int limite) {
+        List<Producto> resultado = new ArrayList<>(Math.min(limite, 64));
+        NodoTrie inicio = buscarNodo(normalizar(prefijo));
+        if (inicio == null || limite <= 0) {
+            return resultado;
+        }
+        // Recorrido en preorden: un nombre aparece antes que los nombres más largos que lo contienen como prefijo.
+        ArrayDeque<NodoTrie> pila = new ArrayDeque<>();
+        pila.push(inicio);
+        while (!pila.isEmpty()) {
+            NodoTrie nodo = pila.pop();
+            for (Producto producto : nodo.productos) {
+                resultado.add(producto);
+                if (resultado.size() == limite) {
+                    return resultado;
+                }
+            }
+            for (int i = nodo.hijos.length - 1; i >= 0; i--) {
+                pila.push(nodo.hijos[i]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca los productos cuyo nombre contiene el texto indicado.
+     * Primero se devuelven los que empiezan con el texto y luego los que lo contienen en otra posición.
+     *
+     * @param texto El texto a buscar.
+     * @param limite Cantidad máxima de resultados.
+     * @return Hasta "limite" productos que contienen el texto.
+     */
+    public List<Producto> buscarPorContenido(String texto, int limite) {
+        String consulta = normalizar(texto);
+        List<Producto> resultado = buscarPorPrefijo(consulta, limite);
+        if (resultado.size() == limite) {
+            return resultado;
+        }
+        int faltantes = limite - resultado.size();
+        List<Coincidencia> otros = new ArrayList<>();
+        Set<Producto> vistos = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (consulta.isEmpty()) {
+            return resultado;
+        } else if (consulta.length() < 3) {
+            buscarTextoCorto(consulta, faltantes, otros, vistos);
+        } else {
+            int candidatos = -1;
+            for (int i = 0; i + 3 <= consulta.length(); i++) {
+                int posicion = trigramas.posicion(trigrama(consulta, i));
+                if (trigramas.claves[posicion] == 0) {
+                    return resultado;
+                }
+                if (candidatos < 0 || trigramas.tamanos[posicion] < trigramas.tamanos[candidatos]) {
+                    candidatos = posicion;
+                }
+            }
+            verificarCandidatos(candidatos, consulta, faltantes, otros, vistos);
+        }
+        otros.sort((a, b) -> a.nombre.compareTo(b.nombre));
+        for (Coincidencia coincidencia : otros) {
+            resultado.add(coincidencia.producto);
+        }
+        return resultado;
+    }
+
+    // Busca un texto de uno o dos caracteres en una posición distinta de la inicial. Toda aparición así en
+    // un nombre de tres o más caracteres está dentro de alguno de sus trigramas, así que basta revisar las
+    // listas de los trigramas que contienen el texto; los nombres más cortos se revisan en el trie.
+    private void buscarTextoCorto(String consulta, int limite, List<Coincidencia> otros, Set<Producto> vistos) {
+        if (consulta.length() == 1) {
+            char letra = consulta.charAt(0);
+            for (int i = 0; i < raiz.hijos.length; i++) {
+                // Los nombres de dos caracteres que terminan con la letra (los que empiezan con ella ya están incluidos).
+                NodoTrie nodo = raiz.letras[i] != letra ? raiz.hijos[i].hijo(letra) : null;
+                for (int j = 0; nodo != null && j < nodo.productos.length; j++) {
+                    if (otros.size() < limite && vistos.add(nodo.productos[j])) {
+                        otros.add(new Coincidencia(nombresPorId[nodo.ids[j]], nodo.productos[j]));
+                    }
+                }
+            }
+        }
+        Trigramas contienen = trigramas.porTextoCorto.get(consulta.length() == 1
+            ? corto(consulta.charAt(0)) : corto(consulta.charAt(0), consulta.charAt(1)));
+        for (int t = 0; contienen != null && t < contienen.tamano && otros.size() < limite; t++) {
+            verificarCandidatos(trigramas.posicion(contienen.claves[t]), consulta, limite, otros, vistos);
+        }
+    }
+
+    // Agrega los productos de la lista del trigrama que contienen el texto en una posición distinta de la
+    // inicial (los que empiezan con él ya están incluidos por la búsqueda de prefijo), hasta el límite.
+    private void verificarCandidatos(int posicion, String consulta, int limite, List<Coincidencia> otros, Set<Producto> vistos) {
+        int[] lista = trigramas.listas[posicion];
+        for (int j = 0; j < trigramas.tamanos[posicion] && otros.size() < limite; j++) {
+            Producto producto = productosPorId[lista[j]];
+            String nombre = nombresPorId[lista[j]];
+            // Un producto retirado sigue en las listas (con su identificador libre) hasta reconstruirlas, y
+            // un texto corto que aparece en varios trigramas del nombre lleva al mismo producto más de una vez.
+            if (producto != null && nombre.indexOf(consulta) > 0 && vistos.add(producto)) {
+                otros.add(new Coincidencia(nombre, producto));
+            }
+        }
+    }
+
+    // Devuelve el nodo al que lleva el texto desde la raíz, o null si ningún nombre empieza con él.
+    private NodoTrie buscarNodo(String texto) {
+        NodoTrie nodo = raiz;
+        for (int i = 0; i < texto.length() && nodo != null; i++) {
+            nodo = nodo.hijo(texto.charAt(i));
+        }
+        return nodo;
+    }
+
+    // Clave de un texto de un carácter en TablaTrigramas.porTextoCorto.
+    private static long corto(char a) {
+        return a;
+    }
+
+    // Clave de un texto de dos caracteres en TablaTrigramas.porTextoCorto (distinta de las de un carácter).
+    private static long corto(char a, char b) {
+        return (1L << 32) | ((long) a << 16) | b;
+    }
+
+    // Empaqueta los tres caracteres que empiezan en la posición indicada.
+    private static long trigrama(String texto, int i) {
+        return ((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2);
+    }
+}
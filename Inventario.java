@@ -2,6 +2,12 @@
  * Clase Inventario que gestiona el almacenamiento y manipulación de productos
  * en un sistema de inventario de ropa deportiva. Utiliza árboles binarios para
  * organizar los productos por SKU y por nombre.
+ * Es seguro usarlo desde varios hilos: las consultas comparten un candado de lectura y
+ * las modificaciones se serializan con el candado de escritura, que solo se retiene
+ * mientras se actualizan los árboles y se anexa el cambio a la bitácora.
+ * Los árboles son persistentes y las ediciones reemplazan el producto en lugar de modificarlo, así que
+ * las exportaciones y respaldos trabajan sobre una instantánea tomada en O(1) y no detienen las escrituras.
+ * Opcionalmente registra métricas de cada operación (ver MetricasInventario).
  * 
  * @Project : Hoja de Trabajo 7
  * @Author : Luis Girón
@@ -10,39 +16,595 @@
  * @FileName : Inventario.java
  */
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class Inventario {
+    public static final int LIMITE_COMPACTACION_POR_DEFECTO = 10_000; // Cambios acumulados antes de reescribir el CSV.
+    public static final int LOTE_DELTA = 1_000; // Filas de un delta aplicadas por cada toma del candado de escritura.
+    private static final int TAMANO_BUFFER_GUARDADO = 1 << 20; // Bytes acumulados por cada escritura al guardar.
+
     private final BinaryTree<String, Producto> arbolSKU; // Árbol binario para organizar productos por SKU.
-    private final BinaryTree<String, Producto> arbolNombre; // Árbol binario para organizar productos por nombre.
+    // Árbol binario de nombres: cada nombre guarda todos sus productos en un arreglo ordenado por SKU,
+    // porque varios productos (por ejemplo, colores distintos) pueden compartir el mismo nombre.
+    private final BinaryTree<String, Producto[]> arbolNombre;
+    // Índice para buscar por prefijo o por parte del nombre; se construye en la primera búsqueda
+    // para no retrasar la carga, y después se mantiene con cada alta.
+    private volatile IndiceNombres indiceNombres;
+    // Cachés opcionales para los SKU y nombres más consultados (null si están desactivadas).
+    // Solo se llenan con el candado de lectura y se invalidan con el de escritura, así que nunca
+    // guardan un producto que ya fue reemplazado o eliminado.
+    private volatile CacheReloj<String, Producto> cacheSKU;
+    private volatile CacheReloj<String, Producto[]> cacheNombre;
+    private volatile MetricasInventario metricas; // Métricas de las operaciones (null si están desactivadas).
+    private final ExistenciasInventario existencias; // Totales de unidades e índice de productos con pocas existencias.
+    // Filtros opcionales de los SKU y nombres existentes, que descartan las búsquedas de claves inexistentes
+    // sin recorrer los árboles (null si están desactivados). Se reemplazan con el candado de escritura.
+    private volatile FiltroBloom filtroSKU;
+    private volatile FiltroBloom filtroNombre;
+    private double tasaFiltros; // Tasa de falsos positivos de los filtros, 0 si están desactivados (protegida por el candado).
+    // Filtros que una compactación está llenando fuera del candado; las altas los reciben también (protegidos por el candado).
+    private FiltroBloom filtroSKUEnConstruccion;
+    private FiltroBloom filtroNombreEnConstruccion;
+    private final int limiteCompactacion; // Cambios registrados en la bitácora antes de compactar.
+    private final ReentrantReadWriteLock candado; // Candado compartido por consultas y exclusivo para cambios.
+    private final ReentrantLock compactacion; // Impide dos compactaciones o respaldos simultáneos.
+    private long instantaneas; // Instantáneas de exportación tomadas (protegida por el candado).
+    // Instantánea que se está exportando (0 si ninguna). Las ventas conservan antes las existencias
+    // que tenía el producto en ella, para que el archivo refleje un único momento.
+    private volatile long instantaneaEnCurso;
     private String archivoCSV; // Nombre del archivo CSV utilizado para guardar/cargar el inventario.
-    private boolean cargandoDesdeCSV; // Bandera para evitar guardar en CSV durante la carga.
+    private volatile BitacoraCambios bitacora; // Bitácora de cambios aún no reflejados en el CSV (se reemplaza con el candado de escritura).
+    private boolean cargandoDesdeCSV; // Bandera para evitar guardar en CSV durante la carga (protegida por el candado).
+    private volatile int hilosCarga; // Hilos usados para convertir las filas del CSV en productos.
 
     /**
      * Constructor de la clase Inventario.
      * Inicializa los árboles binarios y configura el estado inicial.
      */
     public Inventario() {
+        this(LIMITE_COMPACTACION_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor de la clase Inventario con un límite de compactación específico.
+     * 
+     * @param limiteCompactacion Cantidad de cambios registrados en la bitácora antes de reescribir el CSV.
+     */
+    public Inventario(int limiteCompactacion) {
+        if (limiteCompactacion < 1) {
+            throw new IllegalArgumentException("El límite de compactación debe ser al menos 1");
+        }
         this.arbolSKU = new BinaryTree<>();
         this.arbolNombre = new BinaryTree<>();
+        this.indiceNombres = null;
+        this.cacheSKU = null;
+        this.cacheNombre = null;
+        this.metricas = null;
+        this.existencias = new ExistenciasInventario();
+        this.filtroSKU = null;
+        this.filtroNombre = null;
+        this.tasaFiltros = 0;
+        this.limiteCompactacion = limiteCompactacion;
+        this.candado = new ReentrantReadWriteLock();
+        this.compactacion = new ReentrantLock();
         this.cargandoDesdeCSV = false;
+        this.hilosCarga = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Establece la cantidad de hilos usados al cargar un archivo CSV.
+     * 
+     * @param hilosCarga Cantidad de hilos (al menos 1).
+     */
+    public void setHilosCarga(int hilosCarga) {
+        if (hilosCarga < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo de carga");
+        }
+        this.hilosCarga = hilosCarga;
+    }
+
+    /**
+     * Activa las cachés de búsqueda por SKU y por nombre, o las desactiva con capacidad 0.
+     * Conviene cuando la mayoría de las consultas se concentran en pocos productos: los aciertos
+     * se resuelven en O(1) sin recorrer los árboles. Al cambiar la capacidad las cachés empiezan vacías.
+     * 
+     * @param capacidad Cantidad máxima de SKU (y, por separado, de nombres) guardados; 0 para desactivarlas.
+     */
+    public void activarCache(int capacidad) {
+        if (capacidad < 0) {
+            throw new IllegalArgumentException("La capacidad de la caché no puede ser negativa");
+        }
+        candado.writeLock().lock();
+        try {
+            cacheSKU = capacidad > 0 ? new CacheReloj<>(capacidad) : null;
+            cacheNombre = capacidad > 0 ? new CacheReloj<>(capacidad) : null;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene la caché de búsqueda por SKU, para consultar sus contadores de aciertos, fallos y desalojos.
+     * 
+     * @return La caché por SKU, o null si está desactivada.
+     */
+    public CacheReloj<String, Producto> getCacheSKU() {
+        return cacheSKU;
+    }
+
+    /**
+     * Obtiene la caché de búsqueda por nombre, para consultar sus contadores de aciertos, fallos y desalojos.
+     * 
+     * @return La caché por nombre, o null si está desactivada.
+     */
+    public CacheReloj<String, Producto[]> getCacheNombre() {
+        return cacheNombre;
+    }
+
+    /**
+     * Activa los filtros de pertenencia de los SKU y los nombres, o los desactiva con tasa 0.
+     * Conviene cuando muchas búsquedas son de claves que no existen (por ejemplo, códigos de otra tienda):
+     * el filtro las descarta en unos nanosegundos sin recorrer el árbol. Una búsqueda de una clave
+     * inexistente llega al árbol solo con la probabilidad indicada. Los filtros se construyen con los
+     * productos actuales, crecen al duplicarse el inventario y se reconstruyen al cargar y al compactar,
+     * que es cuando se olvidan los productos eliminados.
+     * 
+     * @param tasaFalsosPositivos Tasa de falsos positivos, menor que 1 (por ejemplo, 0.01); 0 para desactivarlos.
+     */
+    public void activarFiltros(double tasaFalsosPositivos) {
+        if (!(tasaFalsosPositivos >= 0 && tasaFalsosPositivos < 1)) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        candado.writeLock().lock();
+        try {
+            tasaFiltros = tasaFalsosPositivos;
+            reconstruirFiltros();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el filtro de pertenencia de los SKU, para consultar sus contadores de descartes y falsos positivos.
+     * 
+     * @return El filtro por SKU, o null si está desactivado.
+     */
+    public FiltroBloom getFiltroSKU() {
+        return filtroSKU;
+    }
+
+    /**
+     * Obtiene el filtro de pertenencia de los nombres, para consultar sus contadores de descartes y falsos positivos.
+     * 
+     * @return El filtro por nombre, o null si está desactivado.
+     */
+    public FiltroBloom getFiltroNombre() {
+        return filtroNombre;
+    }
+
+    /**
+     * Activa o desactiva las métricas de las operaciones (cantidad, rendimiento, percentiles de latencia
+     * y comparaciones por búsqueda). Desactivadas, cada operación solo comprueba que no hay métricas.
+     * Al activarlas de nuevo empiezan vacías.
+     * 
+     * @param activas true para registrar las operaciones a partir de ahora.
+     */
+    public void activarMetricas(boolean activas) {
+        metricas = activas ? new MetricasInventario() : null;
+    }
+
+    /**
+     * Obtiene las métricas de las operaciones, para consultarlas desde el programa.
+     * 
+     * @return Las métricas, o null si están desactivadas.
+     */
+    public MetricasInventario getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Genera un resumen de las métricas de las operaciones y del estado de los árboles.
+     * 
+     * @return El resumen en texto.
+     */
+    public String resumenMetricas() {
+        StringBuilder texto = new StringBuilder();
+        candado.readLock().lock();
+        try {
+            texto.append(String.format("Árbol por SKU: %d nodos, altura %d%n", arbolSKU.tamano(), arbolSKU.altura()));
+            texto.append(String.format("Árbol por nombre: %d nodos, altura %d%n", arbolNombre.tamano(), arbolNombre.altura()));
+            texto.append(String.format("%s%n", existencias));
+            if (filtroSKU != null) {
+                texto.append(String.format("Por SKU: %s%n", filtroSKU));
+                texto.append(String.format("Por nombre: %s%n", filtroNombre));
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        MetricasInventario actuales = metricas;
+        texto.append(actuales != null ? actuales.resumen() : "Las métricas están desactivadas.\n");
+        return texto.toString();
+    }
+
+    /**
+     * Obtiene la altura del árbol de productos por SKU (el máximo de comparaciones de una búsqueda por SKU).
+     * 
+     * @return La altura del árbol, 0 si está vacío.
+     */
+    public int alturaPorSKU() {
+        candado.readLock().lock();
+        try {
+            return arbolSKU.altura();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de nombres distintos del inventario (los nodos del árbol por nombre).
+     * 
+     * @return El número de nombres.
+     */
+    public int cantidadNombres() {
+        candado.readLock().lock();
+        try {
+            return arbolNombre.tamano();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene la altura del árbol de productos por nombre.
+     * 
+     * @return La altura del árbol, 0 si está vacío.
+     */
+    public int alturaPorNombre() {
+        candado.readLock().lock();
+        try {
+            return arbolNombre.altura();
+        } finally {
+            candado.readLock().unlock();
+        }
     }
 
     /**
      * Agrega un producto al inventario.
-     * Inserta el producto en los árboles binarios y guarda los cambios en el archivo CSV.
+     * Inserta el producto en los árboles binarios y registra el alta en la bitácora de cambios.
      * 
      * @param producto El producto a agregar.
      */
     public void agregarProducto(Producto producto) {
+        MetricasInventario medidas = metricas;
+        long inicio = medidas != null ? System.nanoTime() : 0;
+        boolean registrado = false;
+        candado.writeLock().lock();
+        try {
+            if (cargandoDesdeCSV) {
+                medidas = null; // Las altas de una carga se miden como parte de ella.
+            }
+            insertarProducto(producto);
+            if (!cargandoDesdeCSV && bitacora != null) {
+                try {
+                    bitacora.registrarAlta(producto);
+                } catch (IOException e) {
+                    Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al registrar el cambio: " + e.getMessage());
+                }
+                registrado = true;
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+        if (registrado) {
+            compactar(true);
+        }
+        if (medidas != null) {
+            medidas.registrar(MetricasInventario.Operacion.AGREGAR, inicio);
+        }
+    }
+
+    // Inserta un producto, o reemplaza al de su mismo SKU, en los árboles, el índice y las cachés.
+    // Se llama con el candado de escritura.
+    private void insertarProducto(Producto producto) {
+        Producto anterior = arbolSKU.buscar(producto.getSku());
         arbolSKU.insertar(producto.getSku(), producto);
-        arbolNombre.insertar(producto.getNombre(), producto);
-        if (!cargandoDesdeCSV) {
-            guardarEnCSV();
+        if (anterior != null) {
+            existencias.retirar(anterior);
+        }
+        existencias.agregar(producto);
+        CacheReloj<String, Producto> cache = cacheSKU;
+        if (cache != null) {
+            cache.invalidar(producto.getSku());
+        }
+        if (anterior != null && retirarNombre(anterior)) {
+            arbolNombre.eliminar(anterior.getNombre());
+        }
+        boolean nombreNuevo = agregarNombre(producto);
+        IndiceNombres indice = indiceNombres;
+        if (indice != null) {
+            if (anterior != null) {
+                indice.retirar(anterior);
+            }
+            indice.agregar(producto);
+        }
+        if (filtroSKU != null) {
+            if (anterior == null) {
+                agregarAFiltros(filtroSKU, filtroSKUEnConstruccion, producto.getSku());
+            }
+            if (nombreNuevo) {
+                agregarAFiltros(filtroNombre, filtroNombreEnConstruccion, producto.getNombre());
+            }
+            if (filtroSKU.saturado() || filtroNombre.saturado()) {
+                reconstruirFiltros();
+            }
+        }
+    }
+
+    // Agrega una clave nueva al filtro vigente y, si una compactación está reconstruyéndolo, también al nuevo.
+    private static void agregarAFiltros(FiltroBloom vigente, FiltroBloom enConstruccion, String clave) {
+        vigente.agregar(clave);
+        if (enConstruccion != null) {
+            enConstruccion.agregar(clave);
+        }
+    }
+
+    // Capacidad de un filtro nuevo: el doble de las claves actuales, para que pueda recibir otras tantas
+    // altas antes de reconstruirse (como un ArrayList al crecer, el costo por alta queda constante).
+    private static int capacidadFiltro(int claves) {
+        return (int) Math.min(Math.max(2L * claves, 1_024), Integer.MAX_VALUE);
+    }
+
+    // Vuelve a construir los filtros con las claves actuales de los árboles, o los quita si están
+    // desactivados. Descarta cualquier reconstrucción en curso. Se llama con el candado de escritura.
+    private void reconstruirFiltros() {
+        filtroSKUEnConstruccion = null;
+        filtroNombreEnConstruccion = null;
+        if (tasaFiltros == 0) {
+            filtroSKU = null;
+            filtroNombre = null;
+            return;
+        }
+        FiltroBloom porSKU = new FiltroBloom(capacidadFiltro(arbolSKU.tamano()), tasaFiltros);
+        FiltroBloom porNombre = new FiltroBloom(capacidadFiltro(arbolNombre.tamano()), tasaFiltros);
+        llenarFiltros(porSKU, porNombre, arbolSKU, arbolNombre);
+        filtroSKU = porSKU;
+        filtroNombre = porNombre;
+    }
+
+    // Agrega a los filtros los SKU y nombres de los árboles indicados (los del inventario, con el candado
+    // tomado, o instantáneas de ellos).
+    private static void llenarFiltros(FiltroBloom porSKU, FiltroBloom porNombre,
+                                      BinaryTree<String, Producto> productos, BinaryTree<String, Producto[]> grupos) {
+        for (Producto producto : productos) {
+            porSKU.agregar(producto.getSku());
+        }
+        for (Producto[] grupo : grupos) {
+            if (grupo.length > 0) {
+                porNombre.agregar(grupo[0].getNombre());
+            }
+        }
+    }
+
+    /**
+     * Aplica un archivo de cambios (delta) con el mismo formato del inventario, sin recargarlo completo.
+     * El archivo se lee fila por fila y se aplica en lotes de LOTE_DELTA filas, tomando el candado de
+     * escritura una vez por lote. Los SKU nuevos se agregan; en los existentes, las tallas del delta
+     * reemplazan solo la cantidad de esas tallas (las demás se conservan), y un nombre o descripción
+     * vacíos conservan el actual. Solo los productos que cambiaron se registran en la bitácora, con una
+     * escritura por lote; el CSV completo no se reescribe salvo que se alcance el límite de compactación.
+     * 
+     * Si el archivo no se puede leer, el error se reporta y queda registrado en el resumen
+     * (ver ResumenDelta.isCompleto); los lotes leídos antes del error ya quedaron aplicados.
+     * 
+     * @param archivoDelta El nombre del archivo CSV con los cambios (la primera línea es el encabezado).
+     * @return El resumen de lo que cambió.
+     */
+    public ResumenDelta aplicarDelta(String archivoDelta) {
+        long inicio = System.nanoTime();
+        ResumenDelta resumen = new ResumenDelta();
+        List<Producto> lote = new ArrayList<>(LOTE_DELTA);
+        boolean registrado = false;
+        try (BufferedReader br = new BufferedReader(new FileReader(archivoDelta))) {
+            String linea = br.readLine(); // Encabezado.
+            while ((linea = br.readLine()) != null) {
+                if (linea.isEmpty()) {
+                    continue;
+                }
+                Producto fila = CargadorCSV.parsearFila(linea, 0, linea.length());
+                if (fila == null) {
+                    resumen.rechazada();
+                    continue;
+                }
+                lote.add(fila);
+                if (lote.size() == LOTE_DELTA) {
+                    registrado |= aplicarLoteDelta(lote, resumen);
+                    lote.clear();
+                }
+            }
+            registrado |= aplicarLoteDelta(lote, resumen);
+        } catch (IOException e) {
+            Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_LECTURA, "Error al leer el archivo de cambios: " + e.getMessage());
+            resumen.fallo(e.getMessage());
+        }
+        if (registrado) {
+            compactar(true);
+        }
+        resumen.setMilisegundos((System.nanoTime() - inicio) / 1_000_000);
+        return resumen;
+    }
+
+    // Aplica un lote de filas de un delta con el candado de escritura. Devuelve true si registró cambios en la bitácora.
+    private boolean aplicarLoteDelta(List<Producto> filas, ResumenDelta resumen) {
+        if (filas.isEmpty()) {
+            return false;
+        }
+        // En orden de SKU, las búsquedas consecutivas comparten los niveles altos de los árboles ya en caché.
+        // El ordenamiento es estable, así que las filas repetidas de un SKU se aplican en el orden del archivo.
+        filas.sort((a, b) -> a.getSku().compareTo(b.getSku()));
+        List<Producto> cambiados = new ArrayList<>(filas.size());
+        candado.writeLock().lock();
+        try {
+            for (Producto fila : filas) {
+                Producto actual = arbolSKU.buscar(fila.getSku());
+                if (actual == null) {
+                    insertarProducto(fila);
+                    resumen.agregado(fila.getSku());
+                    cambiados.add(fila);
+                    continue;
+                }
+                Map<String, Integer> tallas = actual.getTallas();
+                int tallasCambiadas = 0;
+                for (Map.Entry<String, Integer> talla : fila.getTallas().entrySet()) {
+                    if (!talla.getValue().equals(tallas.put(talla.getKey(), talla.getValue()))) {
+                        tallasCambiadas++;
+                    }
+                }
+                String nombre = fila.getNombre().isEmpty() ? actual.getNombre() : fila.getNombre();
+                String descripcion = fila.getDescripcion().isEmpty() ? actual.getDescripcion() : fila.getDescripcion();
+                if (tallasCambiadas == 0 && nombre.equals(actual.getNombre()) && descripcion.equals(actual.getDescripcion())) {
+                    resumen.sinCambios();
+                    continue;
+                }
+                // Igual que en una edición, el producto se reemplaza en lugar de modificarse.
+                Producto nuevo = new Producto(fila.getSku(), nombre, descripcion, tallas);
+                if (nombre.equals(actual.getNombre())) {
+                    reemplazarProducto(actual, nuevo);
+                } else {
+                    insertarProducto(nuevo);
+                }
+                resumen.actualizado(fila.getSku(), tallasCambiadas);
+                cambiados.add(nuevo);
+            }
+            if (bitacora == null || cambiados.isEmpty()) {
+                return false;
+            }
+            try {
+                bitacora.registrarAltas(cambiados);
+            } catch (IOException e) {
+                Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al registrar el cambio: " + e.getMessage());
+            }
+            return true;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ejecuta un grupo de comandos del modo por lotes (ver ProcesadorLotes) en el orden en que llegaron,
+     * con una sola toma del candado de escritura y una sola escritura en la bitácora para todos los
+     * cambios del grupo. El resultado de cada comando queda en el propio comando. A diferencia de las
+     * operaciones individuales, no compacta al alcanzar el límite de cambios: el lote llama a compactar()
+     * una vez al terminar.
+     * 
+     * @param comandos Los comandos a ejecutar (los inválidos se ignoran).
+     */
+    public void ejecutarComandos(List<ComandoLote> comandos) {
+        List<String> lineas = new ArrayList<>(comandos.size());
+        candado.writeLock().lock();
+        try {
+            for (ComandoLote comando : comandos) {
+                String linea = ejecutarComando(comando);
+                if (linea != null) {
+                    lineas.add(linea);
+                }
+            }
+            if (!cargandoDesdeCSV && bitacora != null && !lineas.isEmpty()) {
+                try {
+                    bitacora.registrarLineas(lineas);
+                } catch (IOException e) {
+                    Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al registrar el cambio: " + e.getMessage());
+                }
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // Aplica un comando del lote y devuelve la línea de bitácora del cambio, o null si no cambió nada.
+    // Se llama con el candado de escritura, así que las ventas no necesitan sincronizarse con la bitácora.
+    private String ejecutarComando(ComandoLote comando) {
+        switch (comando.getTipo()) {
+            case AGREGAR: {
+                insertarProducto(comando.getProducto());
+                comando.resuelto(true);
+                return BitacoraCambios.lineaAlta(comando.getProducto());
+            }
+            case EDITAR: {
+                Producto anterior = arbolSKU.buscar(comando.getClave());
+                if (anterior == null) {
+                    comando.resuelto(false);
+                    return null;
+                }
+                String descripcion = comando.getDescripcion().isEmpty() ? anterior.getDescripcion() : comando.getDescripcion();
+                Producto nuevo = comando.getTallas().isEmpty()
+                    ? new Producto(anterior.getSku(), anterior.getNombre(), descripcion, anterior.getTallas())
+                    : new Producto(anterior.getSku(), anterior.getNombre(), descripcion, comando.getTallas());
+                reemplazarProducto(anterior, nuevo);
+                comando.resuelto(true);
+                return BitacoraCambios.lineaEdicion(nuevo.getSku(), descripcion, nuevo.getTallas());
+            }
+            case BUSCAR: {
+                Producto producto = productoPorSKU(comando.getClave());
+                comando.encontrados(producto != null ? new Producto[] {producto} : null);
+                return null;
+            }
+            case NOMBRE: {
+                Producto[] productos = productosPorNombre(comando.getClave());
+                comando.encontrados(productos != null && productos.length > 0 ? productos : null);
+                return null;
+            }
+            case VENDER:
+            case DEVOLVER: {
+                Producto producto = productoPorSKU(comando.getClave());
+                boolean descontar = comando.getTipo() == ComandoLote.Tipo.VENDER;
+                if (producto != null) {
+                    producto.conservarPara(instantaneaEnCurso);
+                }
+                int resultado = producto == null ? -1
+                    : descontar ? producto.descontar(comando.getTalla(), comando.getCantidad())
+                    : producto.reponer(comando.getTalla(), comando.getCantidad());
+                if (resultado < 0) {
+                    comando.resuelto(false, 0);
+                    return null;
+                }
+                existencias.registrarCambio(producto, comando.getTalla(), descontar ? -comando.getCantidad() : comando.getCantidad(), resultado);
+                comando.resuelto(true, resultado);
+                return BitacoraCambios.lineaVenta(producto.getSku(), comando.getTalla(), resultado);
+            }
+            case ELIMINAR: {
+                Producto producto = arbolSKU.buscar(comando.getClave());
+                if (producto == null) {
+                    comando.resuelto(false);
+                    return null;
+                }
+                quitarProductos(List.of(producto), List.of(producto.getSku()));
+                comando.resuelto(true);
+                return BitacoraCambios.lineaBaja(producto.getSku());
+            }
+            default:
+                return null;
         }
     }
 
@@ -53,101 +615,1105 @@ public class Inventario {
      * @return El producto encontrado o null si no existe.
      */
     public Producto buscarPorSKU(String sku) {
-        return arbolSKU.buscar(sku);
+        MetricasInventario medidas = metricas;
+        long inicio = medidas != null ? System.nanoTime() : 0;
+        candado.readLock().lock();
+        try {
+            return productoPorSKU(sku);
+        } finally {
+            candado.readLock().unlock();
+            if (medidas != null) {
+                medidas.registrar(MetricasInventario.Operacion.BUSCAR_SKU, inicio);
+            }
+        }
+    }
+
+    // Busca un producto por SKU pasando primero por la caché, si está activa. Se llama con el candado de lectura.
+    // Con el filtro activo, un SKU que seguro no existe se descarta antes de consultar la caché o el árbol.
+    private Producto productoPorSKU(String sku) {
+        FiltroBloom filtro = filtroSKU;
+        if (filtro != null && !filtro.puedeContener(sku)) {
+            return null;
+        }
+        CacheReloj<String, Producto> cache = cacheSKU;
+        if (cache == null) {
+            return confirmar(filtro, buscarEnArbol(arbolSKU, sku));
+        }
+        Producto producto = cache.obtener(sku);
+        if (producto == null) {
+            producto = confirmar(filtro, buscarEnArbol(arbolSKU, sku));
+            if (producto != null) {
+                cache.guardar(sku, producto);
+            }
+        }
+        return producto;
+    }
+
+    // Busca los productos de un nombre pasando primero por la caché, si está activa. Se llama con el candado de lectura.
+    private Producto[] productosPorNombre(String nombre) {
+        FiltroBloom filtro = filtroNombre;
+        if (filtro != null && !filtro.puedeContener(nombre)) {
+            return null;
+        }
+        CacheReloj<String, Producto[]> cache = cacheNombre;
+        if (cache == null) {
+            return confirmar(filtro, buscarEnArbol(arbolNombre, nombre));
+        }
+        Producto[] productos = cache.obtener(nombre);
+        if (productos == null) {
+            productos = confirmar(filtro, buscarEnArbol(arbolNombre, nombre));
+            if (productos != null) {
+                cache.guardar(nombre, productos);
+            }
+        }
+        return productos;
+    }
+
+    // Devuelve el resultado de una búsqueda que pasó el filtro; si la clave no existía, lo cuenta como falso positivo.
+    private static <V> V confirmar(FiltroBloom filtro, V encontrado) {
+        if (encontrado == null && filtro != null) {
+            filtro.registrarFalsoPositivo();
+        }
+        return encontrado;
+    }
+
+    // Busca en un árbol; con las métricas activas también registra las comparaciones de claves.
+    private <V> V buscarEnArbol(BinaryTree<String, V> arbol, String clave) {
+        MetricasInventario medidas = metricas;
+        return medidas == null ? arbol.buscar(clave) : arbol.buscar(clave, medidas::registrarComparaciones);
     }
 
     /**
      * Busca un producto en el inventario por su nombre.
+     * Si varios productos comparten el nombre, devuelve el de menor SKU.
      * 
      * @param nombre El nombre del producto a buscar.
      * @return El producto encontrado o null si no existe.
      */
     public Producto buscarPorNombre(String nombre) {
-        return arbolNombre.buscar(nombre);
+        MetricasInventario medidas = metricas;
+        long inicio = medidas != null ? System.nanoTime() : 0;
+        candado.readLock().lock();
+        try {
+            Producto[] productos = productosPorNombre(nombre);
+            return productos != null && productos.length > 0 ? productos[0] : null;
+        } finally {
+            candado.readLock().unlock();
+            if (medidas != null) {
+                medidas.registrar(MetricasInventario.Operacion.BUSCAR_NOMBRE, inicio);
+            }
+        }
+    }
+
+    /**
+     * Busca todos los productos que tienen exactamente el nombre indicado, en O(log n + k).
+     * 
+     * @param nombre El nombre de los productos a buscar.
+     * @return Los productos con ese nombre ordenados por SKU (vacía si no hay ninguno).
+     */
+    public List<Producto> buscarTodosPorNombre(String nombre) {
+        MetricasInventario medidas = metricas;
+        long inicio = medidas != null ? System.nanoTime() : 0;
+        candado.readLock().lock();
+        try {
+            Producto[] productos = productosPorNombre(nombre);
+            return productos != null ? List.of(productos) : List.of();
+        } finally {
+            candado.readLock().unlock();
+            if (medidas != null) {
+                medidas.registrar(MetricasInventario.Operacion.BUSCAR_NOMBRE, inicio);
+            }
+        }
+    }
+
+    // Agrega el producto al arreglo de su nombre, conservando el orden por SKU.
+    // Devuelve true si el nombre no estaba en el árbol.
+    private boolean agregarNombre(Producto producto) {
+        invalidarNombre(producto.getNombre());
+        Producto[] actuales = arbolNombre.buscar(producto.getNombre());
+        if (actuales == null) {
+            arbolNombre.insertar(producto.getNombre(), new Producto[] {producto});
+            return true;
+        }
+        int posicion = posicionPorSKU(actuales, producto.getSku());
+        Producto[] productos = new Producto[actuales.length + 1];
+        System.arraycopy(actuales, 0, productos, 0, posicion);
+        productos[posicion] = producto;
+        System.arraycopy(actuales, posicion, productos, posicion + 1, actuales.length - posicion);
+        arbolNombre.insertar(producto.getNombre(), productos);
+        return false;
+    }
+
+    // Quita el producto del arreglo de su nombre. Devuelve true si el nombre quedó sin productos,
+    // para que el llamador elimine el nombre del árbol (uno por uno o en lote).
+    private boolean retirarNombre(Producto producto) {
+        invalidarNombre(producto.getNombre());
+        Producto[] actuales = arbolNombre.buscar(producto.getNombre());
+        if (actuales == null) {
+            return false;
+        }
+        for (int i = 0; i < actuales.length; i++) {
+            if (actuales[i] == producto) {
+                Producto[] productos = new Producto[actuales.length - 1];
+                System.arraycopy(actuales, 0, productos, 0, i);
+                System.arraycopy(actuales, i + 1, productos, i, productos.length - i);
+                arbolNombre.insertar(producto.getNombre(), productos);
+                return productos.length == 0;
+            }
+        }
+        return false;
+    }
+
+    // Descarta de la caché el arreglo de un nombre cuyos productos van a cambiar.
+    private void invalidarNombre(String nombre) {
+        CacheReloj<String, Producto[]> cache = cacheNombre;
+        if (cache != null) {
+            cache.invalidar(nombre);
+        }
+    }
+
+    /**
+     * Elimina un producto del inventario (por ejemplo, un SKU descontinuado).
+     * Lo quita de los índices por SKU y por nombre y registra la baja en la bitácora de cambios.
+     * 
+     * @param sku El SKU del producto a eliminar.
+     * @return true si el producto existía y se eliminó.
+     */
+    public boolean eliminarProducto(String sku) {
+        return eliminarProductos(List.of(sku)) == 1;
+    }
+
+    /**
+     * Elimina varios productos del inventario, por ejemplo al retirar una temporada completa.
+     * Los árboles se reconstruyen una sola vez en lugar de rebalancearse por cada SKU, y todas
+     * las bajas se registran en la bitácora con una sola escritura.
+     * 
+     * @param skus Los SKU de los productos a eliminar (los que no existen se ignoran).
+     * @return La cantidad de productos eliminados.
+     */
+    public int eliminarProductos(Collection<String> skus) {
+        int eliminados;
+        boolean registrado = false;
+        candado.writeLock().lock();
+        try {
+            List<Producto> productos = new ArrayList<>();
+            List<String> existentes = new ArrayList<>();
+            for (String sku : new LinkedHashSet<>(skus)) {
+                Producto producto = arbolSKU.buscar(sku);
+                if (producto != null) {
+                    productos.add(producto);
+                    existentes.add(sku);
+                }
+            }
+            eliminados = quitarProductos(productos, existentes);
+            if (!cargandoDesdeCSV && bitacora != null && !existentes.isEmpty()) {
+                try {
+                    bitacora.registrarBajas(existentes);
+                } catch (IOException e) {
+                    Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al registrar el cambio: " + e.getMessage());
+                }
+                registrado = true;
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+        if (registrado) {
+            compactar(true);
+        }
+        return eliminados;
+    }
+
+    // Quita productos existentes de los árboles, el índice, las cachés y los totales de existencias.
+    // Se llama con el candado de escritura.
+    private int quitarProductos(List<Producto> productos, List<String> skus) {
+        int eliminados = arbolSKU.eliminarLote(skus);
+        CacheReloj<String, Producto> cache = cacheSKU;
+        if (cache != null) {
+            for (String sku : skus) {
+                cache.invalidar(sku);
+            }
+        }
+        List<String> nombresVacios = new ArrayList<>();
+        IndiceNombres indice = indiceNombres;
+        for (Producto producto : productos) {
+            existencias.retirar(producto);
+            if (retirarNombre(producto)) {
+                nombresVacios.add(producto.getNombre());
+            }
+            if (indice != null) {
+                indice.retirar(producto);
+            }
+        }
+        arbolNombre.eliminarLote(nombresVacios);
+        return eliminados;
+    }
+
+    // Búsqueda binaria de la posición que corresponde a un SKU dentro de un arreglo ordenado por SKU.
+    private static int posicionPorSKU(Producto[] productos, String sku) {
+        int bajo = 0;
+        int alto = productos.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (productos[medio].getSku().compareTo(sku) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Busca los productos cuyo nombre empieza con el texto indicado, sin distinguir mayúsculas ni acentos.
+     * 
+     * @param prefijo El inicio del nombre a buscar.
+     * @param limite Cantidad máxima de resultados.
+     * @return Hasta "limite" productos, en orden alfabético.
+     */
+    public List<Producto> buscarPorPrefijo(String prefijo, int limite) {
+        candado.readLock().lock();
+        try {
+            return indiceNombres().buscarPorPrefijo(prefijo, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los productos cuyo nombre contiene el texto indicado, sin distinguir mayúsculas ni acentos.
+     * Los nombres que empiezan con el texto aparecen primero.
+     * 
+     * @param texto El texto a buscar dentro del nombre.
+     * @param limite Cantidad máxima de resultados.
+     * @return Hasta "limite" productos cuyo nombre contiene el texto.
+     */
+    public List<Producto> buscarPorContenido(String texto, int limite) {
+        candado.readLock().lock();
+        try {
+            return indiceNombres().buscarPorContenido(texto, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de productos distintos (por SKU) del inventario.
+     * 
+     * @return El número de productos.
+     */
+    public int cantidadProductos() {
+        candado.readLock().lock();
+        try {
+            return arbolSKU.tamano();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el total de unidades en existencia, de todas las tallas de todos los productos, en O(1).
+     * Las ventas simultáneas pueden reflejarse un instante después en el total.
+     * 
+     * @return El número de unidades.
+     */
+    public long totalUnidades() {
+        candado.readLock().lock();
+        try {
+            return existencias.getTotal();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el total de unidades de una talla en todo el catálogo, en O(1).
+     * 
+     * @param talla La talla a consultar.
+     * @return El número de unidades (0 si ningún producto tiene la talla).
+     */
+    public long unidadesPorTalla(String talla) {
+        candado.readLock().lock();
+        try {
+            return existencias.getTotal(talla);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el total de unidades de cada talla en todo el catálogo, sin recorrer los productos.
+     * 
+     * @return Un mapa de talla a unidades, con las tallas que tiene al menos un producto.
+     */
+    public Map<String, Long> unidadesPorTalla() {
+        candado.readLock().lock();
+        try {
+            return existencias.getTotalesPorTalla();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene, en orden de SKU, los productos con menos unidades que el umbral en alguna talla,
+     * en O(log n + k) sin recorrer el catálogo. Para paginar se pasa el último SKU recibido.
+     * 
+     * @param despuesDe SKU a partir del cual continuar (exclusivo), o null para empezar desde el primero.
+     * @param limite Cantidad máxima de productos.
+     * @return Los productos con pocas existencias.
+     */
+    public List<Producto> productosConPocasExistencias(String despuesDe, int limite) {
+        candado.readLock().lock();
+        try {
+            return existencias.pocasExistencias(despuesDe, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de productos con menos unidades que el umbral en alguna talla, en O(1).
+     * 
+     * @return El número de productos con pocas existencias.
+     */
+    public int cantidadConPocasExistencias() {
+        candado.readLock().lock();
+        try {
+            return existencias.getCantidadPocasExistencias();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cambia el umbral de pocas existencias (por defecto, ExistenciasInventario.UMBRAL_POR_DEFECTO)
+     * y reconstruye el índice recorriendo los productos una vez.
+     * 
+     * @param umbral Un producto tiene pocas existencias si alguna talla tiene menos unidades (0 para ninguno).
+     */
+    public void setUmbralPocasExistencias(int umbral) {
+        if (umbral < 0) {
+            throw new IllegalArgumentException("El umbral de existencias no puede ser negativo");
+        }
+        candado.writeLock().lock();
+        try {
+            existencias.setUmbral(umbral, arbolSKU);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el umbral de pocas existencias.
+     * 
+     * @return Las unidades por debajo de las cuales una talla tiene pocas existencias.
+     */
+    public int getUmbralPocasExistencias() {
+        return existencias.getUmbral();
     }
 
     /**
      * Lista todos los productos del inventario ordenados por SKU.
-     * Imprime los productos en orden ascendente según su SKU.
+     * Imprime los productos en orden ascendente según su SKU, recorriendo el árbol
+     * de forma perezosa sin copiar el catálogo.
      */
     public void listarPorSKU() {
-        System.out.println("Productos ordenados por SKU:");
-        arbolSKU.inOrder();
+        candado.readLock().lock();
+        try {
+            System.out.println("Productos ordenados por SKU:");
+            for (Producto producto : arbolSKU) {
+                System.out.println(producto.getSku() + ": " + producto);
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
     }
 
     /**
      * Lista todos los productos del inventario ordenados por nombre.
-     * Imprime los productos en orden ascendente según su nombre.
+     * Imprime los productos en orden ascendente según su nombre, recorriendo el árbol
+     * de forma perezosa sin copiar el catálogo.
      */
     public void listarPorNombre() {
-        System.out.println("Productos ordenados por Nombre:");
-        arbolNombre.inOrder();
+        candado.readLock().lock();
+        try {
+            System.out.println("Productos ordenados por Nombre:");
+            for (Producto[] productos : arbolNombre) {
+                for (Producto producto : productos) {
+                    System.out.println(producto.getNombre() + ": " + producto);
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene una página de productos ordenados por SKU.
+     * El salto a la página cuesta O(log n), sin recorrer las páginas anteriores.
+     * 
+     * @param pagina El número de página, empezando en 0.
+     * @param tamanoPagina La cantidad de productos por página.
+     * @return Los productos de la página (vacía si la página no existe).
+     */
+    public List<Producto> paginaPorSKU(int pagina, int tamanoPagina) {
+        candado.readLock().lock();
+        try {
+            return pagina(arbolSKU, pagina, tamanoPagina);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene una página de productos ordenados por nombre (y por SKU entre los de igual nombre).
+     * Las páginas se cuentan por nombres distintos: los productos que comparten un nombre aparecen
+     * juntos en la misma página, por lo que una página puede tener algunos productos de más.
+     * El salto a la página cuesta O(log n), sin recorrer las páginas anteriores.
+     * 
+     * @param pagina El número de página, empezando en 0.
+     * @param tamanoPagina La cantidad de nombres por página.
+     * @return Los productos de la página (vacía si la página no existe).
+     */
+    public List<Producto> paginaPorNombre(int pagina, int tamanoPagina) {
+        candado.readLock().lock();
+        try {
+            List<Producto> productos = new ArrayList<>(tamanoPagina);
+            for (Producto[] grupo : pagina(arbolNombre, pagina, tamanoPagina)) {
+                productos.addAll(Arrays.asList(grupo));
+            }
+            return productos;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene los productos cuyo SKU está entre dos valores, ambos incluidos.
+     * 
+     * @param desde El SKU inicial.
+     * @param hasta El SKU final.
+     * @param limite Cantidad máxima de resultados.
+     * @return Hasta "limite" productos del rango, en orden ascendente de SKU.
+     */
+    public List<Producto> rangoPorSKU(String desde, String hasta, int limite) {
+        candado.readLock().lock();
+        try {
+            List<Producto> productos = new ArrayList<>();
+            Iterator<Producto> iterador = arbolSKU.rango(desde, true, hasta, true);
+            while (iterador.hasNext() && productos.size() < limite) {
+                productos.add(iterador.next());
+            }
+            return productos;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // Copia los valores de una página del árbol indicado.
+    private static <V> List<V> pagina(BinaryTree<String, V> arbol, int pagina, int tamanoPagina) {
+        if (pagina < 0 || tamanoPagina <= 0) {
+            throw new IllegalArgumentException("La página y su tamaño deben ser positivos");
+        }
+        List<V> productos = new ArrayList<>(tamanoPagina);
+        long inicio = (long) pagina * tamanoPagina;
+        if (inicio >= arbol.tamano()) {
+            return productos;
+        }
+        Iterator<V> iterador = arbol.desdePosicion((int) inicio);
+        while (iterador.hasNext() && productos.size() < tamanoPagina) {
+            productos.add(iterador.next());
+        }
+        return productos;
     }
 
     /**
      * Carga productos desde un archivo CSV al inventario.
      * Cada línea del archivo representa un producto con formato "SKU,Nombre,Descripción,Cantidad por talla".
+     * Las filas se leen en bloques y se convierten en productos en paralelo (ver CargadorCSV).
+     * Si el inventario está vacío, los árboles se construyen de una sola vez en tiempo lineal, a partir
+     * de la copia binaria (ver SnapshotBinario) cuando esta corresponde al CSV actual.
+     * Después se reproducen los cambios pendientes de la bitácora asociada, si existe.
      * 
      * @param nombreArchivo El nombre del archivo CSV a cargar.
      */
     public void cargarDesdeCSV(String nombreArchivo) {
+        // Se espera a que termine cualquier compactación en curso, que aún usa la bitácora y el CSV actuales.
+        MetricasInventario medidas = metricas;
+        long inicio = medidas != null ? System.nanoTime() : 0;
+        compactacion.lock();
+        try {
+            cargarDesdeCSVSinCompactar(nombreArchivo);
+        } finally {
+            compactacion.unlock();
+        }
+        if (medidas != null) {
+            medidas.registrar(MetricasInventario.Operacion.CARGAR, inicio);
+        }
+    }
+
+    // Carga el CSV; se llama con el monitor de compactación tomado.
+    private void cargarDesdeCSVSinCompactar(String nombreArchivo) {
+        candado.writeLock().lock();
+        cerrarBitacora();
         this.archivoCSV = nombreArchivo;
         this.cargandoDesdeCSV = true;
-        try (BufferedReader br = new BufferedReader(new FileReader(nombreArchivo))) {
-            String linea;
-            boolean primeraLinea = true;
-            while ((linea = br.readLine()) != null) {
-                if (primeraLinea) {
-                    primeraLinea = false;
-                    continue;
-                }
-                String[] datos = linea.split(",");
-                if (datos.length == 4) {
-                    Producto producto = new Producto(datos[0], datos[1], datos[2], datos[3]);
-                    agregarProducto(producto);
+        try {
+            boolean vacio = arbolSKU.tamano() == 0 && arbolNombre.tamano() == 0;
+            SnapshotBinario.Contenido copia = vacio ? SnapshotBinario.cargar(nombreArchivo) : null;
+            if (copia != null) {
+                construirArboles(copia);
+            } else {
+                List<Producto> productos = new CargadorCSV(hilosCarga).cargar(nombreArchivo);
+                if (vacio) {
+                    construirArboles(productos);
                 } else {
-                    System.out.println("Formato inválido en: " + linea);
+                    for (Producto producto : productos) {
+                        agregarProducto(producto);
+                    }
                 }
             }
+            int recuperados = reproducirBitacora();
             System.out.println("Inventario cargado exitosamente desde " + nombreArchivo);
+            bitacora = new BitacoraCambios(BitacoraCambios.rutaPara(nombreArchivo));
+            if (recuperados > 0) {
+                System.out.println("Se recuperaron " + recuperados + " cambios de la bitácora.");
+                compactar(false);
+            } else if (vacio && copia == null) {
+                guardarCopiaBinaria(archivoCSV, arbolSKU, arbolNombre, 0);
+            }
         } catch (IOException e) {
             System.out.println("Error al leer el archivo: " + e.getMessage());
         } finally {
             this.cargandoDesdeCSV = false;
+            candado.writeLock().unlock();
+        }
+    }
+
+    // Aplica sobre el inventario los cambios registrados en la bitácora del CSV actual.
+    // Se llama durante la carga, con el candado de escritura tomado (lo exige actualizarCantidadTalla).
+    private int reproducirBitacora() throws IOException {
+        File archivoBitacora = new File(BitacoraCambios.rutaPara(archivoCSV));
+        if (!archivoBitacora.exists()) {
+            return 0;
+        }
+        int aplicados = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(archivoBitacora))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                String[] datos = linea.split(",", -1);
+                if (datos[0].equals(BitacoraCambios.ALTA) && datos.length == 5) {
+                    agregarProducto(new Producto(datos[1], datos[2], datos[3], datos[4]));
+                    aplicados++;
+                } else if (datos[0].equals(BitacoraCambios.EDICION) && datos.length == 4) {
+                    Producto producto = arbolSKU.buscar(datos[1]);
+                    if (producto != null) {
+                        reemplazarProducto(producto, new Producto(producto.getSku(), producto.getNombre(), datos[2], datos[3]));
+                    }
+                    aplicados++;
+                } else if (datos[0].equals(BitacoraCambios.BAJA) && datos.length == 2) {
+                    eliminarProducto(datos[1]);
+                    aplicados++;
+                } else if (datos[0].equals(BitacoraCambios.VENTA) && datos.length == 4) {
+                    Producto producto = arbolSKU.buscar(datos[1]);
+                    if (producto != null) {
+                        existencias.retirar(producto);
+                        producto.actualizarCantidadTalla(datos[2], Integer.parseInt(datos[3]));
+                        existencias.agregar(producto);
+                    }
+                    aplicados++;
+                } else {
+                    // Una línea incompleta al final indica una escritura interrumpida.
+                    Diagnosticos.reportar(Diagnosticos.Tipo.BITACORA_INVALIDA, "Entrada de bitácora inválida: " + linea);
+                }
+            }
+        }
+        return aplicados;
+    }
+
+    // Construye ambos árboles en bloque a partir de los productos leídos.
+    private void construirArboles(List<Producto> productos) {
+        List<String> skus = new ArrayList<>(productos.size());
+        for (Producto producto : productos) {
+            skus.add(producto.getSku());
+        }
+        arbolSKU.insertarLote(skus, productos);
+        // Los productos vigentes (sin SKU repetidos) ya están ordenados por SKU; el ordenamiento
+        // por nombre es estable, así que cada grupo de nombre queda ordenado por SKU.
+        List<Producto> porNombre = arbolSKU.valoresEnOrden();
+        porNombre.sort((a, b) -> a.getNombre().compareTo(b.getNombre()));
+        construirArbolNombres(porNombre);
+        indiceNombres = null;
+        limpiarCaches();
+        reconstruirFiltros();
+        existencias.reconstruir(arbolSKU);
+    }
+
+    // Agrupa los productos consecutivos con el mismo nombre y construye el árbol de nombres en bloque.
+    private void construirArbolNombres(List<Producto> porNombre) {
+        List<String> nombres = new ArrayList<>();
+        List<Producto[]> grupos = new ArrayList<>();
+        int inicio = 0;
+        while (inicio < porNombre.size()) {
+            String nombre = porNombre.get(inicio).getNombre();
+            int fin = inicio + 1;
+            while (fin < porNombre.size() && porNombre.get(fin).getNombre().equals(nombre)) {
+                fin++;
+            }
+            nombres.add(nombre);
+            grupos.add(porNombre.subList(inicio, fin).toArray(new Producto[0]));
+            inicio = fin;
+        }
+        arbolNombre.insertarLote(nombres, grupos);
+    }
+
+    // Construye ambos árboles a partir de una copia binaria, que ya trae ambos órdenes.
+    private void construirArboles(SnapshotBinario.Contenido copia) {
+        List<String> skus = new ArrayList<>(copia.productos.size());
+        for (Producto producto : copia.productos) {
+            skus.add(producto.getSku());
+        }
+        List<Producto> porNombre = new ArrayList<>(copia.ordenNombres.length);
+        for (int posicion : copia.ordenNombres) {
+            porNombre.add(copia.productos.get(posicion));
+        }
+        arbolSKU.insertarLote(skus, copia.productos);
+        construirArbolNombres(porNombre);
+        indiceNombres = null;
+        limpiarCaches();
+        reconstruirFiltros();
+        existencias.reconstruir(arbolSKU);
+    }
+
+    // Vacía las cachés después de reconstruir los árboles en bloque.
+    private void limpiarCaches() {
+        CacheReloj<String, Producto> cache = cacheSKU;
+        if (cache != null) {
+            cache.limpiar();
+        }
+        CacheReloj<String, Producto[]> cachePorNombre = cacheNombre;
+        if (cachePorNombre != null) {
+            cachePorNombre.limpiar();
+        }
+    }
+
+    // Devuelve el índice de nombres, construyéndolo con los productos vigentes si aún no existe.
+    // Se llama con el candado de lectura, por lo que ningún cambio ocurre mientras se construye.
+    private IndiceNombres indiceNombres() {
+        IndiceNombres indice = indiceNombres;
+        if (indice == null) {
+            synchronized (candado) {
+                indice = indiceNombres;
+                if (indice == null) {
+                    indice = new IndiceNombres();
+                    for (Producto producto : arbolSKU.valoresEnOrden()) {
+                        indice.agregar(producto);
+                    }
+                    indiceNombres = indice;
+                }
+            }
+        }
+        return indice;
+    }
+
+    // Escribe junto al CSV la copia binaria del contenido de los árboles indicados (los del inventario,
+    // con el candado tomado, o instantáneas de ellos) con las existencias de la instantánea de exportación.
+    private static void guardarCopiaBinaria(String archivoCSV, BinaryTree<String, Producto> porSKU,
+                                            BinaryTree<String, Producto[]> porNombre, long instantanea) {
+        List<Producto> productos = porSKU.valoresEnOrden();
+        Map<Producto, Integer> posiciones = new IdentityHashMap<>(productos.size());
+        for (int i = 0; i < productos.size(); i++) {
+            posiciones.put(productos.get(i), i);
+        }
+        int[] ordenNombres = new int[productos.size()];
+        int total = 0;
+        for (Producto[] grupo : porNombre) {
+            for (Producto producto : grupo) {
+                Integer posicion = posiciones.get(producto);
+                if (posicion != null && total < ordenNombres.length) {
+                    ordenNombres[total++] = posicion;
+                }
+            }
+        }
+        try {
+            SnapshotBinario.guardar(archivoCSV, productos, Arrays.copyOf(ordenNombres, total), instantanea);
+        } catch (IOException e) {
+            Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al guardar la copia binaria: " + e.getMessage());
         }
     }
 
     /**
      * Edita un producto existente en el inventario.
-     * Actualiza la descripción y las tallas del producto, y guarda los cambios en el archivo CSV.
+     * Actualiza la descripción y las tallas del producto, y registra la edición en la bitácora de cambios.
      * 
      * @param sku El SKU del producto a editar.
      * @param nuevaDescripcion La nueva descripción del producto.
      * @param nuevasTallas El nuevo mapa de tallas y cantidades.
      */
     public void editarProducto(String sku, String nuevaDescripcion, Map<String, Integer> nuevasTallas) {
-        Producto producto = buscarPorSKU(sku);
-        if (producto != null) {
-            producto.setDescripcion(nuevaDescripcion);
-            producto.setTallas(nuevasTallas);
-            arbolSKU.insertar(sku, producto);
-            arbolNombre.insertar(producto.getNombre(), producto);
-            guardarEnCSV();
+        MetricasInventario medidas = metricas;
+        long inicio = medidas != null ? System.nanoTime() : 0;
+        boolean registrado = false;
+        candado.writeLock().lock();
+        try {
+            Producto producto = arbolSKU.buscar(sku);
+            if (producto != null) {
+                // Se reemplaza el producto en lugar de modificarlo, para que las instantáneas en uso
+                // (por ejemplo, la de una exportación) sigan viendo la versión anterior completa.
+                reemplazarProducto(producto, new Producto(sku, producto.getNombre(), nuevaDescripcion, nuevasTallas));
+                if (bitacora != null) {
+                    try {
+                        bitacora.registrarEdicion(sku, nuevaDescripcion, nuevasTallas);
+                    } catch (IOException e) {
+                        Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al registrar el cambio: " + e.getMessage());
+                    }
+                    registrado = true;
+                }
+            } else {
+                System.out.println("Producto con SKU " + sku + " no encontrado.");
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+        if (registrado) {
+            compactar(true);
+        }
+        if (medidas != null) {
+            medidas.registrar(MetricasInventario.Operacion.EDITAR, inicio);
+        }
+    }
+
+    // Sustituye un producto por otro con el mismo SKU y nombre en los árboles, el índice y las cachés.
+    // Se llama con el candado de escritura.
+    private void reemplazarProducto(Producto anterior, Producto nuevo) {
+        arbolSKU.insertar(nuevo.getSku(), nuevo);
+        existencias.retirar(anterior);
+        existencias.agregar(nuevo);
+        Producto[] grupo = arbolNombre.buscar(nuevo.getNombre());
+        if (grupo != null) {
+            Producto[] reemplazado = grupo.clone();
+            for (int i = 0; i < reemplazado.length; i++) {
+                if (reemplazado[i] == anterior) {
+                    reemplazado[i] = nuevo;
+                }
+            }
+            arbolNombre.insertar(nuevo.getNombre(), reemplazado);
+        }
+        invalidarNombre(nuevo.getNombre());
+        CacheReloj<String, Producto> cache = cacheSKU;
+        if (cache != null) {
+            cache.invalidar(nuevo.getSku());
+        }
+        IndiceNombres indice = indiceNombres;
+        if (indice != null) {
+            indice.retirar(anterior);
+            indice.agregar(nuevo);
+        }
+    }
+
+    /**
+     * Compacta el inventario: reescribe el CSV completo y su copia binaria con el estado actual,
+     * y vacía la bitácora.
+     * No hace nada si el inventario no está asociado a un archivo CSV.
+     */
+    public void compactar() {
+        compactar(false);
+    }
+
+    /**
+     * Vende (o reserva) unidades de una talla de un producto de forma atómica.
+     * Solo descuenta si hay existencias suficientes; varias ventas simultáneas sobre el mismo
+     * producto nunca dejan la cantidad por debajo de cero. El cambio se registra en la bitácora
+     * sin reescribir el CSV.
+     * 
+     * @param sku El SKU del producto.
+     * @param talla La talla a vender.
+     * @param cantidad Las unidades a vender (mayor que cero).
+     * @return La cantidad que queda en la talla después de la venta, o -1 si el producto o la talla
+     *         no existen o no hay existencias suficientes (en cuyo caso no se descuenta nada).
+     */
+    public int vender(String sku, String talla, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a vender debe ser mayor que cero");
+        }
+        return cambiarExistencias(sku, talla, cantidad, true);
+    }
+
+    /**
+     * Devuelve unidades a una talla de un producto, por ejemplo al cancelar una venta o liberar una reserva.
+     * 
+     * @param sku El SKU del producto.
+     * @param talla La talla a reponer.
+     * @param cantidad Las unidades a devolver (mayor que cero).
+     * @return La cantidad resultante en la talla, o -1 si el producto o la talla no existen.
+     */
+    public int devolver(String sku, String talla, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a devolver debe ser mayor que cero");
+        }
+        return cambiarExistencias(sku, talla, cantidad, false);
+    }
+
+    // Descuenta o repone existencias bajo el candado de lectura: los árboles no cambian, y el
+    // contador de la talla se actualiza de forma atómica. Con bitácora, la actualización y su
+    // registro se hacen juntos para que la bitácora conserve el orden real de los cambios.
+    private int cambiarExistencias(String sku, String talla, int cantidad, boolean descontar) {
+        boolean registrado = false;
+        int resultado;
+        candado.readLock().lock();
+        try {
+            Producto producto = productoPorSKU(sku);
+            if (producto == null) {
+                return -1;
+            }
+            producto.conservarPara(instantaneaEnCurso);
+            BitacoraCambios actual = bitacora;
+            if (actual == null) {
+                resultado = descontar ? producto.descontar(talla, cantidad) : producto.reponer(talla, cantidad);
+                if (resultado < 0) {
+                    return -1;
+                }
+                existencias.registrarCambio(producto, talla, descontar ? -cantidad : cantidad, resultado);
+                return resultado;
+            }
+            synchronized (actual) {
+                resultado = descontar ? producto.descontar(talla, cantidad) : producto.reponer(talla, cantidad);
+                if (resultado < 0) {
+                    return -1;
+                }
+                existencias.registrarCambio(producto, talla, descontar ? -cantidad : cantidad, resultado);
+                try {
+                    actual.registrarVenta(sku, talla, resultado);
+                } catch (IOException e) {
+                    Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al registrar el cambio: " + e.getMessage());
+                }
+                registrado = true;
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        if (registrado) {
+            compactar(true);
+        }
+        return resultado;
+    }
+
+    // Compacta siempre, o solo cuando la bitácora alcanzó el límite de cambios acumulados.
+    // Los candados solo se toman para marcar la bitácora y tomar las instantáneas de los árboles (O(1));
+    // la escritura del CSV y de la copia binaria no bloquea consultas ni escrituras. Si ya hay una
+    // compactación en curso, la compactación por límite no la espera: la siguiente escritura lo reintentará.
+    private void compactar(boolean soloSiEsNecesario) {
+        if (soloSiEsNecesario) {
+            // Comprobación sin candados para el caso común, en que todavía no se alcanza el límite.
+            BitacoraCambios pendiente = bitacora;
+            if (pendiente == null || pendiente.getOperaciones() < limiteCompactacion || !compactacion.tryLock()) {
+                return;
+            }
         } else {
-            System.out.println("Producto con SKU " + sku + " no encontrado.");
+            compactacion.lock();
+        }
+        try {
+            String archivo;
+            BitacoraCambios actual;
+            BitacoraCambios.Marca marca = null;
+            BinaryTree<String, Producto> porSKU;
+            BinaryTree<String, Producto[]> porNombre;
+            FiltroBloom nuevoSKU = null;
+            FiltroBloom nuevoNombre = null;
+            long instantanea;
+            candado.writeLock().lock();
+            try {
+                archivo = archivoCSV;
+                actual = bitacora;
+                if (archivo == null) {
+                    return;
+                }
+                if (soloSiEsNecesario && (actual == null || actual.getOperaciones() < limiteCompactacion)) {
+                    return;
+                }
+                // Las ventas continúan durante la compactación; la marca separa las ya incluidas en el CSV.
+                if (actual != null) {
+                    try {
+                        marca = actual.marcar();
+                    } catch (IOException e) {
+                        Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al marcar la bitácora: " + e.getMessage());
+                        return;
+                    }
+                }
+                porSKU = arbolSKU.instantanea();
+                porNombre = arbolNombre.instantanea();
+                instantanea = iniciarExportacion();
+                // Los filtros se reconstruyen desde las instantáneas para olvidar los productos eliminados;
+                // mientras tanto, las altas también se agregan a los nuevos.
+                if (tasaFiltros > 0) {
+                    nuevoSKU = new FiltroBloom(capacidadFiltro(porSKU.tamano()), tasaFiltros);
+                    nuevoNombre = new FiltroBloom(capacidadFiltro(porNombre.tamano()), tasaFiltros);
+                    filtroSKUEnConstruccion = nuevoSKU;
+                    filtroNombreEnConstruccion = nuevoNombre;
+                }
+            } finally {
+                candado.writeLock().unlock();
+            }
+            try {
+                Files.deleteIfExists(Paths.get(SnapshotBinario.rutaPara(archivo)));
+            } catch (IOException e) {
+                Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al eliminar la copia binaria: " + e.getMessage());
+            }
+            MetricasInventario medidas = metricas;
+            long inicio = medidas != null ? System.nanoTime() : 0;
+            boolean guardado;
+            try {
+                guardado = guardarEnCSV(archivo, porSKU, instantanea);
+                if (guardado) {
+                    System.out.println("Inventario guardado en " + archivo);
+                    guardarCopiaBinaria(archivo, porSKU, porNombre, instantanea);
+                }
+            } finally {
+                instantaneaEnCurso = 0;
+            }
+            if (guardado) {
+                if (medidas != null) {
+                    medidas.registrar(MetricasInventario.Operacion.GUARDAR, inicio);
+                }
+                if (marca != null) {
+                    try {
+                        actual.descartarHasta(marca);
+                    } catch (IOException e) {
+                        Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al reiniciar la bitácora: " + e.getMessage());
+                    }
+                }
+            }
+            if (nuevoSKU != null) {
+                llenarFiltros(nuevoSKU, nuevoNombre, porSKU, porNombre);
+                instalarFiltros(nuevoSKU, nuevoNombre);
+            }
+        } finally {
+            compactacion.unlock();
         }
     }
 
+    // Reemplaza los filtros por los que llenó la compactación, salvo que entretanto se hayan reconstruido
+    // o desactivado (en ese caso los nuevos ya no están registrados y se descartan).
+    private void instalarFiltros(FiltroBloom porSKU, FiltroBloom porNombre) {
+        candado.writeLock().lock();
+        try {
+            if (filtroSKUEnConstruccion == porSKU && filtroNombreEnConstruccion == porNombre) {
+                filtroSKU = porSKU;
+                filtroNombre = porNombre;
+                filtroSKUEnConstruccion = null;
+                filtroNombreEnConstruccion = null;
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Escribe un respaldo del inventario en un archivo CSV, con el estado de un único momento.
+     * El respaldo se escribe a partir de una instantánea, por lo que las consultas y los cambios
+     * continúan mientras se guarda y ninguno de ellos aparece en el archivo: las ventas conservan
+     * antes las existencias que tenía el producto al tomarla. Espera a que termine una compactación
+     * en curso.
+     * 
+     * @param archivoDestino El nombre del archivo CSV a escribir.
+     * @return true si el respaldo se guardó correctamente.
+     */
+    public boolean respaldar(String archivoDestino) {
+        MetricasInventario medidas = metricas;
+        long inicio = medidas != null ? System.nanoTime() : 0;
+        BinaryTree<String, Producto> porSKU;
+        long instantanea;
+        boolean guardado;
+        // Solo hay una exportación a la vez, para que las ventas conserven una sola copia por producto.
+        compactacion.lock();
+        try {
+            candado.writeLock().lock();
+            try {
+                porSKU = arbolSKU.instantanea();
+                instantanea = iniciarExportacion();
+            } finally {
+                candado.writeLock().unlock();
+            }
+            try {
+                guardado = guardarEnCSV(archivoDestino, porSKU, instantanea);
+            } finally {
+                instantaneaEnCurso = 0;
+            }
+        } finally {
+            compactacion.unlock();
+        }
+        if (guardado && medidas != null) {
+            medidas.registrar(MetricasInventario.Operacion.GUARDAR, inicio);
+        }
+        return guardado;
+    }
+
+    // Registra una nueva instantánea de exportación; se llama con el candado de escritura y el de
+    // compactación tomados, al tomar las instantáneas de los árboles.
+    private long iniciarExportacion() {
+        long instantanea = ++instantaneas;
+        instantaneaEnCurso = instantanea;
+        return instantanea;
+    }
+
     /**
-     * Guarda el inventario actual en un archivo CSV.
+     * Compacta los cambios pendientes y cierra la bitácora.
+     * Debe llamarse al terminar de usar el inventario.
+     */
+    public void cerrar() {
+        compactacion.lock();
+        try {
+            compactar(false);
+            candado.writeLock().lock();
+            try {
+                cerrarBitacora();
+            } finally {
+                candado.writeLock().unlock();
+            }
+        } finally {
+            compactacion.unlock();
+        }
+    }
+
+    // Cierra la bitácora actual, si hay una abierta.
+    private void cerrarBitacora() {
+        if (bitacora != null) {
+            try {
+                bitacora.close();
+            } catch (IOException e) {
+                Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al cerrar la bitácora: " + e.getMessage());
+            }
+            bitacora = null;
+        }
+    }
+
+    /**
+     * Guarda el contenido de un árbol de productos en un archivo CSV.
      * Escribe los productos en el archivo con formato "SKU,Nombre,Descripción,Cantidad por talla".
+     * El contenido se escribe primero en un archivo temporal que luego reemplaza al original de forma
+     * atómica, de modo que una falla a mitad del guardado nunca deja un inventario incompleto.
+     * 
+     * @param archivo El nombre del archivo CSV a escribir.
+     * @param porSKU El árbol (normalmente una instantánea) con los productos a guardar.
+     * @param instantanea La instantánea de exportación cuyas existencias se guardan (0 para las actuales).
+     * @return true si el archivo se guardó correctamente.
      */
-    private void guardarEnCSV() {
-        try (FileWriter writer = new FileWriter(archivoCSV)) {
-            arbolSKU.guardarEnCSV(writer, "SKU,Nombre,Descripción,Cantidad por talla");
-            System.out.println("Inventario guardado en " + archivoCSV);
+    private static boolean guardarEnCSV(String archivo, BinaryTree<String, Producto> porSKU, long instantanea) {
+        Path destino = Paths.get(archivo);
+        Path temporal = Paths.get(archivo + ".tmp");
+        try {
+            try (FileOutputStream salida = new FileOutputStream(temporal.toFile());
+                 Writer writer = new OutputStreamWriter(new BufferedOutputStream(salida, TAMANO_BUFFER_GUARDADO),
+                     Charset.defaultCharset())) {
+                porSKU.guardarEnCSV(writer, "SKU,Nombre,Descripción,Cantidad por talla", instantanea);
+                writer.flush();
+                salida.getFD().sync();
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
         } catch (IOException e) {
-            System.out.println("Error al guardar el archivo: " + e.getMessage());
+            Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_ESCRITURA, "Error al guardar el archivo: " + e.getMessage());
+            return false;
         }
     }
-}
\ No newline at end of file
+}
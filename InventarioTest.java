@@ -0,0 +1,914 @@
+/**
+ * Clase InventarioTest que contiene pruebas unitarias para la clase Inventario.
+ * Verifica la persistencia del inventario en el CSV y en la bitácora de cambios.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : InventarioTest.java
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventarioTest {
+    @TempDir
+    Path directorio; // Directorio temporal para los archivos de cada prueba.
+
+    private String archivoCSV; // Ruta del CSV de prueba.
+
+    /**
+     * Configuración inicial para cada prueba.
+     * Crea un CSV con dos productos.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path csv = directorio.resolve("inventario.csv");
+        Files.write(csv, List.of(
+            "SKU,Nombre,Descripción,Cantidad por talla",
+            "001,Short de Pádel,Ajuste cómodo,xs:5",
+            "002,Conjunto de Gimnasia,Transpirable,m:10"));
+        archivoCSV = csv.toString();
+    }
+
+    /**
+     * Prueba para verificar que los cambios se registren en la bitácora sin reescribir el CSV.
+     * Asegura que un inventario nuevo recupere los cambios al cargar el mismo archivo.
+     */
+    @Test
+    public void testCambiosSeRecuperanDesdeBitacora() throws IOException {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        inventario.agregarProducto(new Producto("003", "Guantes de Gimnasio", "Alta intensidad", "m:18"));
+        inventario.editarProducto("001", "Ajuste mejorado", Map.of("xs", 7));
+
+        assertEquals(3, Files.readAllLines(Path.of(archivoCSV)).size(), "El CSV no debería reescribirse por cada cambio");
+        assertEquals(2, Files.readAllLines(Path.of(BitacoraCambios.rutaPara(archivoCSV))).size(),
+            "La bitácora debería contener un registro por cambio");
+
+        Inventario recuperado = new Inventario();
+        recuperado.cargarDesdeCSV(archivoCSV);
+        assertNotNull(recuperado.buscarPorSKU("003"), "El producto agregado debería recuperarse de la bitácora");
+        assertEquals("Ajuste mejorado", recuperado.buscarPorSKU("001").getDescripcion(),
+            "La edición debería recuperarse de la bitácora");
+        assertEquals(Integer.valueOf(7), recuperado.buscarPorSKU("001").getTallas().get("xs"),
+            "Las tallas editadas deberían recuperarse de la bitácora");
+        assertEquals(0, new File(BitacoraCambios.rutaPara(archivoCSV)).length(),
+            "La bitácora debería vaciarse después de compactar la recuperación");
+    }
+
+    /**
+     * Prueba para verificar la compactación al alcanzar el límite de cambios.
+     * Asegura que el CSV refleje los cambios y que la bitácora quede vacía.
+     */
+    @Test
+    public void testCompactaAlAlcanzarLimite() throws IOException {
+        Inventario inventario = new Inventario(2);
+        inventario.cargarDesdeCSV(archivoCSV);
+        inventario.agregarProducto(new Producto("003", "Guantes de Gimnasio", "Alta intensidad", "m:18"));
+        inventario.agregarProducto(new Producto("004", "Calcetas Deportivas", "Algodón", "s:3"));
+
+        assertEquals(5, Files.readAllLines(Path.of(archivoCSV)).size(), "El CSV debería contener los cuatro productos");
+        assertEquals(0, new File(BitacoraCambios.rutaPara(archivoCSV)).length(), "La bitácora debería quedar vacía");
+    }
+
+    /**
+     * Prueba para verificar que la bitácora siga abierta cuando falla el descarte de entradas compactadas.
+     * Asegura que los registros siguientes se escriban y que un descarte posterior funcione.
+     */
+    @Test
+    public void testBitacoraSigueAbiertaSiFallaElDescarte() throws IOException {
+        String archivo = BitacoraCambios.rutaPara(archivoCSV);
+        try (BitacoraCambios bitacora = new BitacoraCambios(archivo)) {
+            bitacora.registrarVenta("001", "xs", 4);
+            BitacoraCambios.Marca marca = bitacora.marcar();
+            // Un directorio en lugar del archivo temporal hace fallar la copia.
+            Path temporal = Files.createDirectories(Path.of(archivo + ".tmp"));
+            Files.createFile(temporal.resolve("ocupado"));
+            assertThrows(IOException.class, () -> bitacora.descartarHasta(marca), "El descarte debería fallar");
+
+            bitacora.registrarVenta("002", "m", 9);
+            assertEquals(2, Files.readAllLines(Path.of(archivo)).size(), "La bitácora debería seguir aceptando registros");
+            assertEquals(2, bitacora.getOperaciones(), "Un descarte fallido no debería descontar operaciones");
+
+            Files.delete(temporal.resolve("ocupado"));
+            Files.delete(temporal);
+            bitacora.descartarHasta(marca);
+            assertEquals(List.of("V,002,m,9"), Files.readAllLines(Path.of(archivo)), "Solo debería quedar el registro posterior a la marca");
+        }
+    }
+
+    /**
+     * Prueba para verificar la carga en paralelo con filas inválidas y saltos de línea de Windows.
+     * Asegura que solo se descarten las filas sin exactamente cuatro campos.
+     */
+    @Test
+    public void testCargaParalelaDescartaFilasInvalidas() throws IOException {
+        Path csv = directorio.resolve("mixto.csv");
+        Files.writeString(csv, "SKU,Nombre,Descripción,Cantidad por talla\r\n"
+            + "001,Short de Pádel,Ajuste cómodo,xs:5|m:2\r\n"
+            + "002,Fila inválida\r\n"
+            + "003,Guantes de Gimnasio,Alta intensidad,m:18,,\r\n"
+            + "004,Demasiados,campos,en,la fila\r\n"
+            + "005,Calcetas Deportivas,Algodón,s:3");
+
+        Inventario inventario = new Inventario();
+        inventario.setHilosCarga(4);
+        inventario.cargarDesdeCSV(csv.toString());
+
+        assertEquals(Map.of("xs", 5, "m", 2), inventario.buscarPorSKU("001").getTallas(), "Las tallas deberían leerse sin el retorno de carro");
+        assertNull(inventario.buscarPorSKU("002"), "La fila con pocos campos debería descartarse");
+        assertEquals(Map.of("m", 18), inventario.buscarPorSKU("003").getTallas(), "Las comas finales deberían ignorarse");
+        assertNull(inventario.buscarPorSKU("004"), "La fila con demasiados campos debería descartarse");
+        assertEquals("Calcetas Deportivas", inventario.buscarPorNombre("Calcetas Deportivas").getNombre(),
+            "La última fila sin salto de línea debería cargarse");
+    }
+
+    /**
+     * Prueba para verificar el arranque desde la copia binaria.
+     * Asegura que la copia reproduzca el inventario y que se ignore si el CSV cambió por fuera.
+     */
+    @Test
+    public void testArranqueDesdeCopiaBinaria() throws IOException {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        assertTrue(new File(SnapshotBinario.rutaPara(archivoCSV)).exists(), "La carga debería escribir la copia binaria");
+
+        SnapshotBinario.Contenido copia = SnapshotBinario.cargar(archivoCSV);
+        assertNotNull(copia, "La copia binaria debería corresponder al CSV");
+        assertEquals(2, copia.productos.size(), "La copia debería contener los dos productos");
+        Inventario desdeCopia = new Inventario();
+        desdeCopia.cargarDesdeCSV(archivoCSV);
+        assertEquals("Transpirable", desdeCopia.buscarPorSKU("002").getDescripcion(), "El producto debería leerse de la copia");
+        assertEquals(Map.of("m", 10), desdeCopia.buscarPorNombre("Conjunto de Gimnasia").getTallas(), "Las tallas deberían leerse de la copia");
+
+        Files.writeString(Path.of(archivoCSV), "003,Guantes de Gimnasio,Alta intensidad,m:18\n", StandardOpenOption.APPEND);
+        assertNull(SnapshotBinario.cargar(archivoCSV), "La copia no debería usarse si el CSV cambió");
+        Inventario actualizado = new Inventario();
+        actualizado.cargarDesdeCSV(archivoCSV);
+        assertNotNull(actualizado.buscarPorSKU("003"), "El producto agregado al CSV debería cargarse");
+    }
+
+    /**
+     * Prueba de estrés con lectores y escritores concurrentes.
+     * Asegura que ninguna operación falle y que todas las altas queden en el inventario.
+     */
+    @Test
+    public void testAccesoConcurrente() throws Exception {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        int escritores = 4;
+        int lectores = 4;
+        int altasPorEscritor = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(escritores + lectores);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int w = 0; w < escritores; w++) {
+            int escritor = w;
+            tareas.add(pool.submit(() -> {
+                for (int i = 0; i < altasPorEscritor; i++) {
+                    String sku = "W" + escritor + "-" + i;
+                    inventario.agregarProducto(new Producto(sku, "Producto " + sku, "Concurrente", "m:1"));
+                    inventario.editarProducto("001", "Edición " + sku, Map.of("xs", i));
+                }
+            }));
+        }
+        for (int r = 0; r < lectores; r++) {
+            tareas.add(pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    assertNotNull(inventario.buscarPorSKU("002"), "Un producto existente siempre debería encontrarse");
+                    Producto editado = inventario.buscarPorSKU("001");
+                    assertEquals(1, editado.getTallas().size(), "Las tallas nunca deberían verse a medio actualizar");
+                    inventario.buscarPorNombre("Producto W0-" + (i % altasPorEscritor));
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(2 + escritores * altasPorEscritor, inventario.cantidadProductos(), "Todas las altas deberían conservarse");
+        for (int w = 0; w < escritores; w++) {
+            for (int i = 0; i < altasPorEscritor; i++) {
+                assertNotNull(inventario.buscarPorSKU("W" + w + "-" + i), "El producto W" + w + "-" + i + " debería existir");
+            }
+        }
+        inventario.cerrar();
+    }
+
+    /**
+     * Prueba de ventas simultáneas sobre un mismo producto.
+     * Asegura que no se vendan más unidades de las disponibles y que la bitácora las recupere.
+     */
+    @Test
+    public void testVentasConcurrentesNoSobrevenden() throws Exception {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        inventario.editarProducto("002", "Transpirable", Map.of("m", 1_000));
+        int hilos = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        List<Future<Integer>> tareas = new ArrayList<>();
+        for (int t = 0; t < hilos; t++) {
+            tareas.add(pool.submit(() -> {
+                int vendidas = 0;
+                for (int i = 0; i < 200; i++) {
+                    if (inventario.vender("002", "m", 1) >= 0) {
+                        vendidas++;
+                    }
+                }
+                return vendidas;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> tarea : tareas) {
+            total += tarea.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1_000, total, "Se deberían vender exactamente las unidades disponibles");
+        assertEquals(0, inventario.buscarPorSKU("002").getCantidad("m"), "Las existencias deberían quedar en cero");
+        assertEquals(-1, inventario.vender("002", "m", 1), "No se debería vender sin existencias");
+        assertEquals(-1, inventario.vender("002", "xl", 1), "No se debería vender una talla inexistente");
+        assertEquals(3, inventario.devolver("002", "m", 3), "La devolución debería reponer las unidades");
+        assertEquals(-1, inventario.vender("002", "m", 4), "No se debería vender más de lo disponible");
+        assertEquals(3, inventario.vender("001", "xs", 2), "La venta debería devolver las unidades que quedan");
+        inventario.cerrar();
+
+        Inventario recuperado = new Inventario();
+        recuperado.cargarDesdeCSV(archivoCSV);
+        assertEquals(3, recuperado.buscarPorSKU("002").getCantidad("m"), "Las ventas deberían recuperarse de la bitácora");
+        assertEquals(3, recuperado.buscarPorSKU("001").getCantidad("xs"), "Las ventas deberían recuperarse de la bitácora");
+    }
+
+    /**
+     * Prueba para verificar la búsqueda por prefijo y por contenido del nombre.
+     * Asegura que no distinga mayúsculas ni acentos y que respete el límite de resultados.
+     */
+    @Test
+    public void testBusquedaPorParteDelNombre() {
+        Inventario inventario = new Inventario();
+        inventario.agregarProducto(new Producto("001", "Short de Pádel", "Ajuste cómodo", "xs:5"));
+        inventario.agregarProducto(new Producto("002", "Short Running", "Ligero", "m:3"));
+        inventario.agregarProducto(new Producto("003", "Raqueta de Padel", "Carbono", "m:1"));
+        inventario.agregarProducto(new Producto("004", "Camiseta Running", "Transpirable", "l:2"));
+
+        List<Producto> cortos = inventario.buscarPorPrefijo("short", 10);
+        assertEquals(List.of("001", "002"), List.of(cortos.get(0).getSku(), cortos.get(1).getSku()),
+            "Los productos que empiezan con el prefijo deberían devolverse en orden alfabético");
+        assertEquals(1, inventario.buscarPorPrefijo("SHORT", 1).size(), "Se debería respetar el límite de resultados");
+        assertTrue(inventario.buscarPorPrefijo("running", 10).isEmpty(), "El prefijo debería buscarse solo al inicio del nombre");
+
+        List<Producto> padel = inventario.buscarPorContenido("PADEL", 10);
+        assertEquals(2, padel.size(), "La búsqueda por contenido no debería distinguir acentos ni mayúsculas");
+        assertEquals(2, inventario.buscarPorContenido("un", 10).size(), "Las consultas cortas también deberían encontrar coincidencias");
+
+        inventario.agregarProducto(new Producto("002", "Calcetas", "Algodón", "s:3"));
+        assertEquals(1, inventario.buscarPorPrefijo("short", 10).size(), "El producto reemplazado debería salir del índice");
+        assertEquals(1, inventario.buscarPorContenido("running", 10).size(), "El producto reemplazado no debería aparecer");
+        assertEquals("002", inventario.buscarPorContenido("calc", 10).get(0).getSku(), "El producto nuevo debería indexarse");
+
+        // Las consultas de uno y dos caracteres deberían coincidir con un recorrido de todos los nombres.
+        String[] nombres = {"Ax", "xa", "aa", "Tenis Azul", "Short Rojo", "Gorra", "Yoga Gris", "Pádel"};
+        for (int i = 0; i < 40; i++) {
+            inventario.agregarProducto(new Producto(String.format("C%02d", i), nombres[i % nombres.length], "", "m:1"));
+        }
+        inventario.eliminarProducto("C05");
+        for (String consulta : new String[] {"a", "x", "o", "zu", "is", "ad", "q", "ro"}) {
+            Set<String> esperados = new TreeSet<>();
+            for (Producto producto : inventario.paginaPorSKU(0, 100)) {
+                if (IndiceNombres.normalizar(producto.getNombre()).contains(consulta)) {
+                    esperados.add(producto.getSku());
+                }
+            }
+            Set<String> encontrados = new TreeSet<>();
+            for (Producto producto : inventario.buscarPorContenido(consulta, 100)) {
+                assertTrue(encontrados.add(producto.getSku()), "Un producto no debería repetirse: " + consulta);
+            }
+            assertEquals(esperados, encontrados, "Consulta corta: " + consulta);
+        }
+    }
+
+    /**
+     * Prueba para verificar que varios productos con el mismo nombre se conserven.
+     * Asegura que la búsqueda los devuelva ordenados por SKU, también después de cargar y de reemplazar un SKU.
+     */
+    @Test
+    public void testNombresRepetidos() throws IOException {
+        Files.writeString(Path.of(archivoCSV), "SKU,Nombre,Descripción,Cantidad por talla\n"
+            + "003,Camiseta Running,Roja,m:1\n"
+            + "001,Camiseta Running,Azul,m:2\n"
+            + "002,Gorra,Negra,s:4\n");
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        inventario.agregarProducto(new Producto("002", "Camiseta Running", "Verde", "l:3"));
+
+        List<String> skus = new ArrayList<>();
+        for (Producto producto : inventario.buscarTodosPorNombre("Camiseta Running")) {
+            skus.add(producto.getSku());
+        }
+        assertEquals(List.of("001", "002", "003"), skus, "Todos los productos con el mismo nombre deberían devolverse ordenados por SKU");
+        assertEquals("001", inventario.buscarPorNombre("Camiseta Running").getSku(), "La búsqueda simple debería devolver el menor SKU");
+        assertNull(inventario.buscarPorNombre("Gorra"), "El nombre anterior del SKU reemplazado no debería encontrarse");
+        assertEquals(3, inventario.paginaPorNombre(0, 10).size(), "La página debería incluir todos los productos del nombre");
+        inventario.cerrar();
+
+        Inventario recuperado = new Inventario();
+        recuperado.cargarDesdeCSV(archivoCSV);
+        assertEquals(3, recuperado.buscarTodosPorNombre("Camiseta Running").size(), "Los nombres repetidos deberían recuperarse");
+        Inventario desdeCopia = new Inventario();
+        desdeCopia.cargarDesdeCSV(archivoCSV);
+        assertEquals(3, desdeCopia.buscarTodosPorNombre("Camiseta Running").size(), "Los nombres repetidos deberían leerse de la copia binaria");
+    }
+
+    /**
+     * Prueba para verificar la eliminación de productos.
+     * Asegura que ambos índices se actualicen y que las bajas se recuperen desde la bitácora.
+     */
+    @Test
+    public void testEliminarProductos() throws IOException {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        inventario.agregarProducto(new Producto("003", "Guantes de Gimnasio", "Alta intensidad", "m:18"));
+        inventario.agregarProducto(new Producto("004", "Guantes de Gimnasio", "Ligeros", "s:2"));
+        assertEquals(2, inventario.buscarPorPrefijo("guantes", 10).size(), "Ambos guantes deberían encontrarse");
+
+        assertTrue(inventario.eliminarProducto("003"), "El producto existente debería eliminarse");
+        assertFalse(inventario.eliminarProducto("003"), "Un producto ya eliminado no debería eliminarse de nuevo");
+        assertEquals("004", inventario.buscarPorNombre("Guantes de Gimnasio").getSku(), "El otro producto con el nombre debería conservarse");
+        assertEquals(1, inventario.buscarPorPrefijo("guantes", 10).size(), "El producto eliminado no debería aparecer en la búsqueda");
+        assertEquals(2, inventario.eliminarProductos(List.of("001", "004", "999")), "Se deberían eliminar solo los productos existentes");
+        assertNull(inventario.buscarPorNombre("Guantes de Gimnasio"), "El nombre sin productos debería desaparecer");
+        assertEquals(1, inventario.cantidadProductos(), "Solo debería quedar un producto");
+        assertEquals(1, inventario.paginaPorNombre(0, 10).size(), "La página por nombre no debería incluir nombres vacíos");
+        inventario.cerrar();
+
+        Inventario recuperado = new Inventario();
+        recuperado.cargarDesdeCSV(archivoCSV);
+        assertEquals(1, recuperado.cantidadProductos(), "Las bajas deberían recuperarse de la bitácora");
+        assertNotNull(recuperado.buscarPorSKU("002"), "El producto no eliminado debería conservarse");
+    }
+
+    /**
+     * Prueba para verificar la caché de búsquedas.
+     * Asegura que las altas, ediciones y bajas nunca dejen un resultado desactualizado en la caché.
+     */
+    @Test
+    public void testCacheDeBusquedas() {
+        Inventario inventario = new Inventario();
+        inventario.activarCache(100);
+        inventario.agregarProducto(new Producto("001", "Camiseta", "Algodón", "m:5"));
+        Producto primero = inventario.buscarPorSKU("001");
+        assertSame(primero, inventario.buscarPorSKU("001"), "La segunda búsqueda debería devolver el mismo producto");
+        assertEquals(1, inventario.getCacheSKU().getAciertos(), "La segunda búsqueda debería resolverse en la caché");
+        assertEquals(1, inventario.getCacheSKU().getFallos(), "La primera búsqueda debería ser un fallo");
+
+        inventario.editarProducto("001", "Poliéster", Map.of("m", 3));
+        assertEquals("Poliéster", inventario.buscarPorSKU("001").getDescripcion(), "La edición debería verse a través de la caché");
+        inventario.agregarProducto(new Producto("001", "Sudadera", "Nueva", "l:2"));
+        assertEquals("Sudadera", inventario.buscarPorSKU("001").getNombre(), "El alta debería reemplazar el producto en caché");
+        assertEquals(1, inventario.buscarTodosPorNombre("Camiseta").size() + inventario.buscarTodosPorNombre("Sudadera").size(),
+            "Solo el nombre vigente debería tener productos");
+        inventario.agregarProducto(new Producto("002", "Sudadera", "Otra", "s:1"));
+        assertEquals(2, inventario.buscarTodosPorNombre("Sudadera").size(), "El grupo del nombre en caché debería actualizarse");
+        inventario.eliminarProducto("001");
+        assertNull(inventario.buscarPorSKU("001"), "Un producto eliminado no debería seguir en la caché");
+        assertEquals("002", inventario.buscarPorNombre("Sudadera").getSku(), "El nombre debería reflejar la baja");
+
+        inventario.activarCache(128);
+        for (int i = 0; i < 1000; i++) {
+            String sku = String.format("X%04d", i);
+            inventario.agregarProducto(new Producto(sku, "P" + i, "", "m:1"));
+            inventario.buscarPorSKU(sku);
+        }
+        CacheReloj<String, Producto> cache = inventario.getCacheSKU();
+        assertTrue(cache.tamano() <= 128, "La caché no debería superar su capacidad");
+        assertEquals(1000 - cache.tamano(), cache.getDesalojos(), "Cada entrada sobrante debería contarse como desalojo");
+    }
+
+    /**
+     * Prueba de respaldos mientras otro hilo sigue editando.
+     * Cada ronda edita primero el producto "A" y después el "Z"; como el respaldo se escribe desde
+     * una instantánea, "A" nunca puede aparecer con una ronda anterior a la de "Z".
+     */
+    @Test
+    public void testRespaldoConsistenteConEscriturasConcurrentes() throws Exception {
+        Inventario inventario = new Inventario();
+        inventario.agregarProducto(new Producto("A", "Primero", "0", "m:1"));
+        for (int i = 0; i < 20_000; i++) {
+            String sku = String.format("M%05d", i);
+            inventario.agregarProducto(new Producto(sku, "Producto " + i, "Relleno", "m:1"));
+        }
+        inventario.agregarProducto(new Producto("Z", "Ultimo", "0", "m:1"));
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Integer> escritor = pool.submit(() -> {
+            int ronda = 0;
+            while (!Thread.currentThread().isInterrupted() && ronda < 1_000_000) {
+                ronda++;
+                inventario.editarProducto("A", String.valueOf(ronda), Map.of("m", ronda));
+                inventario.editarProducto("Z", String.valueOf(ronda), Map.of("m", ronda));
+            }
+            return ronda;
+        });
+        String respaldo = directorio.resolve("respaldo.csv").toString();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(inventario.respaldar(respaldo), "El respaldo debería guardarse");
+            List<String> lineas = Files.readAllLines(Path.of(respaldo));
+            assertEquals(20_003, lineas.size(), "El respaldo debería incluir el encabezado y todos los productos");
+            int rondaA = Integer.parseInt(lineas.get(1).split(",")[2]);
+            int rondaZ = Integer.parseInt(lineas.get(lineas.size() - 1).split(",")[2]);
+            assertTrue(rondaA == rondaZ || rondaA == rondaZ + 1,
+                "El respaldo debería reflejar un solo momento, pero A=" + rondaA + " y Z=" + rondaZ);
+        }
+        escritor.cancel(true);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS), "El escritor debería detenerse");
+    }
+
+    /**
+     * Prueba de respaldos mientras otro hilo sigue vendiendo.
+     * Cada ronda vende primero una unidad de "A" y después una de "Z"; como las ventas conservan las
+     * existencias de la instantánea, "A" nunca puede aparecer con una venta más que "Z".
+     */
+    @Test
+    public void testRespaldoConsistenteConVentasConcurrentes() throws Exception {
+        Inventario inventario = new Inventario();
+        inventario.agregarProducto(new Producto("A", "Primero", "Inicio", "m:2000000"));
+        for (int i = 0; i < 20_000; i++) {
+            String sku = String.format("M%05d", i);
+            inventario.agregarProducto(new Producto(sku, "Producto " + i, "Relleno", "m:1"));
+        }
+        inventario.agregarProducto(new Producto("Z", "Ultimo", "Fin", "m:2000000"));
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Integer> vendedor = pool.submit(() -> {
+            int ronda = 0;
+            while (!Thread.currentThread().isInterrupted() && ronda < 1_000_000) {
+                ronda++;
+                inventario.vender("A", "m", 1);
+                inventario.vender("Z", "m", 1);
+            }
+            return ronda;
+        });
+        String respaldo = directorio.resolve("respaldo.csv").toString();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(inventario.respaldar(respaldo), "El respaldo debería guardarse");
+            List<String> lineas = Files.readAllLines(Path.of(respaldo));
+            assertEquals(20_003, lineas.size(), "El respaldo debería incluir el encabezado y todos los productos");
+            int existenciasA = Integer.parseInt(lineas.get(1).split(",")[3].substring(2));
+            int existenciasZ = Integer.parseInt(lineas.get(lineas.size() - 1).split(",")[3].substring(2));
+            assertTrue(existenciasA == existenciasZ || existenciasA == existenciasZ - 1,
+                "El respaldo debería reflejar un solo momento, pero A=" + existenciasA + " y Z=" + existenciasZ);
+        }
+        vendedor.cancel(true);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS), "El vendedor debería detenerse");
+    }
+
+    /**
+     * Prueba de las métricas de operaciones.
+     * Asegura que cada operación se cuente en su histograma, que las comparaciones por búsqueda
+     * no superen la altura del árbol y que los percentiles respeten el error de las cubetas.
+     */
+    @Test
+    public void testMetricasDeOperaciones() {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        assertNull(inventario.getMetricas(), "Las métricas deberían empezar desactivadas");
+
+        inventario.activarMetricas(true);
+        inventario.cargarDesdeCSV(archivoCSV);
+        for (int i = 0; i < 100; i++) {
+            inventario.agregarProducto(new Producto(String.format("X%03d", i), "Prenda " + (i % 10), "", "m:1"));
+        }
+        inventario.editarProducto("001", "Ajuste mejorado", Map.of("xs", 7));
+        for (int i = 0; i < 50; i++) {
+            inventario.buscarPorSKU(String.format("X%03d", i));
+        }
+        inventario.buscarPorSKU("inexistente");
+        inventario.buscarTodosPorNombre("Prenda 3");
+        assertTrue(inventario.respaldar(directorio.resolve("respaldo.csv").toString()), "El respaldo debería guardarse");
+
+        MetricasInventario metricas = inventario.getMetricas();
+        assertEquals(1, metricas.getCantidad(MetricasInventario.Operacion.CARGAR));
+        assertEquals(100, metricas.getCantidad(MetricasInventario.Operacion.AGREGAR));
+        assertEquals(1, metricas.getCantidad(MetricasInventario.Operacion.EDITAR));
+        assertEquals(51, metricas.getCantidad(MetricasInventario.Operacion.BUSCAR_SKU));
+        assertEquals(1, metricas.getCantidad(MetricasInventario.Operacion.BUSCAR_NOMBRE));
+        assertEquals(1, metricas.getCantidad(MetricasInventario.Operacion.GUARDAR));
+        assertTrue(metricas.getComparacionesMaximas() <= inventario.alturaPorSKU(),
+            "Una búsqueda no debería necesitar más comparaciones que la altura del árbol");
+        assertTrue(metricas.getComparacionesPromedio() >= 1, "Cada búsqueda debería comparar al menos una clave");
+        assertTrue(inventario.resumenMetricas().contains("Buscar por SKU"), "El resumen debería listar las operaciones");
+
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        for (long valor = 1; valor <= 1_000_000; valor++) {
+            histograma.registrar(valor * 1_000);
+        }
+        long mediana = histograma.percentil(50);
+        assertTrue(mediana >= 500_000_000L && mediana <= 500_000_000L * 1.032,
+            "La mediana debería estar dentro del error de su cubeta, pero fue " + mediana);
+        assertEquals(1_000_000_000L, histograma.percentil(100), "El percentil 100 debería ser el máximo");
+
+        inventario.activarMetricas(false);
+        inventario.buscarPorSKU("X001");
+        assertNull(inventario.getMetricas(), "Las métricas deberían poder desactivarse");
+    }
+
+    /**
+     * Prueba de los diagnósticos de carga.
+     * Asegura que las filas inválidas se cuenten todas, que solo unas pocas se publiquen con detalle
+     * y que al final se publique el resumen de las omitidas.
+     */
+    @Test
+    public void testDiagnosticosDeCargaLimitadosYResumidos() throws IOException {
+        StringBuilder contenido = new StringBuilder("SKU,Nombre,Descripción,Cantidad por talla\n");
+        for (int i = 0; i < 5_000; i++) {
+            contenido.append(String.format("%05d,Producto %d,Descripción,m:1%n", i, i));
+            contenido.append("Fila rota ").append(i).append('\n');
+            contenido.append(String.format("B%05d,Malo %d,Descripción,m:x%n", i, i));
+        }
+        Path csv = directorio.resolve("sucio.csv");
+        Files.writeString(csv, contenido);
+
+        List<String> publicados = Collections.synchronizedList(new ArrayList<>());
+        long filasPrevias = Diagnosticos.getCantidad(Diagnosticos.Tipo.FILA_INVALIDA);
+        long cantidadesPrevias = Diagnosticos.getCantidad(Diagnosticos.Tipo.CANTIDAD_INVALIDA);
+        Diagnosticos.vaciar();
+        Diagnosticos.setSalida(publicados::addAll);
+        Diagnosticos.setAvisosPorSegundo(5);
+        try {
+            Inventario inventario = new Inventario();
+            inventario.cargarDesdeCSV(csv.toString());
+            Diagnosticos.vaciar();
+            assertEquals(10_000, inventario.cantidadProductos(), "Las filas con tallas inválidas deberían cargarse sin esas tallas");
+        } finally {
+            Diagnosticos.setSalida(Diagnosticos.CONSOLA);
+            Diagnosticos.setAvisosPorSegundo(20);
+        }
+
+        assertEquals(5_000, Diagnosticos.getCantidad(Diagnosticos.Tipo.FILA_INVALIDA) - filasPrevias, "Cada fila inválida debería contarse");
+        assertEquals(5_000, Diagnosticos.getCantidad(Diagnosticos.Tipo.CANTIDAD_INVALIDA) - cantidadesPrevias, "Cada cantidad inválida debería contarse");
+        long detalles = publicados.stream().filter(m -> m.startsWith("Formato inválido en: Fila rota")).count();
+        assertTrue(detalles >= 1 && detalles <= 50, "Solo unas pocas filas deberían publicarse con detalle, pero fueron " + detalles);
+        assertTrue(publicados.stream().anyMatch(m -> m.contains("filas rechazadas: formato inválido")),
+            "Debería publicarse el resumen de las filas omitidas: " + publicados);
+        assertTrue(publicados.stream().anyMatch(m -> m.contains("tallas rechazadas: cantidad inválida")),
+            "Debería publicarse el resumen de las cantidades omitidas");
+    }
+
+    /**
+     * Prueba para verificar la aplicación de un archivo de cambios (delta).
+     * Asegura que las tallas se combinen por talla, que solo los cambios se registren en la bitácora
+     * y que el resumen indique qué cambió.
+     */
+    @Test
+    public void testAplicarDeltaCombinaTallasYRegistraSoloCambios() throws IOException {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        String descripcionPrevia = inventario.buscarPorSKU("001").getDescripcion();
+        Path delta = directorio.resolve("delta.csv");
+        Files.write(delta, List.of(
+            "SKU,Nombre,Descripción,Cantidad por talla",
+            "001,,,xs:8|l:2",
+            "002,Conjunto Nuevo,Transpirable,m:10",
+            "003,Gorra,Visera,u:4",
+            "002,,,m:10",
+            "fila rota"));
+
+        ResumenDelta resumen = inventario.aplicarDelta(delta.toString());
+
+        assertEquals(List.of("003"), resumen.getAgregados(), "El SKU nuevo debería agregarse");
+        assertEquals(List.of("001", "002"), resumen.getActualizados(), "Los SKU existentes que cambiaron deberían reportarse");
+        assertEquals(2, resumen.getTallasCambiadas(), "Deberían contarse la talla modificada y la agregada");
+        assertEquals(1, resumen.getSinCambios(), "La fila idéntica al producto no debería contar como cambio");
+        assertEquals(1, resumen.getFilasRechazadas(), "La fila sin cuatro campos debería rechazarse");
+        assertEquals(Map.of("xs", 8, "l", 2), inventario.buscarPorSKU("001").getTallas(), "Las tallas deberían combinarse por talla");
+        assertEquals(descripcionPrevia, inventario.buscarPorSKU("001").getDescripcion(), "Una descripción vacía debería conservar la actual");
+        assertEquals("002", inventario.buscarPorNombre("Conjunto Nuevo").getSku(), "El cambio de nombre debería reflejarse en el índice");
+        assertEquals(3, Files.readAllLines(Path.of(archivoCSV)).size(), "El CSV no debería reescribirse");
+        assertEquals(3, Files.readAllLines(Path.of(BitacoraCambios.rutaPara(archivoCSV))).size(),
+            "La bitácora debería registrar solo los productos que cambiaron");
+
+        Inventario recuperado = new Inventario();
+        recuperado.cargarDesdeCSV(archivoCSV);
+        assertEquals(Map.of("xs", 8, "l", 2), recuperado.buscarPorSKU("001").getTallas(), "El delta debería recuperarse de la bitácora");
+        assertEquals("Gorra", recuperado.buscarPorSKU("003").getNombre(), "El alta del delta debería recuperarse de la bitácora");
+    }
+
+    /**
+     * Prueba para verificar que un archivo de cambios que no se puede leer se distinga de uno vacío.
+     */
+    @Test
+    public void testAplicarDeltaInexistenteReportaElError() throws IOException {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        Path vacio = directorio.resolve("vacio.csv");
+        Files.write(vacio, List.of("SKU,Nombre,Descripción,Cantidad por talla"));
+
+        assertTrue(inventario.aplicarDelta(vacio.toString()).isCompleto(), "Un delta vacío debería leerse completo");
+        ResumenDelta resumen = inventario.aplicarDelta(directorio.resolve("no-existe.csv").toString());
+        assertFalse(resumen.isCompleto(), "Un delta que no se puede leer debería registrar el error");
+        assertNotNull(resumen.getError(), "El resumen debería incluir el motivo del error");
+        assertTrue(resumen.toString().startsWith("Error al leer el archivo de cambios"), "El resumen debería mostrar el error");
+    }
+
+    /**
+     * Prueba para verificar que los filtros de pertenencia nunca descarten un producto existente,
+     * ni después de crecer, compactar o cargar, y que descarten casi todas las búsquedas de claves inexistentes.
+     */
+    @Test
+    public void testFiltrosDescartanClavesInexistentesSinFalsosNegativos() {
+        Inventario inventario = new Inventario(500);
+        inventario.cargarDesdeCSV(archivoCSV);
+        inventario.activarFiltros(0.01);
+        for (int i = 0; i < 3_000; i++) {
+            inventario.agregarProducto(new Producto(String.format("P%05d", i), "Modelo " + (i % 700), "Serie", "m:1"));
+        }
+        inventario.eliminarProducto("001");
+        inventario.compactar();
+        inventario.editarProducto("002", "Nueva descripción", Map.of("m", 3));
+
+        for (int i = 0; i < 3_000; i++) {
+            assertNotNull(inventario.buscarPorSKU(String.format("P%05d", i)), "Un SKU existente nunca debería descartarse");
+        }
+        for (int i = 0; i < 700; i++) {
+            assertNotNull(inventario.buscarPorNombre("Modelo " + i), "Un nombre existente nunca debería descartarse");
+        }
+        assertEquals("Nueva descripción", inventario.buscarPorSKU("002").getDescripcion(), "La edición debería verse a través del filtro");
+        assertNull(inventario.buscarPorSKU("001"), "El producto eliminado no debería encontrarse");
+        for (int i = 0; i < 20_000; i++) {
+            assertNull(inventario.buscarPorSKU("X" + i), "Un SKU inexistente no debería encontrarse");
+        }
+        FiltroBloom filtro = inventario.getFiltroSKU();
+        assertTrue(filtro.getCapacidad() >= 3_000, "El filtro debería crecer con el inventario");
+        assertTrue(filtro.tasaObservada() < 0.03, "La tasa de falsos positivos debería acercarse a la configurada: " + filtro);
+
+        Inventario recuperado = new Inventario();
+        recuperado.activarFiltros(0.01);
+        recuperado.cargarDesdeCSV(archivoCSV);
+        assertEquals(3_001, recuperado.cantidadProductos(), "La carga debería recuperar todos los productos");
+        assertNotNull(recuperado.buscarPorSKU("P02999"), "El filtro reconstruido al cargar debería incluir los productos");
+        assertNotNull(recuperado.buscarPorNombre("Modelo 699"), "El filtro reconstruido al cargar debería incluir los nombres");
+        recuperado.activarFiltros(0);
+        assertNull(recuperado.getFiltroSKU(), "Con tasa 0 los filtros deberían desactivarse");
+    }
+
+    /**
+     * Prueba para verificar que las claves con el mismo String.hashCode() no choquen en el filtro.
+     * Las 4 096 combinaciones de 12 bloques "Aa" o "BB" comparten hashCode; la mitad se agrega y la
+     * otra mitad debería descartarse casi siempre.
+     */
+    @Test
+    public void testFiltroDistingueClavesConElMismoHashCode() {
+        List<String> claves = new ArrayList<>();
+        for (int combinacion = 0; combinacion < 1 << 12; combinacion++) {
+            StringBuilder clave = new StringBuilder();
+            for (int bloque = 0; bloque < 12; bloque++) {
+                clave.append((combinacion >> bloque & 1) == 0 ? "Aa" : "BB");
+            }
+            claves.add(clave.toString());
+        }
+        assertEquals(claves.get(0).hashCode(), claves.get(claves.size() - 1).hashCode(), "Las claves deberían compartir hashCode");
+
+        FiltroBloom filtro = new FiltroBloom(2_048, 0.01);
+        for (int i = 0; i < claves.size(); i += 2) {
+            filtro.agregar(claves.get(i));
+        }
+        int falsosPositivos = 0;
+        for (int i = 1; i < claves.size(); i += 2) {
+            if (filtro.puedeContener(claves.get(i))) {
+                falsosPositivos++;
+            }
+        }
+        assertTrue(falsosPositivos < 2_048 * 0.03, "Las claves con el mismo hashCode no deberían pasar el filtro: " + falsosPositivos);
+    }
+
+    /**
+     * Prueba para verificar que los totales de unidades y el índice de pocas existencias se mantengan
+     * iguales a recorrer el catálogo, tras altas, ediciones, bajas, ventas simultáneas, recargas y cambios de umbral.
+     */
+    @Test
+    public void testExistenciasAgregadasCoincidenConRecorrerElCatalogo() throws Exception {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        for (int i = 0; i < 200; i++) {
+            inventario.agregarProducto(new Producto(String.format("E%03d", i), "Malla " + i, "Ligera", "s:" + (i % 9) + "|l:" + (i % 13)));
+        }
+        inventario.editarProducto("E005", "Reforzada", Map.of("s", 40, "xl", 2));
+        inventario.eliminarProducto("E010");
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < 4; h++) {
+            int desplazamiento = h;
+            tareas.add(hilos.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    String sku = String.format("E%03d", (i * 7 + desplazamiento) % 200);
+                    if (i % 3 == 0) {
+                        inventario.devolver(sku, "s", 1);
+                    } else {
+                        inventario.vender(sku, "s", 1);
+                    }
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        hilos.shutdown();
+        verificarExistencias(inventario);
+
+        inventario.setUmbralPocasExistencias(8);
+        verificarExistencias(inventario);
+        List<Producto> primeros = inventario.productosConPocasExistencias(null, 3);
+        List<Producto> siguientes = inventario.productosConPocasExistencias(primeros.get(2).getSku(), 3);
+        assertTrue(siguientes.get(0).getSku().compareTo(primeros.get(2).getSku()) > 0, "La paginación debería continuar en orden de SKU");
+
+        inventario.cerrar();
+        Inventario recuperado = new Inventario();
+        recuperado.cargarDesdeCSV(archivoCSV);
+        verificarExistencias(recuperado);
+        assertEquals(inventario.totalUnidades(), recuperado.totalUnidades(), "La carga debería reconstruir los totales");
+    }
+
+    /**
+     * Prueba para verificar el modo por lotes.
+     * Asegura que cada comando produzca su resultado en orden, que los cambios se apliquen y queden en la
+     * bitácora (sin reescribir el CSV durante el lote) y que un inventario nuevo los recupere.
+     */
+    @Test
+    public void testLoteAplicaComandosYRegistraCambiosEnBitacora() throws IOException {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        String comandos = String.join("\n",
+            "# Comentario",
+            "agregar,003,Guantes de Gimnasio,Alta intensidad,m:18",
+            "vender,001,xs,2",
+            "vender,002,xs,1",
+            "editar,002,,m:12|l:3",
+            "",
+            "buscar,002",
+            "nombre,Guantes de Gimnasio",
+            "devolver,003,m,2",
+            "eliminar,999",
+            "vender,001,xs,cero",
+            "saltar,001");
+        StringWriter salida = new StringWriter();
+        ProcesadorLotes procesador = new ProcesadorLotes(inventario);
+        procesador.procesar(new BufferedReader(new StringReader(comandos)), salida);
+
+        assertEquals(List.of(
+            "OK agregar 003",
+            "OK vender 001 xs 3",
+            "ERROR línea 4: vender 002 xs: producto, talla o existencias insuficientes",
+            "OK editar 002",
+            "002,Conjunto de Gimnasia,Transpirable,m:12|l:3",
+            "003,Guantes de Gimnasio,Alta intensidad,m:18",
+            "OK devolver 003 m 20",
+            "NO_ENCONTRADO 999",
+            "ERROR línea 11: cantidad inválida: cero",
+            "ERROR línea 12: comando desconocido"), List.of(salida.toString().split("\n")));
+        assertEquals(10, procesador.getComandos(), "Las líneas vacías y los comentarios no deberían contarse");
+        assertEquals(2, procesador.getInvalidos());
+        assertEquals(2, procesador.getFallidos());
+        assertEquals(18 + 3 + 12 + 3 + 2, inventario.totalUnidades(), "Los totales deberían reflejar el lote");
+        assertEquals(3, Files.readAllLines(Path.of(archivoCSV)).size(), "El CSV no debería reescribirse durante el lote");
+        assertEquals(4, Files.readAllLines(Path.of(BitacoraCambios.rutaPara(archivoCSV))).size(),
+            "La bitácora debería contener un registro por cambio aplicado");
+
+        Inventario recuperado = new Inventario();
+        recuperado.cargarDesdeCSV(archivoCSV);
+        assertEquals(Integer.valueOf(3), recuperado.buscarPorSKU("001").getTallas().get("xs"));
+        assertEquals(Map.of("m", 12, "l", 3), recuperado.buscarPorSKU("002").getTallas());
+        assertEquals(Integer.valueOf(20), recuperado.buscarPorSKU("003").getTallas().get("m"));
+    }
+
+    /**
+     * Prueba para verificar que un error inesperado del lector del lote termine el procesamiento
+     * con una excepción en lugar de dejarlo esperando el siguiente grupo.
+     */
+    @Test
+    public void testLoteTerminaSiElLectorFalla() {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        BufferedReader entrada = new BufferedReader(new StringReader("VENDER,001,xs,1\n")) {
+            private int leidas;
+
+            @Override
+            public String readLine() throws IOException {
+                if (++leidas > 1) {
+                    throw new IllegalStateException("entrada dañada");
+                }
+                return super.readLine();
+            }
+        };
+        ProcesadorLotes procesador = new ProcesadorLotes(inventario);
+        IOException error = assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> assertThrows(IOException.class, () -> procesador.procesar(entrada, new StringWriter())),
+            "El procesamiento no debería quedarse esperando");
+        assertTrue(error.getCause() instanceof IllegalStateException, "Debería conservarse el error original");
+    }
+
+    /**
+     * Prueba para verificar el modo servidor.
+     * Asegura que las consultas respondan JSON, que una venta descuente existencias y que los errores
+     * tengan el código HTTP esperado.
+     */
+    @Test
+    public void testServidorRespondeConsultasYVentasEnJSON() throws Exception {
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(archivoCSV);
+        ServidorInventario servidor = new ServidorInventario(inventario, 0, 2);
+        servidor.iniciar();
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            String base = "http://localhost:" + servidor.getPuerto() + "/productos";
+
+            HttpResponse<String> respuesta = enviar(cliente, "GET", base + "/002");
+            assertEquals(200, respuesta.statusCode());
+            assertEquals("{\"sku\":\"002\",\"nombre\":\"Conjunto de Gimnasia\",\"descripcion\":\"Transpirable\",\"tallas\":{\"m\":10}}", respuesta.body());
+            assertEquals(404, enviar(cliente, "GET", base + "/999").statusCode(), "Un SKU inexistente debería responder 404");
+            assertEquals(404, enviar(cliente, "GET", base + "0002").statusCode(), "Una ruta que solo empieza con /productos debería responder 404");
+            assertTrue(enviar(cliente, "GET", base + "?nombre=Conjunto%20de%20Gimnasia").body().contains("\"sku\":\"002\""));
+            inventario.agregarProducto(new Producto("003", "Conjunto de Gimnasia", "Ligero", "s:4"));
+            String limitados = enviar(cliente, "GET", base + "?nombre=Conjunto%20de%20Gimnasia&limite=1").body();
+            assertEquals(1, limitados.split("\"sku\"", -1).length - 1, "La búsqueda por nombre debería respetar el límite");
+            inventario.eliminarProducto("003");
+            assertTrue(enviar(cliente, "GET", base + "?prefijo=short").body().contains("\"sku\":\"001\""));
+            assertTrue(enviar(cliente, "GET", base + "?pagina=0&tamano=1").body().startsWith("{\"pagina\":0,\"tamano\":1,\"total\":2,"));
+            assertEquals(400, enviar(cliente, "GET", base + "?pagina=-1").statusCode(), "Un parámetro inválido debería responder 400");
+
+            respuesta = enviar(cliente, "POST", base + "/001/venta?talla=xs&cantidad=3");
+            assertEquals(200, respuesta.statusCode());
+            assertEquals("{\"sku\":\"001\",\"talla\":\"xs\",\"vendidas\":3,\"restantes\":2}", respuesta.body());
+            assertEquals(2, inventario.buscarPorSKU("001").getCantidad("xs"), "La venta debería descontar existencias");
+            assertEquals(409, enviar(cliente, "POST", base + "/001/venta?talla=xs&cantidad=3").statusCode(),
+                "Una venta sin existencias suficientes debería responder 409");
+            assertEquals(405, enviar(cliente, "GET", base + "/001/venta?talla=xs").statusCode());
+            assertEquals(0, servidor.getFallidas(), "Ninguna solicitud debería terminar en error del servidor");
+        } finally {
+            servidor.detener();
+        }
+    }
+
+    // Envía una solicitud sin cuerpo y devuelve la respuesta como texto.
+    private static HttpResponse<String> enviar(HttpClient cliente, String metodo, String url) throws Exception {
+        HttpRequest solicitud = HttpRequest.newBuilder(URI.create(url)).method(metodo, HttpRequest.BodyPublishers.noBody()).build();
+        return cliente.send(solicitud, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    // Compara los totales e índice mantenidos por el inventario con los obtenidos al recorrer todos sus productos.
+    private static void verificarExistencias(Inventario inventario) {
+        long total = 0;
+        Map<String, Long> porTalla = new HashMap<>();
+        List<String> pocas = new ArrayList<>();
+        for (Producto producto : inventario.paginaPorSKU(0, 10_000)) {
+            boolean baja = false;
+            for (Map.Entry<String, Integer> talla : producto.getTallas().entrySet()) {
+                total += talla.getValue();
+                porTalla.merge(talla.getKey(), (long) talla.getValue(), Long::sum);
+                baja |= talla.getValue() < inventario.getUmbralPocasExistencias();
+            }
+            if (baja) {
+                pocas.add(producto.getSku());
+            }
+        }
+        List<String> indice = new ArrayList<>();
+        for (Producto producto : inventario.productosConPocasExistencias(null, Integer.MAX_VALUE)) {
+            indice.add(producto.getSku());
+        }
+        assertEquals(total, inventario.totalUnidades(), "El total de unidades debería coincidir con el catálogo");
+        assertEquals(porTalla, new HashMap<>(inventario.unidadesPorTalla()), "Los totales por talla deberían coincidir con el catálogo");
+        assertEquals(pocas, indice, "El índice de pocas existencias debería coincidir con el catálogo, en orden de SKU");
+        assertEquals(pocas.size(), inventario.cantidadConPocasExistencias(), "La cantidad de productos con pocas existencias debería coincidir");
+    }
+}
@@ -9,20 +9,51 @@
  * @FileName : Main.java
  */
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
 public class Main {
+    private static final int MAXIMO_RESULTADOS = 20; // Resultados mostrados en la búsqueda por parte del nombre.
+    private static final int TAMANO_PAGINA = 20; // Productos mostrados por página al listar.
+    private static final int TAMANO_BUFFER_LOTE = 1 << 16; // Bytes del búfer de entrada y salida en el modo por lotes.
+    private static final int PUERTO_POR_DEFECTO = 8080; // Puerto del modo servidor si no se indica otro.
 
     /**
      * Método principal que ejecuta el sistema de inventario.
-     * Presenta un menú interactivo para gestionar productos en el inventario.
+     * Presenta un menú interactivo para gestionar productos en el inventario o, con
+     * "--lote inventario.csv [comandos.txt]", ejecuta un archivo de comandos (o la entrada estándar)
+     * sin menú (ver ProcesadorLotes), y con "--servidor inventario.csv [puerto]" atiende consultas y ventas
+     * por HTTP (ver ServidorInventario). Las métricas están desactivadas hasta elegir "Ver métricas",
+     * o desde el inicio con "--metricas".
      * 
-     * @param args Argumentos de línea de comandos (no utilizados).
+     * @param args Argumentos de línea de comandos (vacíos o "--metricas" para el menú interactivo).
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--lote")) {
+            ejecutarLote(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            ejecutarServidor(args);
+            return;
+        }
         Inventario inventario = new Inventario();
+        if (args.length > 0 && args[0].equals("--metricas")) {
+            inventario.activarMetricas(true);
+        }
         Scanner scanner = new Scanner(System.in);
         boolean continuar = true;
 
@@ -36,6 +67,10 @@ public class Main {
             System.out.println("6. Buscar producto por SKU");
             System.out.println("7. Buscar producto por nombre");
             System.out.println("8. Salir");
+            System.out.println("9. Buscar productos por parte del nombre");
+            System.out.println("10. Eliminar producto");
+            System.out.println("11. Ver métricas");
+            System.out.println("12. Aplicar archivo de cambios (delta)");
             System.out.print("Seleccione una opción: ");
 
             int opcion;
@@ -51,6 +86,7 @@ public class Main {
                     System.out.print("Ingrese el nombre del archivo CSV (e.g., inventario.csv): ");
                     String nombreArchivo = scanner.nextLine();
                     inventario.cargarDesdeCSV(nombreArchivo);
+                    Diagnosticos.vaciar();
                     break;
 
                 case 2:
@@ -75,18 +111,17 @@ public class Main {
                     if (producto != null) {
                         System.out.print("Nueva descripción (deje en blanco para mantener actual): ");
                         String nuevaDesc = scanner.nextLine();
-                        if (!nuevaDesc.isEmpty()) {
-                            producto.setDescripcion(nuevaDesc);
+                        if (nuevaDesc.isEmpty()) {
+                            nuevaDesc = producto.getDescripcion();
                         }
 
                         System.out.print("Nuevas tallas y cantidades (formato xs:5|s:10, deje en blanco para mantener actual): ");
                         String nuevasTallasInput = scanner.nextLine();
-                        if (!nuevasTallasInput.isEmpty()) {
-                            producto.setTallas(parsearTallasInput(nuevasTallasInput));
-                            inventario.editarProducto(skuEditar, producto.getDescripcion(), producto.getTallas());
-                        } else {
-                            inventario.editarProducto(skuEditar, producto.getDescripcion(), producto.getTallas());
-                        }
+                        // El inventario reemplaza el producto con los nuevos datos; el encontrado no se modifica.
+                        Map<String, Integer> nuevasTallas = nuevasTallasInput.isEmpty()
+                            ? producto.getTallas()
+                            : parsearTallasInput(nuevasTallasInput);
+                        inventario.editarProducto(skuEditar, nuevaDesc, nuevasTallas);
                         System.out.println("Producto editado exitosamente.");
                     } else {
                         System.out.println("Producto no encontrado.");
@@ -94,11 +129,31 @@ public class Main {
                     break;
 
                 case 4:
-                    inventario.listarPorSKU();
-                    break;
-
                 case 5:
-                    inventario.listarPorNombre();
+                    System.out.print("Número de página (deje en blanco para listar todo): ");
+                    String paginaInput = scanner.nextLine().trim();
+                    if (paginaInput.isEmpty()) {
+                        if (opcion == 4) {
+                            inventario.listarPorSKU();
+                        } else {
+                            inventario.listarPorNombre();
+                        }
+                        break;
+                    }
+                    try {
+                        int pagina = Integer.parseInt(paginaInput);
+                        List<Producto> productos = opcion == 4
+                            ? inventario.paginaPorSKU(pagina - 1, TAMANO_PAGINA)
+                            : inventario.paginaPorNombre(pagina - 1, TAMANO_PAGINA);
+                        if (productos.isEmpty()) {
+                            System.out.println("La página " + pagina + " no tiene productos.");
+                        }
+                        for (Producto p : productos) {
+                            System.out.println(p);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Por favor, ingrese un número de página válido.");
+                    }
                     break;
 
                 case 6:
@@ -115,19 +170,68 @@ public class Main {
                 case 7:
                     System.out.print("Ingrese el nombre a buscar: ");
                     String nombreBuscar = scanner.nextLine();
-                    Producto encontradoNombre = inventario.buscarPorNombre(nombreBuscar);
-                    if (encontradoNombre != null) {
-                        System.out.println("Producto encontrado: " + encontradoNombre);
-                    } else {
+                    List<Producto> encontradosNombre = inventario.buscarTodosPorNombre(nombreBuscar);
+                    if (encontradosNombre.isEmpty()) {
                         System.out.println("Producto con nombre '" + nombreBuscar + "' no encontrado.");
                     }
+                    for (Producto encontradoNombre : encontradosNombre) {
+                        System.out.println("Producto encontrado: " + encontradoNombre);
+                    }
                     break;
 
                 case 8:
                     continuar = false;
+                    inventario.cerrar();
+                    Diagnosticos.vaciar();
                     System.out.println("Saliendo del sistema...");
                     break;
 
+                case 9:
+                    System.out.print("Ingrese el texto a buscar: ");
+                    String textoBuscar = scanner.nextLine();
+                    System.out.print("¿Buscar solo al inicio del nombre? (s/n): ");
+                    boolean soloPrefijo = scanner.nextLine().trim().equalsIgnoreCase("s");
+                    List<Producto> coincidencias = soloPrefijo
+                        ? inventario.buscarPorPrefijo(textoBuscar, MAXIMO_RESULTADOS)
+                        : inventario.buscarPorContenido(textoBuscar, MAXIMO_RESULTADOS);
+                    if (coincidencias.isEmpty()) {
+                        System.out.println("No se encontraron productos para '" + textoBuscar + "'.");
+                    } else {
+                        for (Producto coincidencia : coincidencias) {
+                            System.out.println(coincidencia);
+                        }
+                    }
+                    break;
+
+                case 10:
+                    System.out.print("Ingrese el SKU del producto a eliminar: ");
+                    String skuEliminar = scanner.nextLine();
+                    if (inventario.eliminarProducto(skuEliminar)) {
+                        System.out.println("Producto eliminado exitosamente.");
+                    } else {
+                        System.out.println("Producto con SKU " + skuEliminar + " no encontrado.");
+                    }
+                    break;
+
+                case 11:
+                    System.out.print(inventario.resumenMetricas());
+                    if (inventario.getMetricas() == null) {
+                        inventario.activarMetricas(true);
+                        System.out.println("Métricas activadas: las operaciones se registran a partir de ahora.");
+                    }
+                    break;
+
+                case 12:
+                    System.out.print("Ingrese el nombre del archivo de cambios (e.g., cambios.csv): ");
+                    String archivoDelta = scanner.nextLine();
+                    ResumenDelta resumenDelta = inventario.aplicarDelta(archivoDelta);
+                    Diagnosticos.vaciar();
+                    System.out.println(resumenDelta);
+                    if (!resumenDelta.isCompleto()) {
+                        System.out.println("El archivo de cambios no se aplicó completo; revise el archivo y vuelva a aplicarlo.");
+                    }
+                    break;
+
                 default:
                     System.out.println("Opción no válida. Intente de nuevo.");
             }
@@ -135,6 +239,75 @@ public class Main {
         scanner.close();
     }
 
+    /**
+     * Ejecuta el modo por lotes: carga el inventario, aplica los comandos escribiendo un resultado por
+     * línea en la salida estándar y, al terminar, guarda el inventario y muestra el reporte de rendimiento
+     * en la salida de errores, para no mezclarlo con los resultados.
+     * 
+     * @param args "--lote", el archivo CSV del inventario y, opcionalmente, el archivo de comandos.
+     */
+    private static void ejecutarLote(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Uso: java Main --lote inventario.csv [comandos.txt]");
+            return;
+        }
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(args[1]);
+        Diagnosticos.vaciar();
+        ProcesadorLotes procesador = new ProcesadorLotes(inventario);
+        // La salida estándar no se cierra al terminar: el inventario la sigue usando para sus mensajes.
+        Writer salida = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), Charset.defaultCharset()), TAMANO_BUFFER_LOTE);
+        try (Reader origen = args.length == 3 ? new FileReader(args[2]) : new InputStreamReader(System.in, Charset.defaultCharset());
+             BufferedReader entrada = new BufferedReader(origen, TAMANO_BUFFER_LOTE)) {
+            procesador.procesar(entrada, salida);
+        } catch (IOException e) {
+            System.out.println("Error al procesar el lote: " + e.getMessage());
+        }
+        long inicio = System.nanoTime();
+        inventario.cerrar(); // Única reescritura del CSV en todo el lote.
+        long guardado = (System.nanoTime() - inicio) / 1_000_000;
+        Diagnosticos.vaciar();
+        System.err.println(procesador + " Inventario guardado en " + guardado + " ms.");
+    }
+
+    /**
+     * Carga el inventario y lo expone por HTTP hasta que se detenga el proceso (por ejemplo, con Ctrl+C);
+     * al detenerse deja de atender solicitudes y guarda el inventario.
+     *
+     * @param args "--servidor", el CSV del inventario y, opcionalmente, el puerto.
+     */
+    private static void ejecutarServidor(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Uso: java Main --servidor inventario.csv [puerto]");
+            return;
+        }
+        int puerto;
+        try {
+            puerto = args.length == 3 ? Integer.parseInt(args[2]) : PUERTO_POR_DEFECTO;
+        } catch (NumberFormatException e) {
+            System.out.println("Por favor, ingrese un puerto válido.");
+            return;
+        }
+        Inventario inventario = new Inventario();
+        inventario.cargarDesdeCSV(args[1]);
+        Diagnosticos.vaciar();
+        ServidorInventario servidor;
+        try {
+            servidor = new ServidorInventario(inventario, puerto, Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+        } catch (IOException e) {
+            System.out.println("Error al abrir el puerto " + puerto + ": " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.detener();
+            inventario.cerrar();
+            Diagnosticos.vaciar();
+            System.out.println("Servidor detenido después de " + servidor.getAtendidas() + " solicitudes.");
+        }, "cierre-servidor"));
+        servidor.iniciar();
+        System.out.println("Servidor escuchando en http://localhost:" + servidor.getPuerto() + "/productos (Ctrl+C para detener).");
+    }
+
     /**
      * Método auxiliar para parsear la entrada de tallas y cantidades.
      * Convierte una cadena en formato "xs:10|s:15" a un mapa de tallas y cantidades.
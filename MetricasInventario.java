@@ -0,0 +1,175 @@
+/**
+ * Clase MetricasInventario que registra, por cada tipo de operación del inventario, cuántas veces
+ * se realizó, su rendimiento (operaciones por segundo desde que se activaron o reiniciaron las métricas)
+ * y la distribución de su latencia (ver HistogramaLatencias). También acumula las comparaciones de
+ * claves que necesitó cada búsqueda en los árboles.
+ * Todos los registros son seguros desde varios hilos y no toman candados.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : MetricasInventario.java
+ */
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetricasInventario {
+
+    /**
+     * Operaciones del inventario que se miden.
+     */
+    public enum Operacion {
+        AGREGAR("Agregar"),
+        EDITAR("Editar"),
+        BUSCAR_SKU("Buscar por SKU"),
+        BUSCAR_NOMBRE("Buscar por nombre"),
+        CARGAR("Cargar CSV"),
+        GUARDAR("Guardar CSV");
+
+        private final String descripcion; // Nombre mostrado en el resumen.
+
+        Operacion(String descripcion) {
+            this.descripcion = descripcion;
+        }
+
+        /**
+         * Obtiene el nombre de la operación para mostrarlo.
+         *
+         * @return La descripción de la operación.
+         */
+        public String getDescripcion() {
+            return descripcion;
+        }
+    }
+
+    private final Map<Operacion, HistogramaLatencias> latencias; // Histograma de cada operación.
+    private final LongAdder comparaciones = new LongAdder(); // Comparaciones de claves de todas las búsquedas.
+    private final LongAdder busquedas = new LongAdder(); // Búsquedas que recorrieron un árbol.
+    private final AtomicLong comparacionesMaximas = new AtomicLong(); // Mayor cantidad de comparaciones de una búsqueda.
+    private volatile long inicio; // Momento (System.nanoTime) desde el que se cuenta el rendimiento.
+
+    /**
+     * Constructor de la clase MetricasInventario.
+     * Crea un histograma vacío para cada operación.
+     */
+    public MetricasInventario() {
+        latencias = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            latencias.put(operacion, new HistogramaLatencias());
+        }
+        inicio = System.nanoTime();
+    }
+
+    /**
+     * Registra una operación terminada.
+     *
+     * @param operacion La operación realizada.
+     * @param inicioNanos El momento en que empezó, obtenido con System.nanoTime().
+     */
+    public void registrar(Operacion operacion, long inicioNanos) {
+        latencias.get(operacion).registrar(System.nanoTime() - inicioNanos);
+    }
+
+    /**
+     * Registra las comparaciones de claves que necesitó una búsqueda en un árbol.
+     *
+     * @param cantidad Las comparaciones realizadas.
+     */
+    public void registrarComparaciones(int cantidad) {
+        comparaciones.add(cantidad);
+        busquedas.increment();
+        if (cantidad > comparacionesMaximas.get()) {
+            comparacionesMaximas.accumulateAndGet(cantidad, Math::max);
+        }
+    }
+
+    /**
+     * Obtiene el histograma de latencias de una operación.
+     *
+     * @param operacion La operación.
+     * @return Su histograma, en nanosegundos.
+     */
+    public HistogramaLatencias getLatencias(Operacion operacion) {
+        return latencias.get(operacion);
+    }
+
+    /**
+     * Obtiene la cantidad de veces que se realizó una operación.
+     *
+     * @param operacion La operación.
+     * @return El número de operaciones registradas.
+     */
+    public long getCantidad(Operacion operacion) {
+        return latencias.get(operacion).getCantidad();
+    }
+
+    /**
+     * Obtiene el rendimiento de una operación desde que se activaron o reiniciaron las métricas.
+     *
+     * @param operacion La operación.
+     * @return Operaciones por segundo.
+     */
+    public double getRendimiento(Operacion operacion) {
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        return segundos > 0 ? getCantidad(operacion) / segundos : 0;
+    }
+
+    /**
+     * Obtiene el promedio de comparaciones de claves por búsqueda en los árboles.
+     * Las búsquedas resueltas por la caché no recorren el árbol y no se cuentan.
+     *
+     * @return Las comparaciones promedio, o 0 si no hubo búsquedas.
+     */
+    public double getComparacionesPromedio() {
+        long total = busquedas.sum();
+        return total == 0 ? 0 : (double) comparaciones.sum() / total;
+    }
+
+    /**
+     * Obtiene la mayor cantidad de comparaciones de claves que necesitó una búsqueda.
+     *
+     * @return Las comparaciones máximas, o 0 si no hubo búsquedas.
+     */
+    public long getComparacionesMaximas() {
+        return comparacionesMaximas.get();
+    }
+
+    /**
+     * Descarta todo lo registrado y vuelve a contar el rendimiento desde este momento.
+     */
+    public void reiniciar() {
+        for (HistogramaLatencias histograma : latencias.values()) {
+            histograma.reiniciar();
+        }
+        comparaciones.reset();
+        busquedas.reset();
+        comparacionesMaximas.set(0);
+        inicio = System.nanoTime();
+    }
+
+    /**
+     * Genera una tabla con la cantidad, el rendimiento y los percentiles (en microsegundos) de cada operación,
+     * y las comparaciones por búsqueda.
+     *
+     * @return El resumen en texto.
+     */
+    public String resumen() {
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format("%-18s %10s %10s %10s %10s %10s %10s%n",
+            "Operación", "Cantidad", "op/s", "p50 µs", "p99 µs", "p99.9 µs", "máx µs"));
+        for (Operacion operacion : Operacion.values()) {
+            HistogramaLatencias histograma = latencias.get(operacion);
+            texto.append(String.format("%-18s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                operacion.getDescripcion(), histograma.getCantidad(), getRendimiento(operacion),
+                histograma.percentil(50) / 1e3, histograma.percentil(99) / 1e3,
+                histograma.percentil(99.9) / 1e3, histograma.getMaximo() / 1e3));
+        }
+        texto.append(String.format("Comparaciones por búsqueda: promedio %.1f, máximo %d%n",
+            getComparacionesPromedio(), getComparacionesMaximas()));
+        return texto.toString();
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Clase ProcesadorLotes que ejecuta un archivo (o flujo) de comandos sobre el inventario sin menú
+ * interactivo, para los scripts que hoy alimentan el menú de Main por la entrada estándar.
+ * Trabaja como una tubería de dos etapas: un hilo lee e interpreta las líneas (ver ComandoLote) y las
+ * entrega en grupos de TAMANO_GRUPO comandos, mientras el hilo que llama aplica cada grupo con una sola
+ * toma del candado de escritura y una sola escritura en la bitácora (Inventario.ejecutarComandos) y
+ * escribe los resultados a una salida con búfer. Durante el lote el CSV no se reescribe aunque se alcance
+ * el límite de cambios; el llamador lo persiste una sola vez al final (con compactar() o cerrar()).
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : ProcesadorLotes.java
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class ProcesadorLotes {
+    public static final int TAMANO_GRUPO = 4_096; // Comandos aplicados por cada toma del candado de escritura.
+    private static final int GRUPOS_ADELANTADOS = 8; // Grupos que el lector puede interpretar antes de que se apliquen.
+    private static final List<ComandoLote> FIN = new ArrayList<>(); // Marca el final de la entrada en la cola.
+
+    private final Inventario inventario; // Inventario sobre el que se aplican los comandos.
+    private long comandos; // Comandos leídos (sin contar líneas vacías ni comentarios).
+    private long invalidos; // Líneas con formato inválido.
+    private long fallidos; // Comandos válidos que no se aplicaron o no encontraron el producto.
+    private long nanos; // Duración de la lectura y la aplicación de los comandos.
+    private volatile IOException errorLectura; // Error del hilo lector, relanzado por procesar.
+    private volatile Error errorGrave; // Error de la máquina virtual en el hilo lector, relanzado por procesar.
+
+    /**
+     * Constructor de la clase ProcesadorLotes.
+     *
+     * @param inventario El inventario sobre el que se ejecutan los comandos.
+     */
+    public ProcesadorLotes(Inventario inventario) {
+        this.inventario = inventario;
+    }
+
+    /**
+     * Lee y ejecuta todos los comandos de la entrada y escribe un resultado por comando en la salida.
+     * No cierra la entrada ni la salida.
+     *
+     * @param entrada Las líneas de comandos.
+     * @param salida Donde se escriben los resultados (conviene que tenga búfer).
+     * @throws IOException Si ocurre un error al leer o interpretar la entrada, o al escribir la salida.
+     */
+    public void procesar(BufferedReader entrada, Writer salida) throws IOException {
+        long inicio = System.nanoTime();
+        BlockingQueue<List<ComandoLote>> grupos = new ArrayBlockingQueue<>(GRUPOS_ADELANTADOS);
+        Thread lector = new Thread(() -> leer(entrada, grupos), "lector-lotes");
+        lector.setDaemon(true);
+        lector.start();
+        StringBuilder resultados = new StringBuilder();
+        try {
+            for (List<ComandoLote> grupo = grupos.take(); grupo != FIN; grupo = grupos.take()) {
+                inventario.ejecutarComandos(grupo);
+                for (ComandoLote comando : grupo) {
+                    comando.escribirResultado(resultados);
+                    if (comando.getTipo() == ComandoLote.Tipo.INVALIDO) {
+                        invalidos++;
+                    } else if (!comando.isExito()) {
+                        fallidos++;
+                    }
+                }
+                comandos += grupo.size();
+                salida.append(resultados);
+                resultados.setLength(0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Se interrumpió el procesamiento del lote");
+        } finally {
+            lector.interrupt(); // Si la aplicación falló, el lector deja de esperar espacio en la cola.
+        }
+        salida.flush();
+        if (errorGrave != null) {
+            throw errorGrave;
+        }
+        if (errorLectura != null) {
+            throw errorLectura;
+        }
+        nanos = System.nanoTime() - inicio;
+    }
+
+    // Etapa del hilo lector: interpreta las líneas y entrega los comandos en grupos; al terminar
+    // (o ante cualquier error, que se guarda para que procesar lo relance) entrega la marca FIN.
+    private void leer(BufferedReader entrada, BlockingQueue<List<ComandoLote>> grupos) {
+        long numero = 0;
+        boolean cancelado = false;
+        try {
+            List<ComandoLote> grupo = new ArrayList<>(TAMANO_GRUPO);
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                ComandoLote comando = ComandoLote.parsear(linea, ++numero);
+                if (comando == null) {
+                    continue;
+                }
+                grupo.add(comando);
+                if (grupo.size() == TAMANO_GRUPO) {
+                    grupos.put(grupo);
+                    grupo = new ArrayList<>(TAMANO_GRUPO);
+                }
+            }
+            if (!grupo.isEmpty()) {
+                grupos.put(grupo);
+            }
+        } catch (InterruptedException e) {
+            cancelado = true; // El procesamiento se canceló; nadie espera más grupos.
+        } catch (IOException e) {
+            errorLectura = e;
+        } catch (RuntimeException e) {
+            errorLectura = new IOException("Error al interpretar la línea " + numero + " del lote: " + e, e);
+        } catch (Error e) {
+            errorGrave = e;
+        } finally {
+            // Sin la marca, procesar esperaría para siempre el siguiente grupo.
+            if (!cancelado) {
+                try {
+                    grupos.put(FIN);
+                } catch (InterruptedException e) {
+                    // El procesamiento se canceló mientras se entregaba la marca.
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de comandos procesados.
+     *
+     * @return El número de comandos, incluidos los inválidos.
+     */
+    public long getComandos() {
+        return comandos;
+    }
+
+    /**
+     * Obtiene la cantidad de líneas rechazadas por su formato.
+     *
+     * @return El número de comandos inválidos.
+     */
+    public long getInvalidos() {
+        return invalidos;
+    }
+
+    /**
+     * Obtiene la cantidad de comandos válidos que no se aplicaron (producto o talla inexistentes,
+     * existencias insuficientes) o búsquedas sin resultados.
+     *
+     * @return El número de comandos fallidos.
+     */
+    public long getFallidos() {
+        return fallidos;
+    }
+
+    /**
+     * Calcula el rendimiento de la lectura y la aplicación de los comandos.
+     *
+     * @return Los comandos por segundo.
+     */
+    public double comandosPorSegundo() {
+        return nanos == 0 ? 0 : comandos / (nanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Lote: %,d comandos en %.2f s (%,.0f comandos/s), %,d inválidos, %,d sin aplicar o sin resultados.",
+            comandos, nanos / 1e9, comandosPorSegundo(), invalidos, fallidos);
+    }
+}
@@ -1,6 +1,10 @@
 /**
  * Clase Producto que representa un producto en el inventario de ropa deportiva.
  * Contiene información sobre el SKU, nombre, descripción y tallas disponibles.
+ * Las cantidades por talla se guardan en un arreglo de enteros primitivos indexado por el
+ * identificador global de cada talla (ver DiccionarioTallas), sin mapas ni objetos Integer
+ * por producto. Cada cantidad se actualiza de forma atómica, de modo que varios hilos pueden
+ * descontar existencias del mismo producto sin candados.
  * 
  * @Project : Hoja de Trabajo 7
  * @Author : Luis Girón
@@ -9,14 +13,37 @@
  * @FileName : Producto.java
  */
 
-import java.util.HashMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class Producto {
+    // Acceso atómico a cada posición del arreglo de cantidades.
+    private static final VarHandle CANTIDAD = MethodHandles.arrayElementVarHandle(int[].class);
+    static final int AUSENTE = Integer.MIN_VALUE; // Marca de una talla que el producto no tiene.
+
     private final String sku; // Código único del producto.
     private final String nombre; // Nombre del producto.
-    private String descripcion; // Descripción del producto.
-    private Map<String, Integer> tallas; // Mapa de tallas y cantidades disponibles.
+    private volatile String descripcion; // Descripción del producto.
+    // Cantidad de cada talla, indexada por su identificador en DiccionarioTallas (AUSENTE si el
+    // producto no la tiene). Para agregar o quitar tallas se publica un arreglo nuevo.
+    private volatile int[] cantidades;
+    // Cantidades que tenía el producto al tomar la instantánea que se está exportando, copiadas en la
+    // primera venta posterior a ella (null si no hubo ventas desde entonces).
+    private volatile Conservadas conservadas;
+
+    // Copia de las cantidades y la instantánea de exportación a la que pertenece.
+    private static final class Conservadas {
+        final long instantanea; // Instantánea a la que pertenece la copia.
+        final int[] cantidades; // Cantidades al tomar la instantánea.
+
+        Conservadas(long instantanea, int[] cantidades) {
+            this.instantanea = instantanea;
+            this.cantidades = cantidades;
+        }
+    }
 
     /**
      * Constructor de la clase Producto.
@@ -31,7 +58,31 @@ public class Producto {
         this.sku = sku;
         this.nombre = nombre;
         this.descripcion = descripcion;
-        this.tallas = parsearTallas(datosTallas);
+        this.cantidades = parsearCantidades(datosTallas);
+    }
+
+    /**
+     * Constructor de la clase Producto a partir de un mapa de tallas ya construido.
+     * 
+     * @param sku Código único del producto.
+     * @param nombre Nombre del producto.
+     * @param descripcion Descripción del producto.
+     * @param tallas Mapa de tallas y cantidades disponibles.
+     */
+    public Producto(String sku, String nombre, String descripcion, Map<String, Integer> tallas) {
+        this.sku = sku;
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+        this.cantidades = desdeMapa(tallas);
+    }
+
+    // Constructor a partir del arreglo de cantidades ya indexado por identificador de talla (AUSENTE en
+    // las tallas que el producto no tiene), sin mapa ni objetos Integer. El producto se queda con el arreglo.
+    Producto(String sku, String nombre, String descripcion, int[] cantidades) {
+        this.sku = sku;
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+        this.cantidades = cantidades;
     }
 
     /**
@@ -41,23 +92,202 @@ public class Producto {
      * @param datosTallas Cadena con el formato de tallas y cantidades.
      * @return Un mapa con las tallas como claves y las cantidades como valores.
      */
-    private Map<String, Integer> parsearTallas(String datosTallas) {
-        Map<String, Integer> mapaTallas = new HashMap<>();
+    public static Map<String, Integer> parsearTallas(String datosTallas) {
+        return aMapa(parsearCantidades(datosTallas));
+    }
+
+    // Convierte una cadena en formato "xs:10|s:15" directamente al arreglo de cantidades, sin mapa intermedio.
+    // Los separadores se localizan a mano, sin expresiones regulares, porque este método
+    // se ejecuta una vez por fila al cargar el inventario.
+    private static int[] parsearCantidades(String datosTallas) {
+        int[] resultado = nuevoArreglo(DiccionarioTallas.cantidad());
+        int longitud = 0;
         if (datosTallas != null && !datosTallas.isEmpty()) {
-            for (String par : datosTallas.split("\\|")) {
-                String[] partes = par.split(":");
-                if (partes.length == 2) {
+            int fin = datosTallas.length();
+            while (fin > 0 && datosTallas.charAt(fin - 1) == '|') {
+                fin--; // Igual que String.split, se ignoran los separadores finales.
+            }
+            int inicio = 0;
+            while (inicio < fin) {
+                int separador = datosTallas.indexOf('|', inicio);
+                if (separador < 0 || separador > fin) {
+                    separador = fin;
+                }
+                int dosPuntos = datosTallas.indexOf(':', inicio);
+                if (dosPuntos >= 0 && dosPuntos < separador - 1
+                        && datosTallas.lastIndexOf(':', separador - 1) == dosPuntos) {
                     try {
-                        mapaTallas.put(partes[0], Integer.parseInt(partes[1]));
+                        int cantidad = Integer.parseInt(datosTallas, dosPuntos + 1, separador, 10);
+                        int id = DiccionarioTallas.registrar(datosTallas.substring(inicio, dosPuntos));
+                        if (id >= resultado.length) {
+                            resultado = ampliar(resultado, id + 1);
+                        }
+                        resultado[id] = cantidad;
+                        longitud = Math.max(longitud, id + 1);
                     } catch (NumberFormatException e) {
-                        System.out.println("Error al parsear cantidad en: " + par);
+                        Diagnosticos.reportar(Diagnosticos.Tipo.CANTIDAD_INVALIDA, "Error al parsear cantidad en: ", datosTallas, inicio, separador);
                     }
                 } else {
-                    System.out.println("Formato inválido en: " + par);
+                    Diagnosticos.reportar(Diagnosticos.Tipo.TALLA_INVALIDA, "Formato inválido en: ", datosTallas, inicio, separador);
                 }
+                inicio = separador + 1;
             }
         }
-        return mapaTallas;
+        return longitud == resultado.length ? resultado : Arrays.copyOf(resultado, longitud);
+    }
+
+    // Convierte un mapa de tallas al arreglo de cantidades indexado por identificador de talla.
+    private static int[] desdeMapa(Map<String, Integer> tallas) {
+        int longitud = 0;
+        int[] ids = new int[tallas.size()];
+        int i = 0;
+        for (String talla : tallas.keySet()) {
+            ids[i] = DiccionarioTallas.registrar(talla);
+            longitud = Math.max(longitud, ids[i] + 1);
+            i++;
+        }
+        int[] resultado = nuevoArreglo(longitud);
+        i = 0;
+        for (Integer cantidad : tallas.values()) {
+            resultado[ids[i++]] = cantidad;
+        }
+        return resultado;
+    }
+
+    // Convierte el arreglo de cantidades a un mapa, en el orden de los identificadores de talla.
+    private static Map<String, Integer> aMapa(int[] arreglo) {
+        Map<String, Integer> mapa = new LinkedHashMap<>();
+        for (int id = 0; id < arreglo.length; id++) {
+            int cantidad = (int) CANTIDAD.getVolatile(arreglo, id);
+            if (cantidad != AUSENTE) {
+                mapa.put(DiccionarioTallas.nombre(id), cantidad);
+            }
+        }
+        return mapa;
+    }
+
+    // Crea un arreglo de cantidades sin ninguna talla.
+    private static int[] nuevoArreglo(int longitud) {
+        int[] arreglo = new int[longitud];
+        Arrays.fill(arreglo, AUSENTE);
+        return arreglo;
+    }
+
+    // Copia el arreglo a uno más largo; las posiciones nuevas quedan sin talla.
+    private static int[] ampliar(int[] arreglo, int longitud) {
+        int[] ampliado = Arrays.copyOf(arreglo, longitud);
+        Arrays.fill(ampliado, arreglo.length, longitud, AUSENTE);
+        return ampliado;
+    }
+
+    // Devuelve el identificador de la talla si está dentro del arreglo, o -1 en otro caso.
+    private static int indice(int[] arreglo, String talla) {
+        int id = DiccionarioTallas.buscar(talla);
+        return id >= 0 && id < arreglo.length ? id : -1;
+    }
+
+    /**
+     * Convierte un mapa de tallas y cantidades al formato de texto usado en el CSV.
+     * 
+     * @param tallas El mapa de tallas y cantidades.
+     * @return Una cadena con el formato "talla1:cantidad1|talla2:cantidad2".
+     */
+    public static String formatearTallas(Map<String, Integer> tallas) {
+        StringBuilder sb = new StringBuilder();
+        agregarTallas(sb, tallas);
+        return sb.toString();
+    }
+
+    // Agrega las tallas al final del StringBuilder sin crear cadenas intermedias.
+    private static void agregarTallas(StringBuilder sb, Map<String, Integer> tallas) {
+        boolean primera = true;
+        for (Map.Entry<String, Integer> entry : tallas.entrySet()) {
+            if (!primera) sb.append('|');
+            sb.append(entry.getKey()).append(':').append(entry.getValue().intValue());
+            primera = false;
+        }
+    }
+
+    /**
+     * Agrega el producto como una fila CSV ("SKU,Nombre,Descripción,Cantidad por talla")
+     * al final del StringBuilder, incluyendo el salto de línea.
+     * 
+     * @param sb El StringBuilder de destino.
+     */
+    public void escribirFilaCSV(StringBuilder sb) {
+        escribirFilaCSV(sb, 0);
+    }
+
+    // Igual que escribirFilaCSV(sb), pero con las cantidades que tenía el producto en la instantánea de
+    // exportación indicada si se vendió después de tomarla (0 escribe siempre las actuales). Primero se
+    // escriben las actuales y luego se busca la copia: una venta que ya se vio publicó antes su copia.
+    void escribirFilaCSV(StringBuilder sb, long instantanea) {
+        sb.append(sku).append(',').append(nombre).append(',').append(descripcion).append(',');
+        int inicioTallas = sb.length();
+        agregarCantidades(sb, cantidades);
+        Conservadas copia = conservadas;
+        if (instantanea != 0 && copia != null && copia.instantanea == instantanea) {
+            sb.setLength(inicioTallas);
+            agregarCantidades(sb, copia.cantidades);
+        }
+        sb.append('\n');
+    }
+
+    // Agrega las cantidades en formato "xs:10|s:15".
+    private static void agregarCantidades(StringBuilder sb, int[] arreglo) {
+        boolean primera = true;
+        for (int id = 0; id < arreglo.length; id++) {
+            int cantidad = (int) CANTIDAD.getVolatile(arreglo, id);
+            if (cantidad != AUSENTE) {
+                if (!primera) sb.append('|');
+                sb.append(DiccionarioTallas.nombre(id)).append(':').append(cantidad);
+                primera = false;
+            }
+        }
+    }
+
+    /**
+     * Agrega el producto como un objeto JSON al final del StringBuilder, sin salto de línea:
+     * {"sku":"...","nombre":"...","descripcion":"...","tallas":{"xs":10,"m":4}}.
+     *
+     * @param sb El StringBuilder de destino.
+     */
+    public void escribirJSON(StringBuilder sb) {
+        sb.append("{\"sku\":");
+        escribirTextoJSON(sb, sku);
+        sb.append(",\"nombre\":");
+        escribirTextoJSON(sb, nombre);
+        sb.append(",\"descripcion\":");
+        escribirTextoJSON(sb, descripcion);
+        sb.append(",\"tallas\":{");
+        int[] actuales = cantidades;
+        boolean primera = true;
+        for (int id = 0; id < actuales.length; id++) {
+            int cantidad = (int) CANTIDAD.getVolatile(actuales, id);
+            if (cantidad != AUSENTE) {
+                if (!primera) sb.append(',');
+                escribirTextoJSON(sb, DiccionarioTallas.nombre(id));
+                sb.append(':').append(cantidad);
+                primera = false;
+            }
+        }
+        sb.append("}}");
+    }
+
+    // Agrega un texto como cadena JSON, entre comillas y con los caracteres especiales escapados.
+    static void escribirTextoJSON(StringBuilder sb, String texto) {
+        sb.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
     }
 
     /**
@@ -98,30 +328,164 @@ public class Producto {
 
     /**
      * Obtiene el mapa de tallas y cantidades del producto.
+     * El mapa es una copia: modificarlo no afecta al producto.
      * 
      * @return Un mapa con las tallas como claves y las cantidades como valores.
      */
     public Map<String, Integer> getTallas() {
-        return tallas;
+        return aMapa(cantidades);
+    }
+
+    /**
+     * Obtiene la cantidad disponible de una talla sin crear objetos intermedios.
+     * 
+     * @param talla La talla a consultar.
+     * @return La cantidad disponible, o -1 si el producto no tiene esa talla.
+     */
+    public int getCantidad(String talla) {
+        int[] actuales = cantidades;
+        int id = indice(actuales, talla);
+        int cantidad = id < 0 ? AUSENTE : (int) CANTIDAD.getVolatile(actuales, id);
+        return cantidad == AUSENTE ? -1 : cantidad;
+    }
+
+    // Copia las cantidades indexadas por identificador de talla (-1 en las tallas que el producto no tiene),
+    // para recorrerlas sin crear un mapa.
+    int[] existenciasPorTalla() {
+        int[] actuales = cantidades;
+        int[] copia = new int[actuales.length];
+        for (int id = 0; id < actuales.length; id++) {
+            int cantidad = (int) CANTIDAD.getVolatile(actuales, id);
+            copia[id] = cantidad == AUSENTE ? -1 : cantidad;
+        }
+        return copia;
+    }
+
+    // Copia exacta de las cantidades indexadas por identificador de talla (AUSENTE en las tallas que el
+    // producto no tiene), para guardarlas sin crear un mapa. Con una instantánea de exportación distinta
+    // de 0 devuelve las que tenía el producto en ella, como escribirFilaCSV(sb, instantanea).
+    int[] cantidadesPorId(long instantanea) {
+        int[] copia = copiarCantidades();
+        Conservadas previas = conservadas;
+        if (instantanea != 0 && previas != null && previas.instantanea == instantanea) {
+            return previas.cantidades.clone();
+        }
+        return copia;
+    }
+
+    private int[] copiarCantidades() {
+        int[] actuales = cantidades;
+        int[] copia = new int[actuales.length];
+        for (int id = 0; id < actuales.length; id++) {
+            copia[id] = (int) CANTIDAD.getVolatile(actuales, id);
+        }
+        return copia;
+    }
+
+    // Conserva las cantidades actuales para la instantánea de exportación indicada antes de una venta,
+    // si todavía no se conservaron para ella (0 indica que no hay exportación en curso y descarta la copia).
+    // Debe llamarse antes de descontar o reponer, con el candado del inventario tomado para que la
+    // instantánea no cambie entretanto.
+    void conservarPara(long instantanea) {
+        Conservadas previas = conservadas;
+        if (instantanea == 0) {
+            if (previas != null) {
+                conservadas = null;
+            }
+            return;
+        }
+        if (previas != null && previas.instantanea == instantanea) {
+            return;
+        }
+        synchronized (this) {
+            previas = conservadas;
+            if (previas == null || previas.instantanea != instantanea) {
+                conservadas = new Conservadas(instantanea, copiarCantidades());
+            }
+        }
     }
 
     /**
      * Establece un nuevo mapa de tallas y cantidades para el producto.
+     * Reemplaza el arreglo sin compararlo con las ventas de descontar y reponer, y no actualiza
+     * ExistenciasInventario: solo debe llamarse con el candado de escritura del inventario tomado,
+     * retirando el producto de las existencias antes y agregándolo después.
      * 
      * @param tallas El nuevo mapa de tallas y cantidades.
      */
-    public void setTallas(Map<String, Integer> tallas) {
-        this.tallas = tallas;
+    synchronized void setTallas(Map<String, Integer> tallas) {
+        this.cantidades = desdeMapa(tallas);
     }
 
     /**
      * Actualiza la cantidad de una talla específica del producto.
+     * Con las mismas condiciones que setTallas: una venta concurrente se perdería (o se aplicaría
+     * sobre el arreglo anterior si la talla es nueva), así que solo debe llamarse con el candado de
+     * escritura del inventario tomado, como al reproducir la bitácora.
      * 
      * @param talla La talla a actualizar.
      * @param cantidad La nueva cantidad para la talla especificada.
      */
-    public void actualizarCantidadTalla(String talla, int cantidad) {
-        this.tallas.put(talla, cantidad);
+    synchronized void actualizarCantidadTalla(String talla, int cantidad) {
+        int[] actuales = cantidades;
+        int id = DiccionarioTallas.registrar(talla);
+        if (id < actuales.length) {
+            CANTIDAD.setVolatile(actuales, id, cantidad);
+        } else {
+            int[] ampliado = ampliar(actuales, id + 1);
+            ampliado[id] = cantidad;
+            this.cantidades = ampliado;
+        }
+    }
+
+    /**
+     * Descuenta de forma atómica unidades de una talla, solo si hay existencias suficientes.
+     * Es seguro llamarlo desde varios hilos a la vez; no usa candados ni crea objetos.
+     * 
+     * @param talla La talla a descontar.
+     * @param cantidad Las unidades a descontar (mayor que cero).
+     * @return La cantidad que queda después de descontar, o -1 si la talla no existe
+     *         o no hay suficientes unidades (en cuyo caso no se descuenta nada).
+     */
+    public int descontar(String talla, int cantidad) {
+        int[] actuales = cantidades;
+        int i = indice(actuales, talla);
+        if (i < 0) {
+            return -1;
+        }
+        while (true) {
+            int disponible = (int) CANTIDAD.getVolatile(actuales, i);
+            if (disponible == AUSENTE || disponible < cantidad) {
+                return -1;
+            }
+            if (CANTIDAD.compareAndSet(actuales, i, disponible, disponible - cantidad)) {
+                return disponible - cantidad;
+            }
+        }
+    }
+
+    /**
+     * Devuelve de forma atómica unidades a una talla existente (por ejemplo, al liberar una reserva).
+     * 
+     * @param talla La talla a reponer.
+     * @param cantidad Las unidades a devolver.
+     * @return La cantidad resultante, o -1 si el producto no tiene esa talla.
+     */
+    public int reponer(String talla, int cantidad) {
+        int[] actuales = cantidades;
+        int i = indice(actuales, talla);
+        if (i < 0) {
+            return -1;
+        }
+        while (true) {
+            int disponible = (int) CANTIDAD.getVolatile(actuales, i);
+            if (disponible == AUSENTE) {
+                return -1;
+            }
+            if (CANTIDAD.compareAndSet(actuales, i, disponible, disponible + cantidad)) {
+                return disponible + cantidad;
+            }
+        }
     }
 
     /**
@@ -132,6 +496,6 @@ public class Producto {
      */
     @Override
     public String toString() {
-        return "SKU: " + sku + ", Nombre: " + nombre + ", Descripción: " + descripcion + ", Tallas: " + tallas;
+        return "SKU: " + sku + ", Nombre: " + nombre + ", Descripción: " + descripcion + ", Tallas: " + getTallas();
     }
 }
\ No newline at end of file
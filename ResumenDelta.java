@@ -0,0 +1,143 @@
+/**
+ * Clase ResumenDelta que describe el resultado de aplicar un archivo de cambios (delta) al inventario:
+ * qué SKU se agregaron, cuáles se actualizaron, cuántas tallas cambiaron, cuántas filas no cambiaron
+ * nada o se rechazaron por su formato, y si el archivo no se pudo leer completo.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : ResumenDelta.java
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ResumenDelta {
+    private final List<String> agregados = new ArrayList<>(); // SKU que no existían.
+    private final List<String> actualizados = new ArrayList<>(); // SKU existentes que cambiaron.
+    private int tallasCambiadas; // Tallas agregadas o con una cantidad distinta, en los productos actualizados.
+    private int sinCambios; // Filas que coincidían con el producto existente.
+    private int filasRechazadas; // Filas con formato inválido.
+    private long milisegundos; // Duración de la aplicación del delta.
+    private String error; // Motivo por el que no se pudo leer el archivo completo (null si se leyó).
+
+    // Registra un SKU nuevo.
+    void agregado(String sku) {
+        agregados.add(sku);
+    }
+
+    // Registra un SKU existente que cambió, con la cantidad de tallas modificadas.
+    void actualizado(String sku, int tallas) {
+        actualizados.add(sku);
+        tallasCambiadas += tallas;
+    }
+
+    // Registra una fila que no cambió el producto.
+    void sinCambios() {
+        sinCambios++;
+    }
+
+    // Registra una fila rechazada.
+    void rechazada() {
+        filasRechazadas++;
+    }
+
+    // Registra que la lectura del archivo falló; los lotes anteriores al error ya se aplicaron.
+    void fallo(String motivo) {
+        error = motivo;
+    }
+
+    // Registra la duración total.
+    void setMilisegundos(long milisegundos) {
+        this.milisegundos = milisegundos;
+    }
+
+    /**
+     * Obtiene los SKU agregados, en el orden en que se aplicaron (por SKU dentro de cada lote).
+     *
+     * @return Los SKU que no existían en el inventario.
+     */
+    public List<String> getAgregados() {
+        return Collections.unmodifiableList(agregados);
+    }
+
+    /**
+     * Obtiene los SKU actualizados, en el orden en que se aplicaron (por SKU dentro de cada lote);
+     * un SKU repetido aparece una vez por cada fila que lo cambió.
+     *
+     * @return Los SKU existentes cuyo nombre, descripción o tallas cambiaron.
+     */
+    public List<String> getActualizados() {
+        return Collections.unmodifiableList(actualizados);
+    }
+
+    /**
+     * Obtiene la cantidad de tallas agregadas o modificadas en los productos actualizados.
+     *
+     * @return El número de tallas cambiadas.
+     */
+    public int getTallasCambiadas() {
+        return tallasCambiadas;
+    }
+
+    /**
+     * Obtiene la cantidad de filas que no cambiaron el producto existente.
+     *
+     * @return El número de filas sin cambios.
+     */
+    public int getSinCambios() {
+        return sinCambios;
+    }
+
+    /**
+     * Obtiene la cantidad de filas rechazadas por su formato.
+     *
+     * @return El número de filas rechazadas.
+     */
+    public int getFilasRechazadas() {
+        return filasRechazadas;
+    }
+
+    /**
+     * Obtiene la duración de la aplicación del delta.
+     *
+     * @return Los milisegundos transcurridos.
+     */
+    public long getMilisegundos() {
+        return milisegundos;
+    }
+
+    /**
+     * Indica si el archivo de cambios se leyó completo. Si no, el resumen solo incluye las filas
+     * leídas antes del error, que sí se aplicaron.
+     *
+     * @return true si no hubo errores de lectura.
+     */
+    public boolean isCompleto() {
+        return error == null;
+    }
+
+    /**
+     * Obtiene el motivo por el que no se pudo leer el archivo de cambios completo.
+     *
+     * @return El mensaje del error, o null si el archivo se leyó completo.
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        if (error != null) {
+            return "Error al leer el archivo de cambios (" + error + "); se aplicaron las filas anteriores en "
+                + milisegundos + " ms: " + agregados.size() + " productos agregados, "
+                + actualizados.size() + " actualizados (" + tallasCambiadas + " tallas), "
+                + sinCambios + " sin cambios, " + filasRechazadas + " filas rechazadas.";
+        }
+        return "Delta aplicado en " + milisegundos + " ms: " + agregados.size() + " productos agregados, "
+            + actualizados.size() + " actualizados (" + tallasCambiadas + " tallas), "
+            + sinCambios + " sin cambios, " + filasRechazadas + " filas rechazadas.";
+    }
+}
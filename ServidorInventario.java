@@ -0,0 +1,287 @@
+/**
+ * Clase ServidorInventario que expone consultas y ventas del inventario por HTTP, con el servidor
+ * incluido en el JDK (com.sun.net.httpserver) y sin servicios externos, para que las cajas y la tienda
+ * en línea consulten existencias por la red. Las respuestas son JSON escrito a mano (Producto.escribirJSON).
+ *   GET  /productos/{sku}                                  Un producto (404 si no existe).
+ *   GET  /productos?nombre=...&limite=20                   Los productos con ese nombre exacto.
+ *   GET  /productos?prefijo=...&limite=20                  Los productos cuyo nombre empieza con el texto.
+ *   GET  /productos?pagina=0&tamano=20                     Una página del catálogo en orden de SKU.
+ *   POST /productos/{sku}/venta?talla=m&cantidad=1         Descuenta existencias (409 si no alcanzan).
+ * Las solicitudes se atienden en un grupo fijo de hilos: las consultas toman el candado de lectura y
+ * las ventas descuentan con operaciones atómicas, así que ningún hilo queda bloqueado mucho tiempo y
+ * unos pocos hilos por núcleo bastan para muchos clientes con conexiones abiertas.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : ServidorInventario.java
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class ServidorInventario {
+    public static final int LIMITE_POR_DEFECTO = 20; // Resultados por respuesta si la consulta no indica otro.
+    public static final int LIMITE_MAXIMO = 100; // Resultados máximos por respuesta.
+    private static final int CONEXIONES_PENDIENTES = 1_024; // Conexiones en espera de aceptarse.
+    private static final String RUTA = "/productos"; // Prefijo de todas las rutas.
+
+    static {
+        // El servidor del JDK cierra las conexiones inactivas que excedan este límite (200 por omisión),
+        // lo que obliga a reconectar a los clientes que mantienen la conexión abierta entre solicitudes.
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(CONEXIONES_PENDIENTES));
+        }
+        // Encabezados y cuerpo salen en dos escrituras; con el algoritmo de Nagle el cuerpo espera el ACK
+        // retardado del cliente (unos 40 ms) cuando hay pocas solicitudes en vuelo.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final Inventario inventario; // Inventario consultado.
+    private final HttpServer servidor; // Servidor HTTP del JDK.
+    private final ExecutorService hilos; // Hilos que atienden las solicitudes.
+    private final LongAdder atendidas = new LongAdder(); // Solicitudes respondidas.
+    private final LongAdder fallidas = new LongAdder(); // Solicitudes respondidas con error del servidor (500).
+
+    /**
+     * Constructor de la clase ServidorInventario. El servidor no atiende solicitudes hasta llamar a iniciar().
+     *
+     * @param inventario El inventario a exponer (ya cargado).
+     * @param puerto El puerto donde escuchar (0 para uno libre cualquiera).
+     * @param cantidadHilos La cantidad de hilos que atienden las solicitudes.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public ServidorInventario(Inventario inventario, int puerto, int cantidadHilos) throws IOException {
+        this.inventario = inventario;
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), CONEXIONES_PENDIENTES);
+        AtomicInteger numero = new AtomicInteger();
+        this.hilos = Executors.newFixedThreadPool(cantidadHilos, tarea -> {
+            Thread hilo = new Thread(tarea, "servidor-inventario-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        servidor.setExecutor(hilos);
+        servidor.createContext(RUTA, this::atender);
+    }
+
+    /**
+     * Empieza a atender solicitudes.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Deja de aceptar solicitudes y espera hasta un segundo a que terminen las que están en curso.
+     */
+    public void detener() {
+        servidor.stop(1);
+        hilos.shutdown();
+        try {
+            hilos.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtiene el puerto donde escucha el servidor (útil si se pidió el puerto 0).
+     *
+     * @return El número de puerto.
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Obtiene la cantidad de solicitudes respondidas.
+     *
+     * @return El número de solicitudes.
+     */
+    public long getAtendidas() {
+        return atendidas.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de solicitudes que terminaron en un error del servidor.
+     *
+     * @return El número de solicitudes fallidas.
+     */
+    public long getFallidas() {
+        return fallidas.sum();
+    }
+
+    // Atiende una solicitud: separa la ruta y los parámetros, la resuelve y escribe la respuesta.
+    private void atender(HttpExchange intercambio) throws IOException {
+        StringBuilder json = new StringBuilder(256);
+        int codigo;
+        try {
+            String ruta = intercambio.getRequestURI().getRawPath().substring(RUTA.length());
+            Map<String, String> parametros = parametros(intercambio.getRequestURI().getRawQuery());
+            String metodo = intercambio.getRequestMethod();
+            if (ruta.isEmpty() || ruta.equals("/")) {
+                codigo = metodo.equals("GET") ? listar(parametros, json) : error(405, "método no permitido", json);
+            } else if (ruta.charAt(0) != '/') {
+                // El contexto acepta cualquier ruta que empiece con "/productos", como "/productos123".
+                codigo = error(404, "ruta inexistente", json);
+            } else {
+                String[] partes = ruta.substring(1).split("/", -1);
+                String sku = decodificar(partes[0]);
+                if (partes.length == 1) {
+                    codigo = metodo.equals("GET") ? producto(sku, json) : error(405, "método no permitido", json);
+                } else if (partes.length == 2 && partes[1].equals("venta")) {
+                    codigo = metodo.equals("POST") ? vender(sku, parametros, json) : error(405, "método no permitido", json);
+                } else {
+                    codigo = error(404, "ruta inexistente", json);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            codigo = error(400, e.getMessage(), json);
+        } catch (RuntimeException e) {
+            fallidas.increment();
+            codigo = error(500, "Error al atender la solicitud: " + e.getMessage(), json);
+        }
+        responder(intercambio, codigo, json);
+    }
+
+    // GET /productos/{sku}
+    private int producto(String sku, StringBuilder json) {
+        Producto producto = inventario.buscarPorSKU(sku);
+        if (producto == null) {
+            return error(404, "no existe el SKU " + sku, json);
+        }
+        producto.escribirJSON(json);
+        return 200;
+    }
+
+    // GET /productos con "nombre", "prefijo" o "pagina" (sin parámetros, la primera página).
+    private int listar(Map<String, String> parametros, StringBuilder json) {
+        int limite = entero(parametros, parametros.containsKey("pagina") ? "tamano" : "limite", LIMITE_POR_DEFECTO, 1, LIMITE_MAXIMO);
+        List<Producto> productos;
+        if (parametros.containsKey("nombre")) {
+            productos = inventario.buscarTodosPorNombre(parametros.get("nombre"));
+            if (productos.size() > limite) {
+                productos = productos.subList(0, limite);
+            }
+        } else if (parametros.containsKey("prefijo")) {
+            productos = inventario.buscarPorPrefijo(parametros.get("prefijo"), limite);
+        } else {
+            int pagina = entero(parametros, "pagina", 0, 0, Integer.MAX_VALUE);
+            productos = inventario.paginaPorSKU(pagina, limite);
+            json.append("{\"pagina\":").append(pagina).append(",\"tamano\":").append(limite)
+                .append(",\"total\":").append(inventario.cantidadProductos()).append(',');
+        }
+        if (json.length() == 0) {
+            json.append('{');
+        }
+        json.append("\"productos\":[");
+        for (int i = 0; i < productos.size(); i++) {
+            if (i > 0) json.append(',');
+            productos.get(i).escribirJSON(json);
+        }
+        json.append("]}");
+        return 200;
+    }
+
+    // POST /productos/{sku}/venta?talla=...&cantidad=...
+    private int vender(String sku, Map<String, String> parametros, StringBuilder json) {
+        String talla = parametros.get("talla");
+        if (talla == null || talla.isEmpty()) {
+            throw new IllegalArgumentException("falta el parámetro talla");
+        }
+        int cantidad = entero(parametros, "cantidad", 1, 1, Integer.MAX_VALUE);
+        Producto producto = inventario.buscarPorSKU(sku);
+        if (producto == null || producto.getCantidad(talla) < 0) {
+            return error(404, "no existe el SKU " + sku + " con la talla " + talla, json);
+        }
+        // Lo que queda se toma del descuento mismo: leerlo después del producto incluiría otras ventas simultáneas.
+        int restantes = inventario.vender(sku, talla, cantidad);
+        if (restantes < 0) {
+            return error(409, "existencias insuficientes", json);
+        }
+        json.append("{\"sku\":");
+        Producto.escribirTextoJSON(json, sku);
+        json.append(",\"talla\":");
+        Producto.escribirTextoJSON(json, talla);
+        json.append(",\"vendidas\":").append(cantidad)
+            .append(",\"restantes\":").append(restantes).append('}');
+        return 200;
+    }
+
+    // Escribe un error como {"error":"..."} y devuelve su código.
+    private static int error(int codigo, String mensaje, StringBuilder json) {
+        json.setLength(0);
+        json.append("{\"error\":");
+        Producto.escribirTextoJSON(json, mensaje);
+        json.append('}');
+        return codigo;
+    }
+
+    // Envía el JSON con su longitud, para que el cliente pueda reutilizar la conexión.
+    private void responder(HttpExchange intercambio, int codigo, StringBuilder json) throws IOException {
+        byte[] cuerpo = json.toString().getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+        atendidas.increment();
+    }
+
+    // Separa los parámetros de la consulta ("a=1&b=2"), decodificados.
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0) {
+                parametros.put(decodificar(par.substring(0, igual)), decodificar(par.substring(igual + 1)));
+            } else if (!par.isEmpty()) {
+                parametros.put(decodificar(par), "");
+            }
+        }
+        return parametros;
+    }
+
+    // Decodifica un segmento de la URL (%XX y '+').
+    private static String decodificar(String texto) {
+        return URLDecoder.decode(texto, StandardCharsets.UTF_8);
+    }
+
+    // Lee un parámetro entero dentro de un rango, o el valor por omisión si no viene.
+    private static int entero(Map<String, String> parametros, String nombre, int omision, int minimo, int maximo) {
+        String valor = parametros.get(nombre);
+        if (valor == null) {
+            return omision;
+        }
+        int numero;
+        try {
+            numero = Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("el parámetro " + nombre + " debe ser un número entero");
+        }
+        if (numero < minimo || numero > maximo) {
+            throw new IllegalArgumentException("el parámetro " + nombre + " debe estar entre " + minimo + " y " + maximo);
+        }
+        return numero;
+    }
+}
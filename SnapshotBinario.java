@@ -0,0 +1,284 @@
+/**
+ * Clase SnapshotBinario que guarda y carga una copia binaria compacta del inventario,
+ * escrita junto al CSV para acelerar el arranque. El CSV sigue siendo el formato de intercambio;
+ * la copia binaria solo se usa si corresponde exactamente al CSV actual (mismo tamaño y fecha).
+ *
+ * Formato (enteros como varint sin signo salvo que se indique):
+ *   magia (int), versión (int), tamaño del CSV (long), fecha de modificación del CSV (long)
+ *   cantidad de tallas del diccionario, y cada talla como cadena (en orden de identificador)
+ *   cantidad de productos, y por cada producto en orden de SKU:
+ *     SKU, nombre, descripción (cadenas), cantidad de tallas, y por cada talla
+ *     su índice en el diccionario y la cantidad (varint zigzag)
+ *   cantidad de entradas del índice por nombre, y la posición de cada producto en orden de nombre
+ * Las cadenas se guardan como longitud en bytes (varint) seguida de su contenido en UTF-8.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : SnapshotBinario.java
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SnapshotBinario {
+    public static final String EXTENSION = ".bin"; // Extensión agregada al nombre del CSV.
+    private static final int MAGIA = 0x48543753; // "HT7S"
+    private static final int VERSION = 1; // Versión del formato.
+
+    /**
+     * Clase que agrupa el contenido leído de una copia binaria.
+     */
+    public static class Contenido {
+        public final List<Producto> productos; // Productos en orden de SKU.
+        public final int[] ordenNombres; // Posiciones de los productos en orden de nombre.
+
+        Contenido(List<Producto> productos, int[] ordenNombres) {
+            this.productos = productos;
+            this.ordenNombres = ordenNombres;
+        }
+    }
+
+    /**
+     * Obtiene la ruta de la copia binaria asociada a un archivo CSV.
+     *
+     * @param archivoCSV La ruta del archivo CSV.
+     * @return La ruta de la copia binaria.
+     */
+    public static String rutaPara(String archivoCSV) {
+        return archivoCSV + EXTENSION;
+    }
+
+    /**
+     * Guarda la copia binaria del inventario asociada al CSV indicado.
+     * Se escribe en un archivo temporal que luego reemplaza al anterior de forma atómica.
+     *
+     * @param archivoCSV El CSV del que esta copia es equivalente; debe existir.
+     * @param productos Los productos en orden de SKU.
+     * @param ordenNombres Las posiciones (en la lista de productos) de cada producto en orden de nombre.
+     * @param instantanea La instantánea de exportación cuyas existencias se guardan (0 para las actuales).
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public static void guardar(String archivoCSV, List<Producto> productos, int[] ordenNombres, long instantanea)
+            throws IOException {
+        Path csv = Paths.get(archivoCSV);
+        Path destino = Paths.get(rutaPara(archivoCSV));
+        Path temporal = Paths.get(rutaPara(archivoCSV) + ".tmp");
+
+        // Los índices de talla del archivo son los identificadores de DiccionarioTallas, que nunca se reasignan.
+        int cantidadTallas = DiccionarioTallas.cantidad();
+
+        try (FileOutputStream archivo = new FileOutputStream(temporal.toFile());
+             Escritor salida = new Escritor(new BufferedOutputStream(archivo, 1 << 20))) {
+            salida.entero(MAGIA);
+            salida.entero(VERSION);
+            salida.largo(Files.size(csv));
+            salida.largo(Files.getLastModifiedTime(csv).toMillis());
+            salida.varint(cantidadTallas);
+            for (int id = 0; id < cantidadTallas; id++) {
+                salida.cadena(DiccionarioTallas.nombre(id));
+            }
+            salida.varint(productos.size());
+            for (Producto producto : productos) {
+                salida.cadena(producto.getSku());
+                salida.cadena(producto.getNombre());
+                salida.cadena(producto.getDescripcion());
+                int[] cantidades = producto.cantidadesPorId(instantanea);
+                int presentes = 0;
+                for (int cantidad : cantidades) {
+                    if (cantidad != Producto.AUSENTE) {
+                        presentes++;
+                    }
+                }
+                salida.varint(presentes);
+                if (cantidades.length > cantidadTallas) {
+                    for (int id = cantidadTallas; id < cantidades.length; id++) {
+                        if (cantidades[id] != Producto.AUSENTE) {
+                            throw new IOException("la talla " + DiccionarioTallas.nombre(id) + " se registró durante el guardado");
+                        }
+                    }
+                }
+                for (int id = 0; id < cantidades.length; id++) {
+                    int cantidad = cantidades[id];
+                    if (cantidad != Producto.AUSENTE) {
+                        salida.varint(id);
+                        salida.varint((cantidad << 1) ^ (cantidad >> 31));
+                    }
+                }
+            }
+            salida.varint(ordenNombres.length);
+            for (int posicion : ordenNombres) {
+                salida.varint(posicion);
+            }
+            salida.flush();
+            archivo.getFD().sync();
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Carga la copia binaria asociada al CSV con una sola lectura secuencial de un archivo mapeado en memoria.
+     *
+     * @param archivoCSV La ruta del archivo CSV.
+     * @return El contenido de la copia, o null si no existe, está dañada o no corresponde al CSV actual.
+     */
+    public static Contenido cargar(String archivoCSV) {
+        Path csv = Paths.get(archivoCSV);
+        Path ruta = Paths.get(rutaPara(archivoCSV));
+        if (!Files.exists(ruta) || !Files.exists(csv)) {
+            return null;
+        }
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                return null; // Un solo mapeo no alcanza; se usa el CSV.
+            }
+            Lector entrada = new Lector(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+            if (entrada.buffer.getInt() != MAGIA || entrada.buffer.getInt() != VERSION
+                    || entrada.buffer.getLong() != Files.size(csv)
+                    || entrada.buffer.getLong() != Files.getLastModifiedTime(csv).toMillis()) {
+                return null;
+            }
+            // Índice de talla del archivo -> identificador en el diccionario de este proceso.
+            int[] identificadores = new int[entrada.varint()];
+            for (int i = 0; i < identificadores.length; i++) {
+                identificadores[i] = DiccionarioTallas.registrar(entrada.cadena());
+            }
+            int[] ids = new int[identificadores.length]; // Tallas del producto actual (se reutiliza).
+            int[] valores = new int[identificadores.length]; // Cantidades del producto actual (se reutiliza).
+            int cantidadProductos = entrada.varint();
+            List<Producto> productos = new ArrayList<>(cantidadProductos);
+            for (int i = 0; i < cantidadProductos; i++) {
+                String sku = entrada.cadena();
+                String nombre = entrada.cadena();
+                String descripcion = entrada.cadena();
+                int cantidadTallas = entrada.varint();
+                int longitud = 0;
+                for (int j = 0; j < cantidadTallas; j++) {
+                    ids[j] = identificadores[entrada.varint()];
+                    int codificada = entrada.varint();
+                    valores[j] = (codificada >>> 1) ^ -(codificada & 1);
+                    longitud = Math.max(longitud, ids[j] + 1);
+                }
+                int[] cantidades = new int[longitud];
+                Arrays.fill(cantidades, Producto.AUSENTE);
+                for (int j = 0; j < cantidadTallas; j++) {
+                    cantidades[ids[j]] = valores[j];
+                }
+                productos.add(new Producto(sku, nombre, descripcion, cantidades));
+            }
+            int[] ordenNombres = new int[entrada.varint()];
+            for (int i = 0; i < ordenNombres.length; i++) {
+                ordenNombres[i] = entrada.varint();
+            }
+            return new Contenido(productos, ordenNombres);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            Diagnosticos.reportar(Diagnosticos.Tipo.ERROR_LECTURA, "Copia binaria inválida, se usará el CSV: " + e);
+            return null;
+        }
+    }
+
+    // Escritor de enteros de longitud variable y cadenas sobre un flujo con búfer.
+    private static class Escritor implements AutoCloseable {
+        private final OutputStream salida;
+        private byte[] bytes = new byte[256]; // Búfer reutilizado para codificar cadenas.
+
+        Escritor(OutputStream salida) {
+            this.salida = salida;
+        }
+
+        void entero(int valor) throws IOException {
+            for (int desplazamiento = 24; desplazamiento >= 0; desplazamiento -= 8) {
+                salida.write(valor >>> desplazamiento);
+            }
+        }
+
+        void largo(long valor) throws IOException {
+            entero((int) (valor >>> 32));
+            entero((int) valor);
+        }
+
+        void varint(int valor) throws IOException {
+            while ((valor & ~0x7F) != 0) {
+                salida.write((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            salida.write(valor);
+        }
+
+        void cadena(String texto) throws IOException {
+            int longitud = texto.length();
+            boolean ascii = longitud <= bytes.length;
+            for (int i = 0; ascii && i < longitud; i++) {
+                char c = texto.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                } else {
+                    bytes[i] = (byte) c;
+                }
+            }
+            if (ascii) {
+                varint(longitud);
+                salida.write(bytes, 0, longitud);
+            } else {
+                byte[] codificada = texto.getBytes(StandardCharsets.UTF_8);
+                varint(codificada.length);
+                salida.write(codificada);
+            }
+        }
+
+        void flush() throws IOException {
+            salida.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            salida.close();
+        }
+    }
+
+    // Lector secuencial sobre el archivo mapeado en memoria.
+    private static class Lector {
+        private final MappedByteBuffer buffer;
+        private byte[] bytes = new byte[256]; // Búfer reutilizado para decodificar cadenas.
+
+        Lector(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int varint() {
+            int valor = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                b = buffer.get();
+                valor |= (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+            return valor;
+        }
+
+        String cadena() {
+            int longitud = varint();
+            if (longitud > bytes.length) {
+                bytes = new byte[Math.max(longitud, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, longitud);
+            return new String(bytes, 0, longitud, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,1264 @@
+/**
+ * Clase BenchmarkInventario que mide el rendimiento de las estructuras del inventario.
+ * Cada escenario se ejecuta desde la línea de comandos y reporta sus resultados en consola:
+ * java -cp benchmarks/target/benchmarks.jar BenchmarkInventario <escenario>.
+ * Vive en el módulo de benchmarks para no incluirse en el jar de la aplicación, pero en el paquete por
+ * defecto (a diferencia de los benchmarks JMH de rendimiento) porque usa directamente las clases del
+ * inventario, que no se pueden importar desde un paquete con nombre.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : BenchmarkInventario.java
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BenchmarkInventario {
+    private static final int[] TAMANOS = {10_000, 100_000, 1_000_000}; // Cantidades de SKUs a medir.
+
+    /**
+     * Método principal que ejecuta el escenario indicado.
+     *
+     * @param args Nombre del escenario a ejecutar (por defecto "balanceo").
+     */
+    public static void main(String[] args) {
+        String escenario = args.length > 0 ? args[0] : "balanceo";
+        switch (escenario) {
+            case "balanceo":
+                benchmarkBalanceo();
+                break;
+            case "recorridos":
+                benchmarkRecorridos();
+                break;
+            case "cargaCSV":
+                benchmarkCargaCSV();
+                break;
+            case "ediciones":
+                benchmarkEdiciones();
+                break;
+            case "exportar":
+                benchmarkExportar();
+                break;
+            case "cargaParalela":
+                benchmarkCargaParalela();
+                break;
+            case "arranque":
+                benchmarkArranque();
+                break;
+            case "concurrencia":
+                benchmarkConcurrencia();
+                break;
+            case "ventas":
+                benchmarkVentas();
+                break;
+            case "huella":
+                benchmarkHuella();
+                break;
+            case "busquedaNombre":
+                benchmarkBusquedaNombre();
+                break;
+            case "paginas":
+                benchmarkPaginas();
+                break;
+            case "rotacion":
+                benchmarkRotacion();
+                break;
+            case "cache":
+                benchmarkCache();
+                break;
+            case "instantaneas":
+                benchmarkInstantaneas();
+                break;
+            case "metricas":
+                benchmarkMetricas();
+                break;
+            case "cargaSucia":
+                benchmarkCargaSucia();
+                break;
+            case "delta":
+                benchmarkDelta();
+                break;
+            case "lote":
+                benchmarkLote();
+                break;
+            case "servidor":
+                benchmarkServidor(args.length > 1 ? Integer.parseInt(args[1]) : 1_000, args.length > 2 ? Integer.parseInt(args[2]) : 10);
+                break;
+            default:
+                System.out.println("Escenario desconocido: " + escenario);
+        }
+    }
+
+    /**
+     * Carga conjuntos de SKUs ordenados, en orden inverso y aleatorios en el árbol,
+     * reportando el tiempo de carga y la altura resultante.
+     */
+    private static void benchmarkBalanceo() {
+        System.out.printf("%-10s %10s %12s %8s%n", "Orden", "SKUs", "Carga (ms)", "Altura");
+        for (int n : TAMANOS) {
+            List<String> skus = generarSKUs(n);
+            medirCarga("ordenado", skus);
+
+            List<String> inverso = new ArrayList<>(skus);
+            Collections.reverse(inverso);
+            medirCarga("inverso", inverso);
+
+            List<String> aleatorio = new ArrayList<>(skus);
+            Collections.shuffle(aleatorio, new Random(42));
+            medirCarga("aleatorio", aleatorio);
+        }
+    }
+
+    /**
+     * Mide inserción, búsqueda y exportación CSV sobre árboles de productos,
+     * reportando nanosegundos por operación.
+     */
+    private static void benchmarkRecorridos() {
+        System.out.printf("%10s %14s %14s %14s%n", "SKUs", "insertar (ns)", "buscar (ns)", "exportar (ns)");
+        for (int n : TAMANOS) {
+            List<String> skus = generarSKUs(n);
+            Collections.shuffle(skus, new Random(42));
+            List<Producto> productos = new ArrayList<>(n);
+            for (String sku : skus) {
+                productos.add(new Producto(sku, "Producto " + sku, "Descripción", "s:5|m:10"));
+            }
+            for (int ronda = 0; ronda < 3; ronda++) {
+                BinaryTree<String, Producto> arbol = new BinaryTree<>();
+                long inicio = System.nanoTime();
+                for (Producto p : productos) {
+                    arbol.insertar(p.getSku(), p);
+                }
+                long insertar = System.nanoTime() - inicio;
+
+                inicio = System.nanoTime();
+                int encontrados = 0;
+                for (String sku : skus) {
+                    if (arbol.buscar(sku) != null) encontrados++;
+                }
+                long buscar = System.nanoTime() - inicio;
+
+                long exportar;
+                try (Writer writer = new Writer() {
+                        @Override public void write(char[] cbuf, int off, int len) { }
+                        @Override public void flush() { }
+                        @Override public void close() { }
+                    }) {
+                    inicio = System.nanoTime();
+                    arbol.guardarEnCSV(writer, "SKU,Nombre,Descripción,Cantidad por talla");
+                    exportar = System.nanoTime() - inicio;
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (ronda == 2) {
+                    System.out.printf("%10d %14d %14d %14d%n", n, insertar / n, buscar / encontrados, exportar / n);
+                }
+            }
+        }
+    }
+
+    /**
+     * Genera archivos CSV sintéticos y mide el tiempo de carga en frío de un inventario vacío.
+     */
+    private static void benchmarkCargaCSV() {
+        System.out.printf("%10s %12s%n", "Filas", "Carga (ms)");
+        for (int n : TAMANOS) {
+            try {
+                Path archivo = generarCSV(n);
+                for (int ronda = 0; ronda < 3; ronda++) {
+                    Inventario inventario = new Inventario();
+                    long inicio = System.nanoTime();
+                    inventario.cargarDesdeCSV(archivo.toString());
+                    long ms = (System.nanoTime() - inicio) / 1_000_000;
+                    if (ronda == 2) {
+                        System.out.printf("%10d %12d%n", n, ms);
+                    }
+                }
+                Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+                Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+                Files.delete(archivo);
+            } catch (IOException e) {
+                System.out.println("Error en el benchmark: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Aplica 20 deltas de 5 000 filas (4 000 SKU existentes con una o dos tallas cambiadas y 1 000 nuevos)
+     * a un inventario de 1 000 000 de productos, y como referencia mide la alternativa de recargar y
+     * reescribir el inventario completo. Con el límite de compactación por defecto, uno de cada dos
+     * deltas también reescribe el CSV.
+     */
+    private static void benchmarkDelta() {
+        int n = 1_000_000;
+        try {
+            Path archivo = generarCSV(n);
+            List<String> skus = generarSKUs(n);
+            Inventario inventario = new Inventario();
+            inventario.cargarDesdeCSV(archivo.toString());
+            Random random = new Random(11);
+            System.out.printf("%8s %12s %12s %12s %12s%n", "Ronda", "Delta (ms)", "Agregados", "Actualizados", "Tallas");
+            for (int ronda = 0; ronda < 20; ronda++) {
+                Path delta = Files.createTempFile("delta-", ".csv");
+                try (BufferedWriter writer = Files.newBufferedWriter(delta)) {
+                    writer.write("SKU,Nombre,Descripción,Cantidad por talla\n");
+                    for (int i = 0; i < 4_000; i++) {
+                        writer.write(skus.get(random.nextInt(n)) + ",,,m:" + random.nextInt(50)
+                            + (random.nextBoolean() ? "|l:" + random.nextInt(50) : "") + "\n");
+                    }
+                    for (int i = 0; i < 1_000; i++) {
+                        writer.write(String.format("NUEVO-%d-%05d,Producto nuevo %d-%d,Temporada,s:%d%n", ronda, i, ronda, i, random.nextInt(50)));
+                    }
+                }
+                ResumenDelta resumen = inventario.aplicarDelta(delta.toString());
+                if (!resumen.isCompleto()) {
+                    throw new IOException("No se pudo aplicar el delta: " + resumen.getError());
+                }
+                System.out.printf("%8d %12d %12d %12d %12d%n", ronda, resumen.getMilisegundos(),
+                    resumen.getAgregados().size(), resumen.getActualizados().size(), resumen.getTallasCambiadas());
+                Files.delete(delta);
+            }
+            inventario.cerrar();
+
+            Inventario recarga = new Inventario();
+            Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+            long inicio = System.nanoTime();
+            recarga.cargarDesdeCSV(archivo.toString());
+            recarga.compactar();
+            System.out.printf("Recarga y reescritura completas: %d ms%n", (System.nanoTime() - inicio) / 1_000_000);
+            recarga.cerrar();
+            Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+            Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+            Files.delete(archivo);
+        } catch (IOException e) {
+            System.out.println("Error en el benchmark: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ejecuta comandos sobre un inventario de 100 000 productos cargado desde un CSV (40 % búsquedas,
+     * 30 % ventas, 10 % devoluciones, 10 % ediciones y 10 % altas): 1 000 000 con ProcesadorLotes,
+     * que aplica grupos de comandos y persiste una vez al final, y como referencia 100 000 con una
+     * llamada al inventario por comando, como cuando un script alimenta el menú (cada cambio se escribe
+     * en la bitácora por separado y el CSV se reescribe cada LIMITE_COMPACTACION_POR_DEFECTO cambios).
+     */
+    private static void benchmarkLote() {
+        int n = 100_000;
+        List<String> skus = generarSKUs(n);
+        System.out.printf("%-12s %10s %12s %14s%n", "Modo", "Comandos", "Tiempo (ms)", "Comandos/s");
+        for (String modo : new String[] {"individual", "lote"}) {
+            int cantidad = modo.equals("lote") ? 1_000_000 : 100_000;
+            Random random = new Random(5);
+            StringBuilder comandos = new StringBuilder();
+            for (int i = 0; i < cantidad; i++) {
+                String sku = skus.get(random.nextInt(n));
+                double tipo = random.nextDouble();
+                if (tipo < 0.4) {
+                    comandos.append("buscar,").append(sku).append('\n');
+                } else if (tipo < 0.7) {
+                    comandos.append("vender,").append(sku).append(",m,1\n");
+                } else if (tipo < 0.8) {
+                    comandos.append("devolver,").append(sku).append(",xs,2\n");
+                } else if (tipo < 0.9) {
+                    comandos.append("editar,").append(sku).append(",Edición ").append(i).append(",\n");
+                } else {
+                    comandos.append("agregar,NUEVO-").append(i).append(",Producto nuevo ").append(i).append(",Temporada,m:3|l:4\n");
+                }
+            }
+            Path archivo = null;
+            try {
+                archivo = generarCSV(n);
+                Inventario inventario = new Inventario();
+                inventario.cargarDesdeCSV(archivo.toString());
+                PrintStream consola = System.out;
+                System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Silencia los avisos de compactación.
+                long inicio = System.nanoTime();
+                try {
+                    if (modo.equals("lote")) {
+                        new ProcesadorLotes(inventario).procesar(new BufferedReader(new StringReader(comandos.toString())), Writer.nullWriter());
+                    } else {
+                        ejecutarUnoPorUno(inventario, comandos.toString());
+                    }
+                    inventario.cerrar();
+                } finally {
+                    System.setOut(consola);
+                }
+                long ms = (System.nanoTime() - inicio) / 1_000_000;
+                System.out.printf("%-12s %10d %12d %14.0f%n", modo, cantidad, ms, cantidad / (ms / 1e3));
+            } catch (IOException e) {
+                System.out.println("Error en el benchmark: " + e.getMessage());
+            } finally {
+                if (archivo != null) {
+                    try {
+                        Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+                        Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+                        Files.deleteIfExists(archivo);
+                    } catch (IOException e) {
+                        System.out.println("Error al borrar los archivos temporales: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    // Aplica cada comando con su propia llamada al inventario, como lo haría el menú interactivo.
+    private static void ejecutarUnoPorUno(Inventario inventario, String comandos) {
+        for (String linea : comandos.split("\n")) {
+            String[] campos = linea.split(",", -1);
+            switch (campos[0]) {
+                case "buscar":
+                    inventario.buscarPorSKU(campos[1]);
+                    break;
+                case "vender":
+                    inventario.vender(campos[1], campos[2], Integer.parseInt(campos[3]));
+                    break;
+                case "devolver":
+                    inventario.devolver(campos[1], campos[2], Integer.parseInt(campos[3]));
+                    break;
+                case "editar":
+                    Producto producto = inventario.buscarPorSKU(campos[1]);
+                    if (producto != null) {
+                        inventario.editarProducto(campos[1], campos[2], producto.getTallas());
+                    }
+                    break;
+                default:
+                    inventario.agregarProducto(new Producto(campos[1], campos[2], campos[3], campos[4]));
+            }
+        }
+    }
+
+    /**
+     * Prueba de carga del modo servidor en la misma máquina: levanta ServidorInventario con 100 000
+     * productos y la cantidad indicada de clientes (1 000 por omisión), cada uno con su propio hilo y una
+     * conexión persistente, que envían solicitudes sin pausa: 60 % búsquedas por SKU, 10 % por nombre,
+     * 10 % por prefijo, 10 % páginas y 10 % ventas. Después de 3 s de calentamiento mide durante los
+     * segundos indicados y reporta solicitudes por segundo y los percentiles de latencia vistos por los
+     * clientes. Los clientes escriben HTTP/1.1 directamente sobre el socket para que el costo de una
+     * biblioteca cliente no se mezcle con el del servidor, que comparte los núcleos con ellos.
+     *
+     * @param clientes La cantidad de clientes concurrentes.
+     * @param segundos La duración de la medición.
+     */
+    private static void benchmarkServidor(int clientes, int segundos) {
+        int n = 100_000;
+        List<String> skus = generarSKUs(n);
+        Path archivo = null;
+        ServidorInventario servidor = null;
+        try {
+            archivo = generarCSV(n);
+            Inventario inventario = new Inventario();
+            inventario.cargarDesdeCSV(archivo.toString());
+            int hilos = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+            servidor = new ServidorInventario(inventario, 0, hilos);
+            servidor.iniciar();
+            int puerto = servidor.getPuerto();
+
+            HistogramaLatencias latencias = new HistogramaLatencias();
+            LongAdder rechazadas = new LongAdder(); // Respuestas 4xx (SKU inexistente, sin existencias).
+            LongAdder errores = new LongAdder(); // Respuestas 5xx y conexiones perdidas.
+            AtomicBoolean midiendo = new AtomicBoolean(); // Si las respuestas se cuentan (pasado el calentamiento).
+            AtomicBoolean terminar = new AtomicBoolean(); // Si los clientes deben detenerse.
+            List<Thread> hilosClientes = new ArrayList<>(clientes);
+            for (int c = 0; c < clientes; c++) {
+                int semilla = c;
+                Thread cliente = new Thread(null, () -> {
+                    Random random = new Random(semilla);
+                    Socket socket = null;
+                    InputStream entrada = null;
+                    try {
+                        while (!terminar.get()) {
+                            try {
+                                if (socket == null) {
+                                    socket = new Socket("localhost", puerto);
+                                    socket.setTcpNoDelay(true);
+                                    entrada = new BufferedInputStream(socket.getInputStream());
+                                }
+                                byte[] solicitud = solicitudAleatoria(random, skus);
+                                long inicio = System.nanoTime();
+                                int codigo = solicitar(socket.getOutputStream(), entrada, solicitud);
+                                long duracion = System.nanoTime() - inicio;
+                                if (midiendo.get()) {
+                                    latencias.registrar(duracion);
+                                    if (codigo >= 500) {
+                                        errores.increment();
+                                    } else if (codigo >= 400) {
+                                        rechazadas.increment();
+                                    }
+                                }
+                            } catch (IOException e) {
+                                if (midiendo.get()) {
+                                    errores.increment();
+                                }
+                                cerrarSocket(socket);
+                                socket = null;
+                            }
+                        }
+                    } finally {
+                        cerrarSocket(socket);
+                    }
+                }, "cliente-" + c, 256 * 1024);
+                cliente.setDaemon(true);
+                hilosClientes.add(cliente);
+                cliente.start();
+            }
+            Thread.sleep(3_000);
+            midiendo.set(true);
+            long inicio = System.nanoTime();
+            Thread.sleep(segundos * 1_000L);
+            midiendo.set(false);
+            double transcurrido = (System.nanoTime() - inicio) / 1e9;
+            terminar.set(true);
+            for (Thread cliente : hilosClientes) {
+                cliente.join(2_000);
+            }
+            System.out.printf("Clientes: %,d, hilos del servidor: %d, duración: %.1f s%n", clientes, hilos, transcurrido);
+            System.out.printf("%14s %10s %10s %10s %10s %10s %10s%n",
+                "Solicitudes/s", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "Máx (ms)", "4xx", "Errores");
+            System.out.printf("%14.0f %10.2f %10.2f %10.2f %10.2f %10d %10d%n",
+                latencias.getCantidad() / transcurrido, latencias.percentil(50) / 1e6, latencias.percentil(99) / 1e6,
+                latencias.percentil(99.9) / 1e6, latencias.getMaximo() / 1e6, rechazadas.sum(), errores.sum());
+        } catch (IOException e) {
+            System.out.println("Error en el benchmark: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (servidor != null) {
+                servidor.detener();
+            }
+            if (archivo != null) {
+                try {
+                    Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+                    Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+                    Files.deleteIfExists(archivo);
+                } catch (IOException e) {
+                    System.out.println("Error al borrar los archivos temporales: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Arma una solicitud HTTP/1.1 con la mezcla de la prueba de carga del servidor.
+    private static byte[] solicitudAleatoria(Random random, List<String> skus) {
+        String sku = skus.get(random.nextInt(skus.size()));
+        double tipo = random.nextDouble();
+        String ruta;
+        String metodo = "GET";
+        if (tipo < 0.6) {
+            ruta = "/productos/" + sku;
+        } else if (tipo < 0.7) {
+            ruta = "/productos?nombre=Producto%20" + random.nextInt(skus.size());
+        } else if (tipo < 0.8) {
+            ruta = "/productos?prefijo=Producto%20" + random.nextInt(1_000) + "&limite=20";
+        } else if (tipo < 0.9) {
+            ruta = "/productos?pagina=" + random.nextInt(skus.size() / 20) + "&tamano=20";
+        } else {
+            metodo = "POST";
+            ruta = "/productos/" + sku + "/venta?talla=m&cantidad=1";
+        }
+        return (metodo + " " + ruta + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: 0\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Envía una solicitud por la conexión abierta y lee la respuesta completa (con Content-Length).
+    // Devuelve el código de estado.
+    private static int solicitar(OutputStream salida, InputStream entrada, byte[] solicitud) throws IOException {
+        salida.write(solicitud);
+        salida.flush();
+        StringBuilder linea = new StringBuilder();
+        int codigo = -1;
+        long longitud = 0;
+        while (true) {
+            int b = entrada.read();
+            if (b < 0) {
+                throw new IOException("El servidor cerró la conexión");
+            }
+            if (b != '\n') {
+                if (b != '\r') {
+                    linea.append((char) b);
+                }
+                continue;
+            }
+            if (linea.length() == 0) {
+                break; // Fin de los encabezados.
+            }
+            String texto = linea.toString();
+            if (codigo < 0) {
+                codigo = Integer.parseInt(texto.substring(9, 12));
+            } else if (texto.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                longitud = Long.parseLong(texto.substring(15).trim());
+            }
+            linea.setLength(0);
+        }
+        while (longitud > 0) {
+            long saltados = entrada.skip(longitud);
+            if (saltados <= 0) {
+                if (entrada.read() < 0) {
+                    throw new IOException("El servidor cerró la conexión");
+                }
+                saltados = 1;
+            }
+            longitud -= saltados;
+        }
+        return codigo;
+    }
+
+    // Cierra la conexión de un cliente, si la hay.
+    private static void cerrarSocket(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // La conexión ya no se usa.
+            }
+        }
+    }
+
+    /**
+     * Carga un CSV sucio de 400 000 filas: 200 000 válidas, 100 000 con formato inválido y 100 000 con
+     * tallas inválidas. Reporta el tiempo de carga y cuántos avisos recibió Diagnosticos, que solo
+     * publica unos pocos con detalle y un resumen por tipo.
+     */
+    private static void benchmarkCargaSucia() {
+        try {
+            Path archivo = Files.createTempFile("inventario-sucio-", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(archivo)) {
+                writer.write("SKU,Nombre,Descripción,Cantidad por talla\n");
+                for (int i = 0; i < 200_000; i++) {
+                    writer.write(String.format("%07d,Producto %d,Descripción,s:1|m:2%n", i, i));
+                    writer.write(i % 2 == 0 ? "Fila rota " + i + "\n" : String.format("B%07d,Malo %d,Descripción,m:x|l%n", i, i));
+                }
+            }
+            long[] tiempos = new long[3];
+            for (int ronda = 0; ronda < tiempos.length; ronda++) {
+                Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+                Inventario inventario = new Inventario();
+                long inicio = System.nanoTime();
+                inventario.cargarDesdeCSV(archivo.toString());
+                tiempos[ronda] = (System.nanoTime() - inicio) / 1_000_000;
+                Diagnosticos.vaciar();
+            }
+            System.out.printf("Carga (ms) por ronda: %s%n", Arrays.toString(tiempos));
+            System.out.printf("Avisos: %d filas, %d tallas, %d cantidades%n",
+                Diagnosticos.getCantidad(Diagnosticos.Tipo.FILA_INVALIDA),
+                Diagnosticos.getCantidad(Diagnosticos.Tipo.TALLA_INVALIDA),
+                Diagnosticos.getCantidad(Diagnosticos.Tipo.CANTIDAD_INVALIDA));
+            Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+            Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+            Files.delete(archivo);
+        } catch (IOException e) {
+            System.out.println("Error en el benchmark: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica ediciones sobre un inventario de 100k productos, comparando la reescritura completa
+     * del CSV en cada cambio (límite de compactación 1) con la bitácora de cambios.
+     */
+    private static void benchmarkEdiciones() {
+        int productos = 100_000;
+        System.out.printf("%-22s %10s %12s %14s%n", "Modo", "Ediciones", "Total (ms)", "Por edición (us)");
+        try {
+            Path archivo = generarCSV(productos);
+            medirEdiciones("reescritura completa", archivo, 1, 100, productos);
+            medirEdiciones("bitácora", archivo, Inventario.LIMITE_COMPACTACION_POR_DEFECTO, 10_000, productos);
+            Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+            Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+            Files.delete(archivo);
+        } catch (IOException e) {
+            System.out.println("Error en el benchmark: " + e.getMessage());
+        }
+    }
+
+    // Carga el inventario y aplica la cantidad indicada de ediciones sobre SKUs aleatorios.
+    private static void medirEdiciones(String modo, Path archivo, int limite, int ediciones, int productos) {
+        Inventario inventario = new Inventario(limite);
+        inventario.cargarDesdeCSV(archivo.toString());
+        List<String> skus = generarSKUs(productos);
+        Random random = new Random(7);
+        PrintStream salida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ediciones; i++) {
+            String sku = skus.get(random.nextInt(productos));
+            inventario.editarProducto(sku, "Edición " + i, Map.of("m", random.nextInt(50)));
+        }
+        long nanos = System.nanoTime() - inicio;
+        System.setOut(salida);
+        inventario.cerrar();
+        System.out.printf("%-22s %10d %12d %14d%n", modo, ediciones, nanos / 1_000_000, nanos / ediciones / 1_000);
+    }
+
+    /**
+     * Guarda un inventario de 1M productos en disco y reporta el rendimiento en MB/s
+     * y los bytes asignados en el heap por cada fila exportada.
+     */
+    private static void benchmarkExportar() {
+        int productos = 1_000_000;
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.out.printf("%6s %12s %10s %16s%n", "Ronda", "Tiempo (ms)", "MB/s", "Bytes por fila");
+        try {
+            Path archivo = generarCSV(productos);
+            Inventario inventario = new Inventario();
+            inventario.cargarDesdeCSV(archivo.toString());
+            PrintStream salida = System.out;
+            for (int ronda = 1; ronda <= 5; ronda++) {
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                long asignadoInicial = hilos.getCurrentThreadAllocatedBytes();
+                long inicio = System.nanoTime();
+                inventario.compactar();
+                long nanos = System.nanoTime() - inicio;
+                long asignado = hilos.getCurrentThreadAllocatedBytes() - asignadoInicial;
+                System.setOut(salida);
+                double megabytes = Files.size(archivo) / (1024.0 * 1024.0);
+                System.out.printf("%6d %12d %10.1f %16.1f%n", ronda, nanos / 1_000_000,
+                    megabytes / (nanos / 1e9), asignado / (double) productos);
+            }
+            inventario.cerrar();
+            Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+            Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+            Files.delete(archivo);
+        } catch (IOException e) {
+            System.out.println("Error en el benchmark: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mide las filas por segundo que CargadorCSV convierte en productos con 1, 2, 4 y 8 hilos.
+     */
+    private static void benchmarkCargaParalela() {
+        int filas = 1_000_000;
+        System.out.printf("%6s %12s %14s%n", "Hilos", "Tiempo (ms)", "Filas/s");
+        try {
+            Path archivo = generarCSV(filas);
+            for (int hilos : new int[] {1, 2, 4, 8}) {
+                CargadorCSV cargador = new CargadorCSV(hilos);
+                long mejor = Long.MAX_VALUE;
+                for (int ronda = 0; ronda < 3; ronda++) {
+                    long inicio = System.nanoTime();
+                    cargador.cargar(archivo.toString());
+                    mejor = Math.min(mejor, System.nanoTime() - inicio);
+                }
+                System.out.printf("%6d %12d %14.0f%n", hilos, mejor / 1_000_000, filas / (mejor / 1e9));
+            }
+            Files.delete(archivo);
+        } catch (IOException e) {
+            System.out.println("Error en el benchmark: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compara el arranque de un inventario de 1M productos leyendo el CSV contra la copia binaria.
+     */
+    private static void benchmarkArranque() {
+        int productos = 1_000_000;
+        System.out.printf("%-16s %12s%n", "Origen", "Carga (ms)");
+        try {
+            Path archivo = generarCSV(productos);
+            for (int ronda = 0; ronda < 3; ronda++) {
+                Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+                long inicio = System.nanoTime();
+                new Inventario().cargarDesdeCSV(archivo.toString()); // También escribe la copia binaria.
+                long csv = System.nanoTime() - inicio;
+                inicio = System.nanoTime();
+                new Inventario().cargarDesdeCSV(archivo.toString());
+                long binario = System.nanoTime() - inicio;
+                System.out.printf("%-16s %12d%n%-16s %12d%n", "CSV", csv / 1_000_000, "copia binaria", binario / 1_000_000);
+            }
+            Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+            Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+            Files.delete(archivo);
+        } catch (IOException e) {
+            System.out.println("Error en el benchmark: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mide el rendimiento total del inventario con 1 a 16 hilos y una mezcla de 95% lecturas
+     * y 5% escrituras sobre 100k productos.
+     */
+    private static void benchmarkConcurrencia() {
+        int productos = 100_000;
+        List<String> skus = generarSKUs(productos);
+        Inventario inventario = new Inventario();
+        for (String sku : skus) {
+            inventario.agregarProducto(new Producto(sku, "Producto " + sku, "Descripción", "m:10"));
+        }
+        System.out.printf("%6s %16s%n", "Hilos", "Operaciones/s");
+        for (int hilos : new int[] {1, 2, 4, 8, 16}) {
+            long duracion = 2_000_000_000L;
+            LongAdder operaciones = new LongAdder();
+            Thread[] trabajadores = new Thread[hilos];
+            long fin = System.nanoTime() + duracion;
+            for (int t = 0; t < hilos; t++) {
+                int semilla = t;
+                trabajadores[t] = new Thread(() -> {
+                    Random random = new Random(semilla);
+                    Map<String, Integer> tallas = Map.of("m", 5);
+                    long cuenta = 0;
+                    while (System.nanoTime() < fin) {
+                        String sku = skus.get(random.nextInt(productos));
+                        if (random.nextInt(100) < 5) {
+                            inventario.editarProducto(sku, "Editado", tallas);
+                        } else {
+                            inventario.buscarPorSKU(sku);
+                        }
+                        cuenta++;
+                    }
+                    operaciones.add(cuenta);
+                });
+                trabajadores[t].start();
+            }
+            for (Thread trabajador : trabajadores) {
+                try {
+                    trabajador.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            System.out.printf("%6d %16.0f%n", hilos, operaciones.sum() / (duracion / 1e9));
+        }
+    }
+
+    /**
+     * Mide ventas simultáneas sobre un solo producto muy solicitado, comparando el descuento atómico
+     * (en memoria y con bitácora) con el ciclo de leer, modificar y editar el producto completo.
+     * Al final verifica que las existencias coincidan con las unidades vendidas.
+     */
+    private static void benchmarkVentas() {
+        int inicial = 1_000_000_000;
+        System.out.printf("%-12s %6s %14s %12s%n", "Modo", "Hilos", "Ventas/s", "Consistente");
+        for (String modo : new String[] {"editar", "memoria", "bitacora"}) {
+            for (int hilos : new int[] {1, 2, 4, 8}) {
+                Path archivo = null;
+                try {
+                    Inventario inventario = new Inventario();
+                    if (modo.equals("bitacora")) {
+                        archivo = Files.createTempFile("ventas-", ".csv");
+                        Files.writeString(archivo, "SKU,Nombre,Descripción,Cantidad por talla\n"
+                            + "HOT,Producto popular,Descripción,m:" + inicial + "\n");
+                        inventario.cargarDesdeCSV(archivo.toString());
+                    } else {
+                        inventario.agregarProducto(new Producto("HOT", "Producto popular", "Descripción", "m:" + inicial));
+                    }
+                    long duracion = 2_000_000_000L;
+                    LongAdder ventas = new LongAdder();
+                    Thread[] trabajadores = new Thread[hilos];
+                    long fin = System.nanoTime() + duracion;
+                    for (int t = 0; t < hilos; t++) {
+                        trabajadores[t] = new Thread(() -> {
+                            long cuenta = 0;
+                            while (System.nanoTime() < fin) {
+                                if (modo.equals("editar")) {
+                                    // Sin atomicidad: dos hilos pueden leer la misma cantidad y perder una venta.
+                                    Producto producto = inventario.buscarPorSKU("HOT");
+                                    int actual = producto.getTallas().get("m");
+                                    inventario.editarProducto("HOT", producto.getDescripcion(), Map.of("m", actual - 1));
+                                    cuenta++;
+                                } else if (inventario.vender("HOT", "m", 1) >= 0) {
+                                    cuenta++;
+                                }
+                            }
+                            ventas.add(cuenta);
+                        });
+                        trabajadores[t].start();
+                    }
+                    for (Thread trabajador : trabajadores) {
+                        trabajador.join();
+                    }
+                    boolean consistente = inventario.buscarPorSKU("HOT").getCantidad("m") == inicial - ventas.sum();
+                    System.out.printf("%-12s %6d %14.0f %12s%n", modo, hilos, ventas.sum() / (duracion / 1e9), consistente ? "sí" : "no");
+                    inventario.cerrar();
+                } catch (IOException e) {
+                    System.out.println("Error al preparar el archivo: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    if (archivo != null) {
+                        try {
+                            Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+                            Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+                            Files.deleteIfExists(archivo);
+                        } catch (IOException e) {
+                            System.out.println("Error al borrar los archivos temporales: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compacta un inventario de 1 000 000 de productos mientras otro hilo edita productos sin parar,
+     * y reporta cuánto tarda cada compactación, cuántas ediciones se completaron durante ella y la
+     * mayor espera de una edición. Antes de la exportación se mide también el costo de tomar una
+     * instantánea y el de editar con una instantánea vigente (que obliga a copiar el camino).
+     */
+    private static void benchmarkInstantaneas() {
+        int productos = 1_000_000;
+        try {
+            Path archivo = generarCSV(productos);
+            PrintStream salida = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Inventario inventario = new Inventario(Integer.MAX_VALUE);
+            inventario.cargarDesdeCSV(archivo.toString());
+            System.setOut(salida);
+            List<String> skus = generarSKUs(productos);
+
+            BinaryTree<String, String> arbol = new BinaryTree<>();
+            arbol.insertarLote(skus, skus);
+            Random random = new Random(3);
+            long inicio = System.nanoTime();
+            for (int i = 0; i < 200_000; i++) {
+                arbol.insertar(skus.get(random.nextInt(productos)), "v");
+            }
+            long sinInstantanea = (System.nanoTime() - inicio) / 200_000;
+            inicio = System.nanoTime();
+            int instantaneas = 0;
+            for (int i = 0; i < 200_000; i++) {
+                if (i % 1_000 == 0) {
+                    arbol.instantanea(); // Cada instantánea obliga a copiar los caminos que se vuelvan a modificar.
+                    instantaneas++;
+                }
+                arbol.insertar(skus.get(random.nextInt(productos)), "v");
+            }
+            long conInstantanea = (System.nanoTime() - inicio) / 200_000;
+            inicio = System.nanoTime();
+            for (int i = 0; i < 1_000; i++) {
+                arbol.instantanea();
+            }
+            System.out.printf("Instantánea: %d ns; reemplazo sin instantánea: %d ns, con una cada 1000 reemplazos: %d ns (%d instantáneas)%n",
+                (System.nanoTime() - inicio) / 1_000, sinInstantanea, conInstantanea, instantaneas);
+
+            LongAdder ediciones = new LongAdder();
+            long[] esperaMaxima = new long[1];
+            Thread escritor = new Thread(() -> {
+                Random aleatorio = new Random(9);
+                while (!Thread.currentThread().isInterrupted()) {
+                    long antes = System.nanoTime();
+                    inventario.editarProducto(skus.get(aleatorio.nextInt(productos)), "Edición", Map.of("m", 1));
+                    esperaMaxima[0] = Math.max(esperaMaxima[0], System.nanoTime() - antes);
+                    ediciones.increment();
+                }
+            });
+            escritor.start();
+            Thread.sleep(1_000);
+            System.out.printf("%14s %16s %22s%n", "Exportación (ms)", "Ediciones durante", "Mayor espera (ms)");
+            for (int i = 0; i < 3; i++) {
+                ediciones.reset();
+                esperaMaxima[0] = 0;
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                inicio = System.nanoTime();
+                inventario.compactar();
+                long exportacion = System.nanoTime() - inicio;
+                System.setOut(salida);
+                System.out.printf("%14d %16d %22.2f%n", exportacion / 1_000_000, ediciones.sum(), esperaMaxima[0] / 1e6);
+            }
+            escritor.interrupt();
+            escritor.join();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            inventario.cerrar();
+            System.setOut(salida);
+            Files.deleteIfExists(Path.of(SnapshotBinario.rutaPara(archivo.toString())));
+            Files.deleteIfExists(Path.of(BitacoraCambios.rutaPara(archivo.toString())));
+            Files.delete(archivo);
+        } catch (IOException | InterruptedException e) {
+            System.out.println("Error en el benchmark: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mide buscarPorSKU con cargas Zipfianas sobre 1 000 000 de productos, sin caché y con cachés
+     * de distintas capacidades. Con exponente 1.2, cerca del 80% de las consultas van a unos cientos
+     * de SKUs (como los más vendidos del catálogo); con 0.99 la popularidad está más repartida.
+     * Reporta la latencia media por búsqueda y la tasa de aciertos de cada caché (del algoritmo del reloj,
+     * que aproxima LRU: la tasa de un LRU exacto de la misma capacidad puede ser distinta).
+     */
+    private static void benchmarkCache() {
+        int n = 1_000_000;
+        int consultas = 2_000_000;
+        List<String> skus = generarSKUs(n);
+        Inventario inventario = new Inventario();
+        for (String sku : skus) {
+            inventario.agregarProducto(new Producto(sku, "Producto " + sku, "Descripción", "m:1"));
+        }
+        // El rango de popularidad se asigna a SKUs al azar para que los más vendidos no sean vecinos en el árbol.
+        List<String> porPopularidad = new ArrayList<>(skus);
+        Collections.shuffle(porPopularidad, new Random(42));
+
+        for (double exponente : new double[] {0.99, 1.2}) {
+            String[] carga = cargaZipf(porPopularidad, exponente, consultas, new Random(7));
+            System.out.printf("Exponente %.2f%n", exponente);
+            System.out.printf("%10s %14s %14s %12s%n", "Capacidad", "Búsqueda (ns)", "Aciertos (%)", "Desalojos");
+            for (int capacidad : new int[] {0, 1_000, 10_000, 100_000}) {
+                inventario.activarCache(capacidad);
+                long encontrados = 0;
+                long mejor = Long.MAX_VALUE;
+                for (int ronda = 0; ronda < 3; ronda++) {
+                    long inicio = System.nanoTime();
+                    for (String sku : carga) {
+                        if (inventario.buscarPorSKU(sku) != null) {
+                            encontrados++;
+                        }
+                    }
+                    mejor = Math.min(mejor, System.nanoTime() - inicio);
+                }
+                CacheReloj<String, Producto> cache = inventario.getCacheSKU();
+                System.out.printf("%10d %14d %14.1f %12d%n", capacidad, mejor / consultas,
+                    cache == null ? 0.0 : cache.tasaAciertos() * 100, cache == null ? 0 : cache.getDesalojos());
+                if (encontrados != 3L * consultas) {
+                    System.out.println("Búsquedas fallidas: " + (3L * consultas - encontrados));
+                }
+            }
+        }
+    }
+
+    /**
+     * Mide el costo de las métricas: buscarPorSKU y agregarProducto sobre 1 000 000 de productos,
+     * alternando rondas con las métricas desactivadas y activas (se reporta la mejor ronda de cada modo).
+     * Al final muestra el resumen de métricas acumulado durante las rondas activas.
+     */
+    private static void benchmarkMetricas() {
+        int n = 1_000_000;
+        int consultas = 2_000_000;
+        List<String> skus = generarSKUs(n);
+        Inventario inventario = new Inventario();
+        for (String sku : skus) {
+            inventario.agregarProducto(new Producto(sku, "Producto " + sku, "Descripción", "m:1"));
+        }
+        String[] carga = new String[consultas];
+        Random random = new Random(7);
+        for (int i = 0; i < consultas; i++) {
+            carga[i] = skus.get(random.nextInt(n));
+        }
+        long[] mejorBusqueda = {Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] mejorAlta = {Long.MAX_VALUE, Long.MAX_VALUE};
+        int altas = 100_000;
+        for (int ronda = 0; ronda < 10; ronda++) {
+            int modo = ronda % 2;
+            inventario.activarMetricas(modo == 1);
+            long inicio = System.nanoTime();
+            long encontrados = 0;
+            for (String sku : carga) {
+                if (inventario.buscarPorSKU(sku) != null) {
+                    encontrados++;
+                }
+            }
+            mejorBusqueda[modo] = Math.min(mejorBusqueda[modo], System.nanoTime() - inicio);
+            if (encontrados != consultas) {
+                System.out.println("Búsquedas fallidas: " + (consultas - encontrados));
+            }
+            inicio = System.nanoTime();
+            for (int i = 0; i < altas; i++) {
+                String sku = skus.get(random.nextInt(n));
+                inventario.agregarProducto(new Producto(sku, "Producto " + sku, "Descripción", "m:2"));
+            }
+            mejorAlta[modo] = Math.min(mejorAlta[modo], System.nanoTime() - inicio);
+        }
+        System.out.printf("%12s %14s %14s%n", "Métricas", "Búsqueda (ns)", "Alta (ns)");
+        System.out.printf("%12s %14d %14d%n", "desactivadas", mejorBusqueda[0] / consultas, mejorAlta[0] / altas);
+        System.out.printf("%12s %14d %14d%n", "activas", mejorBusqueda[1] / consultas, mejorAlta[1] / altas);
+        System.out.print(inventario.resumenMetricas());
+    }
+
+    // Genera consultas en las que la clave de rango r (desde 1) aparece con probabilidad proporcional a 1 / r^exponente.
+    private static String[] cargaZipf(List<String> porPopularidad, double exponente, int consultas, Random random) {
+        int n = porPopularidad.size();
+        double[] acumulada = new double[n];
+        double suma = 0;
+        for (int i = 0; i < n; i++) {
+            suma += 1 / Math.pow(i + 1, exponente);
+            acumulada[i] = suma;
+        }
+        String[] carga = new String[consultas];
+        for (int i = 0; i < consultas; i++) {
+            int rango = Arrays.binarySearch(acumulada, random.nextDouble() * suma);
+            carga[i] = porPopularidad.get(rango >= 0 ? rango : Math.min(-rango - 1, n - 1));
+        }
+        return carga;
+    }
+
+    /**
+     * Simula la rotación del catálogo: en cada ronda se eliminan 10 000 SKUs al azar y se agregan
+     * 10 000 nuevos, uno por uno, sobre un inventario de 1 000 000 de productos con el índice de
+     * nombres activo. Reporta la latencia por operación y la memoria ocupada después de cada bloque
+     * de rondas, que deberían mantenerse estables. Al final compara dar de baja 300 000 SKUs producto por
+     * producto contra dar de baja otros 300 000 en un solo lote.
+     */
+    private static void benchmarkRotacion() {
+        int n = 1_000_000;
+        int porRonda = 10_000;
+        Inventario inventario = new Inventario();
+        List<String> vigentes = new ArrayList<>(n);
+        Random random = new Random(42);
+        int siguiente = 0;
+        List<Producto> iniciales = new ArrayList<>(n);
+        for (; siguiente < n; siguiente++) {
+            String sku = String.format("DEP-%08d", siguiente);
+            vigentes.add(sku);
+            iniciales.add(new Producto(sku, "Producto " + random.nextInt(n), "Descripción", "m:1"));
+        }
+        for (Producto producto : iniciales) {
+            inventario.agregarProducto(producto);
+        }
+        iniciales = null;
+        inventario.buscarPorPrefijo("producto 1", 10); // Construye el índice de nombres para que también rote.
+
+        System.out.printf("%8s %14s %14s %14s%n", "Rondas", "Baja (ns)", "Alta (ns)", "Heap (MB)");
+        for (int bloque = 1; bloque <= 5; bloque++) {
+            long bajas = 0;
+            long altas = 0;
+            for (int ronda = 0; ronda < 10; ronda++) {
+                long inicio = System.nanoTime();
+                for (int i = 0; i < porRonda; i++) {
+                    int posicion = random.nextInt(vigentes.size());
+                    String sku = vigentes.get(posicion);
+                    vigentes.set(posicion, vigentes.get(vigentes.size() - 1));
+                    vigentes.remove(vigentes.size() - 1);
+                    inventario.eliminarProducto(sku);
+                }
+                bajas += System.nanoTime() - inicio;
+                inicio = System.nanoTime();
+                for (int i = 0; i < porRonda; i++) {
+                    String sku = String.format("DEP-%08d", siguiente++);
+                    vigentes.add(sku);
+                    inventario.agregarProducto(new Producto(sku, "Producto " + random.nextInt(n), "Descripción", "m:1"));
+                }
+                altas += System.nanoTime() - inicio;
+            }
+            System.out.printf("%8d %14d %14d %14.1f%n", bloque * 10, bajas / (10L * porRonda), altas / (10L * porRonda),
+                memoriaOcupada() / 1e6);
+        }
+
+        List<String> temporada = new ArrayList<>(vigentes.subList(0, 300_000));
+        long inicio = System.nanoTime();
+        for (String sku : temporada) {
+            inventario.eliminarProducto(sku);
+        }
+        System.out.printf("Baja individual de %d SKUs: %d ms%n", temporada.size(), (System.nanoTime() - inicio) / 1_000_000);
+        temporada = new ArrayList<>(vigentes.subList(300_000, 600_000));
+        inicio = System.nanoTime();
+        int eliminados = inventario.eliminarProductos(temporada);
+        System.out.printf("Baja en lote de %d SKUs: %d ms%n", eliminados, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Compara obtener una página de 50 productos saltando por posición (O(log n)) con
+     * copiar todo el catálogo en orden y tomar la sublista correspondiente.
+     */
+    private static void benchmarkPaginas() {
+        int n = 1_000_000;
+        int tamanoPagina = 50;
+        BinaryTree<String, String> arbol = new BinaryTree<>();
+        List<String> skus = generarSKUs(n);
+        arbol.insertarLote(skus, skus);
+        System.out.printf("%10s %16s %16s%n", "Página", "Salto (µs)", "Copia (µs)");
+        for (int pagina : new int[] {0, 1_000, 10_000, 19_999}) {
+            int repeticiones = 10_000;
+            long inicio = System.nanoTime();
+            int leidos = 0;
+            for (int r = 0; r < repeticiones; r++) {
+                Iterator<String> iterador = arbol.desdePosicion(pagina * tamanoPagina);
+                for (int i = 0; i < tamanoPagina && iterador.hasNext(); i++) {
+                    leidos += iterador.next().length();
+                }
+            }
+            double salto = (System.nanoTime() - inicio) / 1e3 / repeticiones;
+
+            int rondas = 5;
+            inicio = System.nanoTime();
+            for (int r = 0; r < rondas; r++) {
+                List<String> todos = arbol.valoresEnOrden();
+                for (String sku : todos.subList(pagina * tamanoPagina, pagina * tamanoPagina + tamanoPagina)) {
+                    leidos += sku.length();
+                }
+            }
+            double copia = (System.nanoTime() - inicio) / 1e3 / rondas;
+            System.out.printf("%10d %16.2f %16.0f%n", pagina, salto, copia);
+            if (leidos < 0) {
+                System.out.println();
+            }
+        }
+    }
+
+    /**
+     * Compara la búsqueda por prefijo y por contenido del nombre usando el índice contra un
+     * recorrido lineal de todos los productos, sobre un catálogo de nombres con palabras repetidas.
+     */
+    private static void benchmarkBusquedaNombre() {
+        String[] prendas = {"Camiseta", "Short", "Pantalón", "Sudadera", "Chaqueta", "Calcetas", "Gorra", "Mallas"};
+        String[] deportes = {"Running", "Pádel", "Fútbol", "Ciclismo", "Yoga", "Tenis", "Natación", "Gimnasio"};
+        String[] colores = {"Azul", "Rojo", "Negro", "Blanco", "Verde", "Gris", "Naranja", "Morado"};
+        String[] consultas = {"sho", "camiseta ru", "padel", "ciclismo ver", "xyz", "zu", "q", "x"};
+        int limite = 20;
+        int n = 1_000_000;
+        Random random = new Random(42);
+        List<Producto> productos = new ArrayList<>(n);
+        for (String sku : generarSKUs(n)) {
+            productos.add(new Producto(sku, prendas[random.nextInt(prendas.length)] + " " + deportes[random.nextInt(deportes.length)]
+                + " " + colores[random.nextInt(colores.length)] + " " + random.nextInt(1000), "Descripción", "m:1"));
+        }
+        long inicio = System.nanoTime();
+        IndiceNombres indice = new IndiceNombres();
+        for (Producto producto : productos) {
+            indice.agregar(producto);
+        }
+        System.out.printf("Índice de %d productos construido en %d ms%n", n, (System.nanoTime() - inicio) / 1_000_000);
+        System.out.printf("%-14s %-10s %14s %14s%n", "Consulta", "Modo", "Índice (µs)", "Lineal (µs)");
+        for (String consulta : consultas) {
+            for (boolean prefijo : new boolean[] {true, false}) {
+                int repeticiones = 2_000;
+                int encontrados = 0;
+                inicio = System.nanoTime();
+                for (int r = 0; r < repeticiones; r++) {
+                    encontrados += prefijo ? indice.buscarPorPrefijo(consulta, limite).size()
+                        : indice.buscarPorContenido(consulta, limite).size();
+                }
+                double conIndice = (System.nanoTime() - inicio) / 1e3 / repeticiones;
+
+                int rondas = 5;
+                inicio = System.nanoTime();
+                for (int r = 0; r < rondas; r++) {
+                    String normalizada = IndiceNombres.normalizar(consulta);
+                    List<Producto> resultado = new ArrayList<>();
+                    for (Producto producto : productos) {
+                        String nombre = IndiceNombres.normalizar(producto.getNombre());
+                        if (prefijo ? nombre.startsWith(normalizada) : nombre.contains(normalizada)) {
+                            resultado.add(producto);
+                        }
+                    }
+                    resultado.sort((a, b) -> a.getNombre().compareTo(b.getNombre()));
+                    encontrados += Math.min(resultado.size(), limite);
+                }
+                double lineal = (System.nanoTime() - inicio) / 1e3 / rondas;
+                System.out.printf("%-14s %-10s %14.1f %14.0f%n", consulta, prefijo ? "prefijo" : "contenido", conIndice, lineal);
+                if (encontrados < 0) {
+                    System.out.println();
+                }
+            }
+        }
+    }
+
+    // Producto con la representación anterior de las tallas (un HashMap por producto), usado como referencia.
+    private static final class ProductoConMapa {
+        final String sku;
+        final String nombre;
+        final String descripcion;
+        final Map<String, Integer> tallas;
+
+        ProductoConMapa(String sku, String nombre, String descripcion, String datosTallas) {
+            this.sku = sku;
+            this.nombre = nombre;
+            this.descripcion = descripcion;
+            this.tallas = new HashMap<>();
+            for (String par : datosTallas.split("\\|")) {
+                String[] partes = par.split(":");
+                tallas.put(partes[0], Integer.parseInt(partes[1]));
+            }
+        }
+    }
+
+    /**
+     * Mide la memoria retenida por n productos con tallas en un HashMap por producto y
+     * con el arreglo de enteros indexado por el diccionario global de tallas.
+     * Se usa la memoria ocupada después de forzar la recolección de basura; conviene
+     * ejecutarlo con -XX:+UseSerialGC para que la medición sea estable.
+     */
+    private static void benchmarkHuella() {
+        System.out.printf("%10s %-12s %14s %14s%n", "Productos", "Tallas", "Total (MB)", "Por producto (B)");
+        for (int n : new int[] {100_000, 1_000_000}) {
+            List<String> skus = generarSKUs(n);
+            String[] nombres = new String[n];
+            for (int i = 0; i < n; i++) {
+                nombres[i] = "Producto " + i;
+            }
+            String descripcion = "Descripción";
+            Random random = new Random(42);
+            String[] filas = new String[n];
+            for (int i = 0; i < n; i++) {
+                filas[i] = "xs:" + random.nextInt(50) + "|s:" + random.nextInt(50) + "|m:" + random.nextInt(50)
+                    + "|l:" + random.nextInt(50) + "|xl:" + random.nextInt(50);
+            }
+            for (String modo : new String[] {"HashMap", "diccionario"}) {
+                long antes = memoriaOcupada();
+                Object[] productos = new Object[n];
+                for (int i = 0; i < n; i++) {
+                    productos[i] = modo.equals("HashMap")
+                        ? new ProductoConMapa(skus.get(i), nombres[i], descripcion, filas[i])
+                        : new Producto(skus.get(i), nombres[i], descripcion, filas[i]);
+                }
+                long bytes = memoriaOcupada() - antes;
+                System.out.printf("%10d %-12s %14.1f %14d%n", n, modo, bytes / 1e6, bytes / n);
+                if (productos[n - 1] == null) {
+                    System.out.println(); // Mantiene vivos los productos hasta después de medir.
+                }
+            }
+        }
+    }
+
+    // Memoria ocupada del heap después de forzar la recolección de basura.
+    private static long memoriaOcupada() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // Escribe un inventario sintético de n productos en un archivo temporal, ordenado por SKU.
+    static Path generarCSV(int n) throws IOException {
+        Path archivo = Files.createTempFile("inventario-", ".csv");
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo)) {
+            writer.write("SKU,Nombre,Descripción,Cantidad por talla\n");
+            for (String sku : generarSKUs(n)) {
+                writer.write(sku + ",Producto " + random.nextInt(n) + ",Descripción de " + sku
+                    + ",xs:" + random.nextInt(50) + "|m:" + random.nextInt(50) + "|xl:" + random.nextInt(50) + "\n");
+            }
+        }
+        return archivo;
+    }
+
+    // Inserta los SKUs en un árbol nuevo y reporta el tiempo y la altura.
+    private static void medirCarga(String orden, List<String> skus) {
+        BinaryTree<String, String> arbol = new BinaryTree<>();
+        long inicio = System.nanoTime();
+        for (String sku : skus) {
+            arbol.insertar(sku, sku);
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        System.out.printf("%-10s %10d %12d %8d%n", orden, skus.size(), ms, arbol.altura());
+    }
+
+    // Genera n SKUs distintos en orden ascendente.
+    static List<String> generarSKUs(int n) {
+        List<String> skus = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            skus.add(String.format("DEP-2025-%08d", i));
+        }
+        return skus;
+    }
+}
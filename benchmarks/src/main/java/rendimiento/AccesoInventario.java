@@ -0,0 +1,184 @@
+/**
+ * Clase AccesoInventario que permite a los benchmarks llamar a las clases del inventario.
+ * JMH exige que los benchmarks estén en un paquete con nombre, y Java no permite importar clases
+ * del paquete por defecto (donde vive el inventario) desde otro paquete. Por eso las operaciones
+ * medidas se obtienen una sola vez como MethodHandle en constantes static final: el JIT las trata
+ * como constantes y las enlaza directamente, así que su costo es el de una llamada normal.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : AccesoInventario.java
+ */
+
+package rendimiento;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+final class AccesoInventario {
+    private static final Class<?> ARBOL = clase("BinaryTree"); // BinaryTree<K, V>.
+    private static final Class<?> INVENTARIO = clase("Inventario"); // Inventario.
+    private static final Class<?> PRODUCTO = clase("Producto"); // Producto.
+
+    private static final MethodHandle NUEVO_ARBOL = constructor(ARBOL);
+    private static final MethodHandle INSERTAR = metodo(ARBOL, "insertar", void.class, Comparable.class, Object.class);
+    private static final MethodHandle INSERTAR_LOTE = metodo(ARBOL, "insertarLote", void.class, List.class, List.class);
+    private static final MethodHandle BUSCAR = metodo(ARBOL, "buscar", Object.class, Comparable.class);
+    private static final MethodHandle TAMANO_ARBOL = metodo(ARBOL, "tamano", int.class);
+    private static final MethodHandle NUEVO_INVENTARIO = constructor(INVENTARIO);
+    private static final MethodHandle CARGAR = metodo(INVENTARIO, "cargarDesdeCSV", void.class, String.class);
+    private static final MethodHandle RESPALDAR = metodo(INVENTARIO, "respaldar", boolean.class, String.class);
+    private static final MethodHandle CANTIDAD_PRODUCTOS = metodo(INVENTARIO, "cantidadProductos", int.class);
+    private static final MethodHandle BUSCAR_POR_SKU = metodo(INVENTARIO, "buscarPorSKU", PRODUCTO, String.class);
+    private static final MethodHandle ACTIVAR_FILTROS = metodo(INVENTARIO, "activarFiltros", void.class, double.class);
+    private static final MethodHandle CERRAR = metodo(INVENTARIO, "cerrar", void.class);
+
+    private AccesoInventario() {
+    }
+
+    // Carga una clase del paquete por defecto.
+    private static Class<?> clase(String nombre) {
+        try {
+            return Class.forName(nombre);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("No se encontró la clase " + nombre + "; ¿se instaló el proyecto principal?", e);
+        }
+    }
+
+    // Obtiene el constructor sin parámetros de una clase, con el tipo ()Object.
+    private static MethodHandle constructor(Class<?> clase) {
+        try {
+            return MethodHandles.publicLookup().findConstructor(clase, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se encontró el constructor de " + clase.getName(), e);
+        }
+    }
+
+    // Obtiene un método de instancia; el receptor y los retornos que son objetos se ven como Object.
+    private static MethodHandle metodo(Class<?> clase, String nombre, Class<?> retorno, Class<?>... parametros) {
+        try {
+            MethodHandle metodo = MethodHandles.publicLookup().findVirtual(clase, nombre, MethodType.methodType(retorno, parametros));
+            MethodType tipo = metodo.type().changeParameterType(0, Object.class);
+            return metodo.asType(retorno.isPrimitive() ? tipo : tipo.changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se encontró el método " + clase.getName() + "." + nombre, e);
+        }
+    }
+
+    // Convierte un error de una invocación en una excepción no verificada.
+    private static RuntimeException error(Throwable causa) {
+        if (causa instanceof RuntimeException) {
+            return (RuntimeException) causa;
+        }
+        if (causa instanceof Error) {
+            throw (Error) causa;
+        }
+        return new IllegalStateException(causa);
+    }
+
+    static Object nuevoArbol() {
+        try {
+            return (Object) NUEVO_ARBOL.invokeExact();
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static void insertar(Object arbol, String clave, Object valor) {
+        try {
+            INSERTAR.invokeExact(arbol, (Comparable) clave, valor);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static void insertarLote(Object arbol, List<String> claves, List<?> valores) {
+        try {
+            INSERTAR_LOTE.invokeExact(arbol, (List) claves, (List) valores);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static Object buscar(Object arbol, String clave) {
+        try {
+            return (Object) BUSCAR.invokeExact(arbol, (Comparable) clave);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static int tamano(Object arbol) {
+        try {
+            return (int) TAMANO_ARBOL.invokeExact(arbol);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    // BinaryTree implementa Iterable, así que el recorrido no necesita MethodHandle.
+    static Iterable<?> recorrido(Object arbol) {
+        return (Iterable<?>) arbol;
+    }
+
+    static Object nuevoInventario() {
+        try {
+            return (Object) NUEVO_INVENTARIO.invokeExact();
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static void cargarDesdeCSV(Object inventario, String archivo) {
+        try {
+            CARGAR.invokeExact(inventario, archivo);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static boolean respaldar(Object inventario, String archivo) {
+        try {
+            return (boolean) RESPALDAR.invokeExact(inventario, archivo);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static int cantidadProductos(Object inventario) {
+        try {
+            return (int) CANTIDAD_PRODUCTOS.invokeExact(inventario);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static Object buscarPorSKU(Object inventario, String sku) {
+        try {
+            return (Object) BUSCAR_POR_SKU.invokeExact(inventario, sku);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static void activarFiltros(Object inventario, double tasaFalsosPositivos) {
+        try {
+            ACTIVAR_FILTROS.invokeExact(inventario, tasaFalsosPositivos);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+
+    static void cerrar(Object inventario) {
+        try {
+            CERRAR.invokeExact(inventario);
+        } catch (Throwable e) {
+            throw error(e);
+        }
+    }
+}
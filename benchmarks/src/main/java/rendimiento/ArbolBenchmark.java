@@ -0,0 +1,225 @@
+/**
+ * Clase ArbolBenchmark con los benchmarks JMH de BinaryTree: inserción (SKU en orden y en orden
+ * aleatorio, una por una y en lote), búsqueda (aciertos y fallos, con carga uniforme y Zipfiana)
+ * y recorrido in-order completo, con 10 000, 100 000 y 1 000 000 de claves; además, búsqueda en
+ * 1 000 000 de claves que comparten prefijos de distinto largo.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : ArbolBenchmark.java
+ */
+
+package rendimiento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ArbolBenchmark {
+    private static final int CONSULTAS = 1 << 16; // Consultas precalculadas; se recorren en ciclo.
+
+    /**
+     * Claves a insertar, en orden ascendente o aleatorio.
+     */
+    @State(Scope.Benchmark)
+    public static class Insercion {
+        @Param({"10000", "100000", "1000000"})
+        public int tamano; // Cantidad de claves.
+
+        @Param({"ordenado", "aleatorio"})
+        public String orden; // Orden de llegada de las claves.
+
+        List<String> claves; // Claves en el orden de llegada.
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            claves = orden.equals("ordenado") ? GeneradorInventario.skus(tamano) : GeneradorInventario.skusDesordenados(tamano, 42);
+        }
+    }
+
+    /**
+     * Árbol lleno y consultas precalculadas según el resultado (acierto o fallo) y la distribución.
+     */
+    @State(Scope.Benchmark)
+    public static class Consultas {
+        @Param({"10000", "100000", "1000000"})
+        public int tamano; // Cantidad de claves del árbol.
+
+        @Param({"acierto", "fallo"})
+        public String resultado; // Si las claves consultadas existen.
+
+        @Param({"uniforme", "zipf"})
+        public String distribucion; // Cómo se reparten las consultas entre las claves.
+
+        Object arbol; // Árbol con las claves.
+        String[] carga; // Claves consultadas, en ciclo.
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            List<String> skus = GeneradorInventario.skus(tamano);
+            arbol = AccesoInventario.nuevoArbol();
+            AccesoInventario.insertarLote(arbol, skus, skus);
+            List<String> consultables = skus;
+            if (resultado.equals("fallo")) {
+                consultables = new ArrayList<>(tamano);
+                for (int i = 0; i < tamano; i++) {
+                    consultables.add(GeneradorInventario.skuInexistente(i));
+                }
+            }
+            carga = distribucion.equals("zipf")
+                ? GeneradorInventario.cargaZipf(consultables, 0.99, CONSULTAS, 7)
+                : GeneradorInventario.cargaUniforme(consultables, CONSULTAS, 7);
+            for (int i = 0; i < carga.length; i++) {
+                carga[i] = new String(carga[i]); // Las consultas no comparten la cadena con la clave del árbol.
+            }
+        }
+    }
+
+    /**
+     * Árbol con 1 000 000 de claves que comparten un prefijo y consultas uniformes sobre ellas.
+     */
+    @State(Scope.Benchmark)
+    public static class ConsultasPrefijo {
+        @Param({"DEP-2025-", "BODEGA-CENTRAL/DEP-2025-RUN-"})
+        public String prefijo; // Prefijo común de todas las claves.
+
+        Object arbol; // Árbol con las claves.
+        String[] carga; // Claves consultadas, en ciclo.
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            List<String> claves = GeneradorInventario.clavesConPrefijo(prefijo, 1_000_000);
+            arbol = AccesoInventario.nuevoArbol();
+            AccesoInventario.insertarLote(arbol, claves, claves);
+            carga = GeneradorInventario.cargaUniforme(claves, CONSULTAS, 7);
+            for (int i = 0; i < carga.length; i++) {
+                carga[i] = new String(carga[i]);
+            }
+        }
+    }
+
+    /**
+     * Árbol lleno para recorrerlo completo.
+     */
+    @State(Scope.Benchmark)
+    public static class Recorrido {
+        @Param({"10000", "100000", "1000000"})
+        public int tamano; // Cantidad de claves del árbol.
+
+        Object arbol; // Árbol con las claves insertadas en orden aleatorio.
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            arbol = AccesoInventario.nuevoArbol();
+            for (String sku : GeneradorInventario.skusDesordenados(tamano, 42)) {
+                AccesoInventario.insertar(arbol, sku, sku);
+            }
+        }
+    }
+
+    /**
+     * Posición de la siguiente consulta; cada hilo lleva la suya.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int siguiente; // Índice de la siguiente consulta.
+    }
+
+    /**
+     * Construye un árbol insertando las claves una por una.
+     *
+     * @param insercion Las claves a insertar.
+     * @return El árbol construido.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object insertar(Insercion insercion) {
+        Object arbol = AccesoInventario.nuevoArbol();
+        for (String clave : insercion.claves) {
+            AccesoInventario.insertar(arbol, clave, clave);
+        }
+        return arbol;
+    }
+
+    /**
+     * Construye un árbol con insertarLote.
+     *
+     * @param insercion Las claves a insertar.
+     * @return El árbol construido.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object insertarLote(Insercion insercion) {
+        Object arbol = AccesoInventario.nuevoArbol();
+        AccesoInventario.insertarLote(arbol, insercion.claves, insercion.claves);
+        return arbol;
+    }
+
+    /**
+     * Busca una clave.
+     *
+     * @param consultas El árbol y las consultas.
+     * @param cursor La posición de la consulta actual.
+     * @return El valor encontrado, o null.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object buscar(Consultas consultas, Cursor cursor) {
+        String clave = consultas.carga[cursor.siguiente];
+        cursor.siguiente = (cursor.siguiente + 1) & (CONSULTAS - 1);
+        return AccesoInventario.buscar(consultas.arbol, clave);
+    }
+
+    /**
+     * Busca una clave en un árbol cuyas claves comparten un prefijo.
+     *
+     * @param consultas El árbol y las consultas.
+     * @param cursor La posición de la consulta actual.
+     * @return El valor encontrado.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object buscarConPrefijo(ConsultasPrefijo consultas, Cursor cursor) {
+        String clave = consultas.carga[cursor.siguiente];
+        cursor.siguiente = (cursor.siguiente + 1) & (CONSULTAS - 1);
+        return AccesoInventario.buscar(consultas.arbol, clave);
+    }
+
+    /**
+     * Recorre todos los valores del árbol en orden.
+     *
+     * @param recorrido El árbol a recorrer.
+     * @param agujero Consumidor de JMH que evita que se descarte el recorrido.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void recorrerEnOrden(Recorrido recorrido, Blackhole agujero) {
+        for (Object valor : AccesoInventario.recorrido(recorrido.arbol)) {
+            agujero.consume(valor);
+        }
+    }
+}
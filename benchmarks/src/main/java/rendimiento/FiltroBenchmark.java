@@ -0,0 +1,119 @@
+/**
+ * Clase FiltroBenchmark con el benchmark JMH de la búsqueda por SKU del inventario cuando la mitad
+ * de las consultas son de SKU inexistentes (por ejemplo, códigos de otra tienda), sin filtro de
+ * pertenencia y con filtros de distinta tasa de falsos positivos, con 100 000 y 1 000 000 de productos.
+ * Los SKU inexistentes comparten casi todo el texto con uno existente, así que sin filtro cada fallo
+ * recorre el árbol hasta una hoja. Las consultas se repiten en ciclo, por lo que el hash de cada una
+ * ya está calculado después de la primera vuelta.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : FiltroBenchmark.java
+ */
+
+package rendimiento;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FiltroBenchmark {
+    private static final int CONSULTAS = 1 << 16; // Consultas precalculadas; se recorren en ciclo.
+
+    /**
+     * Inventario cargado desde un CSV generado, con o sin filtros, y consultas con 50 % de fallos.
+     */
+    @State(Scope.Benchmark)
+    public static class Consultas {
+        @Param({"100000", "1000000"})
+        public int tamano; // Cantidad de productos.
+
+        @Param({"0", "0.01", "0.001"})
+        public double tasa; // Tasa de falsos positivos de los filtros (0: sin filtros).
+
+        Object inventario; // Inventario cargado.
+        String[] carga; // SKU consultados, en ciclo.
+
+        @Setup(Level.Trial)
+        public void preparar() throws IOException {
+            PrintStream salida = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Path directorio = Files.createTempDirectory("filtro-jmh-");
+            Path csv = directorio.resolve("inventario.csv");
+            try {
+                GeneradorInventario.escribirCSV(csv, tamano, 42);
+                inventario = AccesoInventario.nuevoInventario();
+                AccesoInventario.cargarDesdeCSV(inventario, csv.toString());
+                AccesoInventario.cerrar(inventario);
+            } finally {
+                System.setOut(salida);
+                try (var archivos = Files.list(directorio)) {
+                    for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                        Files.delete(archivo);
+                    }
+                }
+                Files.delete(directorio);
+            }
+            if (tasa > 0) {
+                AccesoInventario.activarFiltros(inventario, tasa);
+            }
+            // Mitad SKU existentes y mitad inexistentes, elegidos al azar entre ambos grupos.
+            List<String> consultables = new ArrayList<>(2 * tamano);
+            for (int i = 0; i < tamano; i++) {
+                consultables.add(GeneradorInventario.sku(i));
+                consultables.add(GeneradorInventario.skuInexistente(i));
+            }
+            carga = GeneradorInventario.cargaUniforme(consultables, CONSULTAS, 7);
+            for (int i = 0; i < carga.length; i++) {
+                carga[i] = new String(carga[i]); // Las consultas no comparten la cadena con la clave del árbol.
+            }
+        }
+    }
+
+    /**
+     * Posición de la siguiente consulta; cada hilo lleva la suya.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int siguiente; // Índice de la siguiente consulta.
+    }
+
+    /**
+     * Busca un producto por SKU (existente o no) con el candado de lectura, como una consulta real.
+     *
+     * @param consultas El inventario y las consultas.
+     * @param cursor La posición de la consulta actual.
+     * @return El producto encontrado, o null.
+     */
+    @Benchmark
+    public Object buscarPorSKU(Consultas consultas, Cursor cursor) {
+        String sku = consultas.carga[cursor.siguiente];
+        cursor.siguiente = (cursor.siguiente + 1) & (CONSULTAS - 1);
+        return AccesoInventario.buscarPorSKU(consultas.inventario, sku);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Clase GeneradorInventario que produce inventarios sintéticos reproducibles para los benchmarks.
+ * Los SKU tienen la forma "DEP-2025-00000042"; los nombres combinan tipo de prenda, deporte y color,
+ * por lo que se repiten como en un catálogo real; cada producto tiene entre una y cinco tallas.
+ * La misma semilla genera siempre el mismo inventario.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : GeneradorInventario.java
+ */
+
+package rendimiento;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+final class GeneradorInventario {
+    private static final String[] PRENDAS = {"Camiseta", "Short", "Sudadera", "Leggings", "Chaqueta", "Gorra", "Calcetas", "Conjunto"};
+    private static final String[] DEPORTES = {"Running", "Pádel", "Gimnasio", "Fútbol", "Ciclismo", "Yoga", "Natación", "Tenis"};
+    private static final String[] COLORES = {"Negro", "Blanco", "Azul", "Rojo", "Verde", "Gris", "Naranja", "Morado"};
+    private static final String[] TALLAS = {"xs", "s", "m", "l", "xl"};
+
+    private GeneradorInventario() {
+    }
+
+    /**
+     * Genera los SKU de un inventario de n productos, en orden ascendente.
+     *
+     * @param n Cantidad de SKU.
+     * @return Los SKU ordenados.
+     */
+    static List<String> skus(int n) {
+        List<String> skus = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            skus.add(sku(i));
+        }
+        return skus;
+    }
+
+    /**
+     * Obtiene el SKU del producto i.
+     *
+     * @param i Número del producto.
+     * @return El SKU.
+     */
+    static String sku(int i) {
+        return String.format("DEP-2025-%08d", i);
+    }
+
+    /**
+     * Genera n claves ordenadas que comparten un prefijo largo y solo difieren en los últimos
+     * caracteres (por ejemplo "BODEGA-CENTRAL/DEP-2025-RUN-00000042"), el peor caso para comparar
+     * cadenas desde el primer carácter.
+     *
+     * @param prefijo El prefijo común.
+     * @param n Cantidad de claves.
+     * @return Las claves ordenadas.
+     */
+    static List<String> clavesConPrefijo(String prefijo, int n) {
+        List<String> claves = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            claves.add(prefijo + String.format("%08d", i));
+        }
+        return claves;
+    }
+
+    /**
+     * Obtiene un SKU que no existe en el inventario y se ubica entre los productos i e i + 1,
+     * para medir búsquedas fallidas que recorren el árbol hasta una hoja.
+     *
+     * @param i Número del producto anterior.
+     * @return El SKU inexistente.
+     */
+    static String skuInexistente(int i) {
+        return sku(i) + "-X";
+    }
+
+    /**
+     * Obtiene los SKU de n productos en un orden aleatorio reproducible.
+     *
+     * @param n Cantidad de SKU.
+     * @param semilla Semilla del orden.
+     * @return Los SKU desordenados.
+     */
+    static List<String> skusDesordenados(int n, long semilla) {
+        List<String> skus = skus(n);
+        Collections.shuffle(skus, new Random(semilla));
+        return skus;
+    }
+
+    /**
+     * Escribe un CSV con n productos en el formato del inventario, con el juego de caracteres
+     * predeterminado (el mismo con el que el inventario lo lee).
+     *
+     * @param archivo El archivo a escribir.
+     * @param n Cantidad de productos.
+     * @param semilla Semilla de los nombres, descripciones y cantidades.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    static void escribirCSV(Path archivo, int n, long semilla) throws IOException {
+        Random random = new Random(semilla);
+        StringBuilder fila = new StringBuilder(128);
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(archivo), Charset.defaultCharset()), 1 << 16)) {
+            writer.write("SKU,Nombre,Descripción,Cantidad por talla\n");
+            for (int i = 0; i < n; i++) {
+                fila.setLength(0);
+                fila.append(sku(i)).append(',');
+                fila.append(PRENDAS[random.nextInt(PRENDAS.length)]).append(' ')
+                    .append(DEPORTES[random.nextInt(DEPORTES.length)]).append(' ')
+                    .append(COLORES[random.nextInt(COLORES.length)]).append(',');
+                fila.append("Modelo ").append(random.nextInt(1_000)).append(" de temporada").append(',');
+                int primera = random.nextInt(TALLAS.length);
+                int ultima = primera + random.nextInt(TALLAS.length - primera);
+                for (int t = primera; t <= ultima; t++) {
+                    if (t > primera) {
+                        fila.append('|');
+                    }
+                    fila.append(TALLAS[t]).append(':').append(random.nextInt(100));
+                }
+                writer.append(fila).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Genera una carga de consultas con distribución Zipfiana: la clave de rango r (desde 1)
+     * aparece con probabilidad proporcional a 1 / r^exponente. Los rangos se asignan a las claves
+     * en un orden aleatorio, para que las más consultadas no sean vecinas en el árbol.
+     *
+     * @param claves Las claves posibles.
+     * @param exponente El exponente de la distribución (0.99 es el usado habitualmente).
+     * @param consultas Cantidad de consultas a generar.
+     * @param semilla Semilla de la carga.
+     * @return Las claves consultadas, en orden.
+     */
+    static String[] cargaZipf(List<String> claves, double exponente, int consultas, long semilla) {
+        Random random = new Random(semilla);
+        List<String> porPopularidad = new ArrayList<>(claves);
+        Collections.shuffle(porPopularidad, random);
+        int n = porPopularidad.size();
+        double[] acumulada = new double[n];
+        double suma = 0;
+        for (int i = 0; i < n; i++) {
+            suma += 1 / Math.pow(i + 1, exponente);
+            acumulada[i] = suma;
+        }
+        String[] carga = new String[consultas];
+        for (int i = 0; i < consultas; i++) {
+            int rango = Arrays.binarySearch(acumulada, random.nextDouble() * suma);
+            carga[i] = porPopularidad.get(rango >= 0 ? rango : Math.min(-rango - 1, n - 1));
+        }
+        return carga;
+    }
+
+    /**
+     * Genera una carga de consultas con distribución uniforme sobre las claves.
+     *
+     * @param claves Las claves posibles.
+     * @param consultas Cantidad de consultas a generar.
+     * @param semilla Semilla de la carga.
+     * @return Las claves consultadas, en orden.
+     */
+    static String[] cargaUniforme(List<String> claves, int consultas, long semilla) {
+        Random random = new Random(semilla);
+        String[] carga = new String[consultas];
+        for (int i = 0; i < consultas; i++) {
+            carga[i] = claves.get(random.nextInt(claves.size()));
+        }
+        return carga;
+    }
+}
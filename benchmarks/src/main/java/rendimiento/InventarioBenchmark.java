@@ -0,0 +1,154 @@
+/**
+ * Clase InventarioBenchmark con los benchmarks JMH de carga y guardado del inventario completo,
+ * con 10 000, 100 000 y 1 000 000 de productos generados por GeneradorInventario.
+ * Cada medición es una sola ejecución de la operación (SingleShotTime), porque cada carga necesita
+ * un inventario nuevo y cada una deja archivos que deben restablecerse antes de la siguiente.
+ *
+ * @Project : Hoja de Trabajo 7
+ * @Author : Luis Girón
+ * @CreationDate : 18.10.2026
+ * @LastModification : 18.10.2026
+ * @FileName : InventarioBenchmark.java
+ */
+
+package rendimiento;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 8)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InventarioBenchmark {
+
+    /**
+     * Directorio temporal con el CSV generado; los mensajes del inventario se descartan mientras dura la prueba.
+     */
+    @State(Scope.Benchmark)
+    public static class Archivos {
+        @Param({"10000", "100000", "1000000"})
+        public int tamano; // Cantidad de productos.
+
+        Path directorio; // Directorio temporal de la prueba.
+        Path csv; // CSV generado.
+        PrintStream salida; // Salida estándar original.
+
+        @Setup(Level.Trial)
+        public void preparar() throws IOException {
+            salida = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            directorio = Files.createTempDirectory("inventario-jmh-");
+            csv = directorio.resolve("inventario.csv");
+            GeneradorInventario.escribirCSV(csv, tamano, 42);
+        }
+
+        @TearDown(Level.Trial)
+        public void limpiar() throws IOException {
+            System.setOut(salida);
+            try (var archivos = Files.list(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    Files.delete(archivo);
+                }
+            }
+            Files.delete(directorio);
+        }
+
+        // Elimina la copia binaria y la bitácora que deja una carga.
+        void eliminarDerivados() throws IOException {
+            Files.deleteIfExists(Path.of(csv + ".bin"));
+            Files.deleteIfExists(Path.of(csv + ".log"));
+        }
+    }
+
+    /**
+     * Inventario a cargar: se crea vacío antes de cada medición, desde el CSV o desde su copia binaria.
+     */
+    @State(Scope.Benchmark)
+    public static class Carga {
+        @Param({"csv", "copiaBinaria"})
+        public String origen; // De dónde se leen los productos.
+
+        Object inventario; // Inventario vacío, cargado por la medición.
+
+        @Setup(Level.Invocation)
+        public void preparar(Archivos archivos) throws IOException {
+            archivos.eliminarDerivados();
+            if (origen.equals("copiaBinaria")) {
+                // La primera carga desde el CSV escribe la copia binaria, que usa la medición.
+                Object previo = AccesoInventario.nuevoInventario();
+                AccesoInventario.cargarDesdeCSV(previo, archivos.csv.toString());
+            }
+            inventario = AccesoInventario.nuevoInventario();
+        }
+
+        @TearDown(Level.Invocation)
+        public void verificar(Archivos archivos) {
+            if (AccesoInventario.cantidadProductos(inventario) != archivos.tamano) {
+                throw new IllegalStateException("La carga no leyó todos los productos");
+            }
+            inventario = null;
+        }
+    }
+
+    /**
+     * Inventario cargado una sola vez, para guardarlo en cada medición.
+     */
+    @State(Scope.Benchmark)
+    public static class Guardado {
+        Object inventario; // Inventario completo.
+        Path destino; // Archivo donde se guarda.
+
+        @Setup(Level.Trial)
+        public void preparar(Archivos archivos) throws IOException {
+            archivos.eliminarDerivados();
+            inventario = AccesoInventario.nuevoInventario();
+            AccesoInventario.cargarDesdeCSV(inventario, archivos.csv.toString());
+            destino = archivos.directorio.resolve("guardado.csv");
+        }
+    }
+
+    /**
+     * Carga el inventario completo. Desde el CSV incluye escribir la copia binaria que deja para
+     * el siguiente arranque, igual que una carga real.
+     *
+     * @param carga El inventario vacío y el origen de la carga.
+     * @param archivos El CSV a cargar.
+     * @return El inventario cargado.
+     */
+    @Benchmark
+    public Object cargarDesdeCSV(Carga carga, Archivos archivos) {
+        AccesoInventario.cargarDesdeCSV(carga.inventario, archivos.csv.toString());
+        return carga.inventario;
+    }
+
+    /**
+     * Guarda el inventario completo en un CSV (el mismo camino que usa la compactación).
+     *
+     * @param guardado El inventario y el archivo de destino.
+     * @return true si se guardó.
+     */
+    @Benchmark
+    public boolean guardarEnCSV(Guardado guardado) {
+        return AccesoInventario.respaldar(guardado.inventario, guardado.destino.toString());
+    }
+}